@@ -0,0 +1,98 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark MemAppender.append with one and with several producer threads.
+//
+// Appending changes the state being measured (an empty buffer fills up and then starts evicting), so each
+// iteration starts from a fresh appender and times one batch of appends per thread: BEFORE_MAX_SIZE appends
+// into an empty, unbounded buffer and AFTER_MAX_SIZE into a full one where every append evicts the oldest
+// event. The reported time is per batch of BATCH_SIZE appends.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = AppendBenchmark.BATCH_SIZE)
+@Measurement(iterations = 40, batchSize = AppendBenchmark.BATCH_SIZE)
+@Fork(1)
+public class AppendBenchmark {
+
+    // Number of appends each thread performs per iteration, and the maxSize of the full buffer
+    static final int BATCH_SIZE = 10_000;
+
+    // Whether the batch is appended before or after maxSize is reached
+    @Param({"BEFORE_MAX_SIZE", "AFTER_MAX_SIZE"})
+    public String phase;
+
+    @Param({"HEAP", "OFF_HEAP", "COMPRESSED"})
+    public StorageMode storageMode;
+
+    // Number of stripes (1 is the default single buffer, to check that striping is never slower)
+    @Param({"1", "4"})
+    public int stripes;
+
+    // Whether JMX metrics are collected (to check their overhead)
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private MemAppender appender;
+    private LogEvent event;
+
+    // Method to create a fresh appender for each iteration (filled up to maxSize for AFTER_MAX_SIZE)
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setUp() {
+        event = Log4jLogEvent.newBuilder()
+            .setLoggerName("BenchmarkLogger")
+            .setLevel(Level.INFO)
+            .setMessage(new SimpleMessage("Benchmark message"))
+            .build();
+        appender = new MemAppender("AppendBenchmark", null, null, null);
+        appender.setStorageMode(storageMode);
+        appender.setStripeCount(stripes);
+        appender.setMetricsEnabled(metrics);
+        if (phase.equals("AFTER_MAX_SIZE")) {
+            appender.setMaxSize(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                appender.append(event);
+            }
+        }
+        appender.start();
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public void appendSingleThread() {
+        appender.append(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void appendFourThreads() {
+        appender.append(event);
+    }
+}
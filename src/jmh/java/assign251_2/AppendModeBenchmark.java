@@ -0,0 +1,141 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Class to benchmark MemAppender.append with each of the optional retention and forwarding features enabled,
+// against the DEFAULT appender with the same maxSize.
+//
+// Every mode appends the same mix: one event in a hundred is an ERROR of the quiet "app.orders" logger and the
+// rest are DEBUG events of the chatty "http.access" logger, with parameterized messages that have not been
+// formatted yet and timestamps one millisecond apart that end now. Like AppendBenchmark, each iteration starts
+// from a fresh appender and times one batch of BATCH_SIZE appends, so a burst fits in the ASYNC queue and
+// every other mode evicts for most of the batch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = AppendModeBenchmark.BATCH_SIZE)
+@Measurement(iterations = 40, batchSize = AppendModeBenchmark.BATCH_SIZE)
+@Fork(1)
+public class AppendModeBenchmark {
+
+    // Number of appends per iteration
+    static final int BATCH_SIZE = 10_000;
+
+    // Number of retained events (and the maximum age in milliseconds for MAX_AGE)
+    static final int WINDOW = 1_000;
+
+    @Param({"DEFAULT", "ASYNC", "SPILL", "FLIGHT_RECORDER", "PARTITIONED", "LEVEL_PRIORITY", "DEFERRED",
+        "MAX_AGE"})
+    public String mode;
+
+    private MemAppender appender;
+    private MemAppender downstream;
+    private Path spillDirectory;
+    private LogEvent[] events;
+    private int next;
+
+    // Method to create a fresh appender for the mode and fresh events for each iteration (a formatted
+    // ParameterizedMessage caches its text, so reusing the events would hide the cost of formatting)
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setUp() throws IOException {
+        long base = System.currentTimeMillis() - BATCH_SIZE;
+        events = new LogEvent[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            boolean quiet = i % 100 == 99;
+            events[i] = Log4jLogEvent.newBuilder()
+                .setLoggerName(quiet ? "app.orders" : "http.access")
+                .setLevel(quiet ? Level.ERROR : Level.DEBUG)
+                .setThreadName("worker-" + (i % 8))
+                .setTimeMillis(base + i)
+                .setMessage(new ParameterizedMessage("Request {} for customer {} took {} ms",
+                    i, "customer-" + (i % 1000), i % 97))
+                .build();
+        }
+        next = 0;
+
+        appender = new MemAppender("AppendModeBenchmark", null, null, null);
+        appender.setMaxSize(WINDOW);
+        switch (mode) {
+            case "ASYNC":
+                appender.setAsync(65536, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+                break;
+            case "SPILL":
+                spillDirectory = Files.createTempDirectory("append-mode-benchmark");
+                appender.setSpill(spillDirectory, 256L * 1024 * 1024);
+                break;
+            case "FLIGHT_RECORDER":
+                downstream = new MemAppender("AppendModeBenchmarkDownstream", null, null, null);
+                appender.setFlightRecorder(downstream, Level.ERROR, null, TriggerScope.THREAD, 100, 5_000, 1_000);
+                break;
+            case "PARTITIONED":
+                appender.setMaxSize(WINDOW / 10);
+                appender.setPartitionsByLoggerPrefix(Map.of("http", WINDOW - WINDOW / 10));
+                break;
+            case "LEVEL_PRIORITY":
+                appender.setLevelPriorityEviction(Map.of(Level.DEBUG, WINDOW / 10));
+                break;
+            case "DEFERRED":
+                appender.setDeferredFormatting(true);
+                break;
+            case "MAX_AGE":
+                appender.setMaxSize(Integer.MAX_VALUE);
+                appender.setMaxAge(WINDOW);
+                break;
+            default:
+                break;
+        }
+        appender.start();
+    }
+
+    // Method to stop the appender (draining the ASYNC queue) and remove the spill files
+    @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+    public void tearDown() throws IOException {
+        appender.stop();
+        if (spillDirectory != null) {
+            appender.clear();
+            try (Stream<Path> files = Files.walk(spillDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            spillDirectory = null;
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        appender.append(events[next++]);
+    }
+}
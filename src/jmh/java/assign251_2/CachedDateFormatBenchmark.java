@@ -0,0 +1,65 @@
+package assign251_2;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark rendering $d with CachedDateFormat against rendering every timestamp from scratch, for the
+// default Date.toString() text and for a pattern with milliseconds. Timestamps advance by one millisecond every
+// four events, as from a busy logger.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedDateFormatBenchmark {
+
+    // DEFAULT renders like Date.toString()
+    @Param({"DEFAULT", "yyyy-MM-dd HH:mm:ss.SSS"})
+    public String pattern;
+
+    private CachedDateFormat cached;
+    private DateTimeFormatter formatter;
+    private long eventCount;
+
+    // Method to create the cached format and the formatter it is compared with
+    @Setup
+    public void setUp() {
+        cached = new CachedDateFormat(pattern.equals("DEFAULT") ? null : pattern);
+        formatter = pattern.equals("DEFAULT") ? null
+            : DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    public String cached() {
+        return cached.format(nextTime());
+    }
+
+    @Benchmark
+    public String uncached() {
+        long time = nextTime();
+        return formatter == null ? new Date(time).toString() : formatter.format(Instant.ofEpochMilli(time));
+    }
+
+    // Method to return the timestamp of the next event
+    private long nextTime() {
+        return 1_700_000_000_000L + eventCount++ / 4;
+    }
+}
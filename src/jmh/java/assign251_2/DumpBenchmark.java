@@ -0,0 +1,113 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark exporting the current logs as formatted text and as a binary dump, and reading the
+// events of a 1% time range back from the dump by seeking with its block index and by a full scan
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DumpBenchmark {
+
+    // Number of retained events
+    static final int SIZE = 200_000;
+
+    // Timestamp of the first event (events are one millisecond apart)
+    static final long BASE_TIME = 1_700_000_000_000L;
+
+    private MemAppender appender;
+    private Path directory;
+    private Path textFile;
+    private Path dumpFile;
+    private LogDumpReader reader;
+    private long from;
+    private long to;
+
+    // Method to fill the appender and write the dump that is read back once for the whole trial
+    @Setup
+    public void setUp() throws IOException {
+        appender = new MemAppender("DumpBenchmark", null,
+            VelocityLayout.createLayout(StandardCharsets.UTF_8, "[$p] $c $d: $m$n"), null);
+        appender.setMaxSize(SIZE);
+        appender.start();
+        String[] threads = {"http-nio-8080-exec-1", "http-nio-8080-exec-2", "scheduler-1", "main"};
+        for (int i = 0; i < SIZE; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLoggerName("com.example.service.OrderService" + (i % 8))
+                .setLevel(i % 50 == 0 ? Level.WARN : Level.INFO)
+                .setThreadName(threads[i % threads.length])
+                .setTimeMillis(BASE_TIME + i)
+                .setMessage(new SimpleMessage("Processed order " + i + " in " + (i % 97) + " ms"))
+                .build());
+        }
+        directory = Files.createTempDirectory("dump-benchmark");
+        textFile = directory.resolve("events.log");
+        dumpFile = directory.resolve("events.dump");
+        Path readFile = directory.resolve("read.dump");
+        appender.dumpLogs(readFile);
+        reader = LogDumpReader.open(readFile);
+        from = BASE_TIME + SIZE / 2;
+        to = from + SIZE / 100;
+    }
+
+    // Method to stop the appender and remove the files
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        appender.stop();
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(dumpFile);
+        Files.deleteIfExists(directory.resolve("read.dump"));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Path exportText() throws IOException {
+        return Files.write(textFile, appender.getEventStrings(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long exportDump() {
+        return appender.dumpLogs(dumpFile);
+    }
+
+    @Benchmark
+    public List<LogEvent> readRangeBySeek() {
+        return reader.read(from, to);
+    }
+
+    @Benchmark
+    public long readRangeByScan() {
+        return reader.readAll().stream()
+            .filter(event -> event.getTimeMillis() >= from && event.getTimeMillis() < to)
+            .count();
+    }
+}
@@ -0,0 +1,78 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark a selective query (the ERROR events of one of twenty loggers in the most recent tenth of
+// the time span) answered by scanning the retained events and by the indexes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    // Number of retained events
+    static final int SIZE = 200_000;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private MemAppender appender;
+    private EventQuery query;
+
+    // Method to fill the appender once for the whole trial (ten events per millisecond)
+    @Setup
+    public void setUp() {
+        appender = new MemAppender("QueryBenchmark", null, null, null);
+        appender.setMaxSize(SIZE);
+        appender.setIndexed(indexed);
+        appender.start();
+        long startMillis = 1_700_000_000_000L;
+        for (int i = 0; i < SIZE; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLoggerName("com.example.service.Handler" + (i % 20))
+                .setLevel(i % 100 == 0 ? Level.ERROR : Level.INFO)
+                .setTimeMillis(startMillis + i / 10)
+                .setMessage(new SimpleMessage("Handled request " + i))
+                .build());
+        }
+        long endMillis = startMillis + SIZE / 10;
+        query = EventQuery.all()
+            .withLevels(Level.ERROR)
+            .withLogger("com.example.service.Handler0")
+            .withTimeRange(endMillis - SIZE / 100, endMillis);
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public List<LogEvent> query() {
+        return appender.query(query);
+    }
+}
@@ -0,0 +1,98 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Class to benchmark reading the retained events of MemAppender at several buffer sizes, with events kept on
+// the heap and compressed, and with sequential and parallel formatting of the event strings
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+    // Number of retained events
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    @Param({"HEAP", "COMPRESSED"})
+    public StorageMode storageMode;
+
+    // Number of threads formatting getEventStrings (1 formats on the calling thread)
+    @Param({"1", "4"})
+    public int formattingParallelism;
+
+    // Number of strings taken from the start of streamEventStrings
+    static final int STREAM_LIMIT = 100;
+
+    private MemAppender appender;
+
+    // Method to fill the appender once for the whole trial (reads do not change the retained events)
+    @Setup
+    public void setUp() {
+        appender = new MemAppender("ReadBenchmark", null,
+            VelocityLayout.createLayout(StandardCharsets.UTF_8, "[$p] $c $d: $m$n"), null);
+        appender.setStorageMode(storageMode);
+        appender.setFormattingParallelism(formattingParallelism);
+        appender.start();
+        for (int i = 0; i < size; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLoggerName("BenchmarkLogger")
+                .setLevel(Level.INFO)
+                .setTimeMillis(1_000_000L + i)
+                .setMessage(new SimpleMessage("Benchmark message " + i))
+                .build());
+        }
+        CompressedSegment.awaitCompressed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public List<LogEvent> getCurrentLogs() {
+        return appender.getCurrentLogs();
+    }
+
+    @Benchmark
+    public List<LogEvent> getSnapshot() {
+        return appender.getSnapshot();
+    }
+
+    @Benchmark
+    public List<String> getEventStrings() {
+        return appender.getEventStrings();
+    }
+
+    @Benchmark
+    public List<String> streamFirstEventStrings() {
+        return appender.streamEventStrings().limit(STREAM_LIMIT).collect(Collectors.toList());
+    }
+}
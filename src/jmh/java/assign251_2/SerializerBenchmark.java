@@ -0,0 +1,80 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark encoding and decoding off-heap records, plain and coded against dictionaries, on a
+// realistic mix of twenty loggers, fifty threads and several levels
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    // Number of distinct events cycled through (a power of two)
+    static final int EVENT_COUNT = 4096;
+
+    @Param({"false", "true"})
+    public boolean dictionary;
+
+    private LogEvent[] events;
+    private byte[][] records;
+    private LogEventSerializer.Dictionaries dictionaries;
+    private int next;
+
+    // Method to create the events and encode them once for the decoding benchmark
+    @Setup
+    public void setUp() {
+        String[] services = {"orders.OrderService", "orders.OrderRepository", "payments.PaymentGateway",
+            "payments.RefundService", "inventory.StockService", "inventory.WarehouseClient", "users.UserService",
+            "users.SessionManager", "search.QueryParser", "search.IndexWriter", "shipping.RateCalculator",
+            "shipping.LabelPrinter", "notifications.EmailSender", "notifications.SmsSender", "web.RequestFilter",
+            "web.AccessLog", "cache.RedisClient", "db.ConnectionPool", "scheduler.JobRunner", "audit.AuditTrail"};
+        Level[] levels = {Level.INFO, Level.INFO, Level.INFO, Level.DEBUG, Level.DEBUG, Level.WARN, Level.ERROR};
+        dictionaries = dictionary ? new LogEventSerializer.Dictionaries() : null;
+        events = new LogEvent[EVENT_COUNT];
+        records = new byte[EVENT_COUNT][];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events[i] = Log4jLogEvent.newBuilder()
+                .setLoggerName("com.example." + services[i % services.length])
+                .setLoggerFqcn("org.apache.logging.log4j.spi.AbstractLogger")
+                .setLevel(levels[i % levels.length])
+                .setThreadName("http-nio-8080-exec-" + (i % 50))
+                .setMessage(new SimpleMessage("Handled request " + i + " in " + (i % 97) + " ms"))
+                .setTimeMillis(1_700_000_000_000L + i)
+                .build();
+            records[i] = LogEventSerializer.serialize(events[i], dictionaries);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return LogEventSerializer.serialize(events[next++ & (EVENT_COUNT - 1)], dictionaries);
+    }
+
+    @Benchmark
+    public LogEvent deserialize() {
+        return LogEventSerializer.deserialize(records[next++ & (EVENT_COUNT - 1)], dictionaries);
+    }
+}
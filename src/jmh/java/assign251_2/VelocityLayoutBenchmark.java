@@ -0,0 +1,75 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Class to benchmark VelocityLayout.toSerializable with the default pattern, a longer pattern that is still
+// formatted without the Velocity engine, and a pattern with a directive that needs the engine
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityLayoutBenchmark {
+
+    @Param({"DEFAULT", "COMPLEX", "DIRECTIVE"})
+    public String pattern;
+
+    @Param({"false", "true"})
+    public boolean reuseBuffers;
+
+    private VelocityLayout layout;
+    private LogEvent event;
+
+    // Method to create the layout and the event to format
+    @Setup
+    public void setUp() {
+        String template;
+        switch (pattern) {
+            case "COMPLEX":
+                template = "${d} [${t}] ${p} ${c} - ${m} (level=$p, logger=$!c)$n";
+                break;
+            case "DIRECTIVE":
+                template = "#if($p == \"ERROR\")!! #end[$p] $c $d: $m$n";
+                break;
+            default:
+                template = "[$p] $c $d: $m$n";
+                break;
+        }
+        layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, template);
+        layout.setReuseBuffers(reuseBuffers);
+        event = Log4jLogEvent.newBuilder()
+            .setLoggerName("com.example.BenchmarkLogger")
+            .setLevel(Level.ERROR)
+            .setThreadName("main")
+            .setTimeMillis(System.currentTimeMillis())
+            .setMessage(new SimpleMessage("Benchmark message with a few words in it"))
+            .build();
+    }
+
+    @Benchmark
+    public String toSerializable() {
+        return layout.toSerializable(event);
+    }
+}
@@ -0,0 +1,119 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import the JMH annotations
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Class to benchmark appending from one virtual thread per event while another virtual thread keeps copying
+// the logs, to MemAppender and to an ArrayList guarded by a monitor (which pins the carrier threads of
+// waiting writers). Each iteration appends TASK_COUNT events to a fresh target.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    // Number of virtual threads (and events) per iteration
+    static final int TASK_COUNT = 100_000;
+
+    @Param({"MEM_APPENDER", "LOCKED_LIST"})
+    public String target;
+
+    private LogEvent[] events;
+    private MemAppender appender;
+    private Consumer<LogEvent> append;
+    private Supplier<List<LogEvent>> read;
+
+    // Method to create the events once for the whole trial
+    @Setup
+    public void setUpEvents() {
+        events = new LogEvent[TASK_COUNT];
+        for (int i = 0; i < TASK_COUNT; i++) {
+            events[i] = Log4jLogEvent.newBuilder()
+                .setLoggerName("BenchmarkLogger")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("Task " + i))
+                .build();
+        }
+    }
+
+    // Method to create a fresh target for each iteration
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setUp() {
+        if (target.equals("LOCKED_LIST")) {
+            List<LogEvent> list = Collections.synchronizedList(new ArrayList<>());
+            append = list::add;
+            read = () -> {
+                synchronized (list) {
+                    return new ArrayList<>(list);
+                }
+            };
+        } else {
+            appender = new MemAppender("VirtualThreadBenchmark", null, null, null);
+            appender.start();
+            append = appender::append;
+            read = appender::getCurrentLogs;
+        }
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+    public void tearDown() {
+        if (appender != null) {
+            appender.stop();
+            appender = null;
+        }
+    }
+
+    @Benchmark
+    public void appendFromVirtualThreads() throws Exception {
+        AtomicBoolean appending = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> reader = executor.submit(() -> {
+                while (appending.get()) {
+                    read.get();
+                    LockSupport.parkNanos(1_000_000); // unmount between reads so the writers keep running
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>(events.length);
+            for (LogEvent event : events) {
+                writers.add(executor.submit(() -> append.accept(event)));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            appending.set(false);
+            reader.get();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+
+// Import other necessary classes
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Class to represent the handoff queue between application threads and the background consumer of an
+// asynchronous MemAppender.
+//
+// The queue is a pre-sized ring of slots. Producers claim a slot with a CAS on the tail and publish the event
+// by advancing the slot's sequence number; the single consumer thread moves published events into the
+// retained store in batches. Closing the queue marks the tail so that no further slot can be claimed, after
+// which the consumer drains every claimed slot and exits. A consumer that dies of an error marks the tail the
+// same way, so blocked producers give up and store their events themselves instead of waiting forever, and
+// close hands the events it left behind to the sink on the closing thread.
+final class AsyncIngestQueue {
+
+    // Result of offering an event to the queue
+    enum Offer {
+        ACCEPTED, // the consumer will store the event
+        REJECTED, // the queue was full and the overflow policy dropped the event
+        CLOSED    // the queue no longer accepts events; the caller must store the event itself
+    }
+
+    // Bit of the tail that marks the queue as closed
+    private static final long CLOSED_BIT = 1L << 62;
+
+    // Maximum number of events the consumer moves before reporting its progress
+    private static final int BATCH_SIZE = 256;
+
+    // Slots of the ring and the sequence number each slot expects next
+    private final AtomicReferenceArray<LogEvent> events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // Next slot to be claimed by a producer (plus the closed bit)
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next slot to be read by the consumer (only accessed by the consumer thread)
+    private long head;
+
+    // Number of events the consumer has handed to the sink so far
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<LogEvent> sink;
+    private final BiConsumer<LogEvent, RuntimeException> errorHandler;
+    private final Thread consumer;
+
+    // Constructor to initialize the queue (the capacity is rounded up to a power of two)
+    AsyncIngestQueue(String name, int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy,
+            Consumer<LogEvent> sink, BiConsumer<LogEvent, RuntimeException> errorHandler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue size must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.events = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.sink = sink;
+        this.errorHandler = errorHandler;
+        this.consumer = new Thread(this::consume, name);
+        this.consumer.setDaemon(true);
+    }
+
+    // Method to retrieve the number of slots
+    int getCapacity() {
+        return mask + 1;
+    }
+
+    // Method to start the consumer thread
+    void start() {
+        consumer.start();
+    }
+
+    // === Section 1. Producers
+
+    // Method to hand an event to the consumer, applying the overflow policy when the queue is full
+    Offer offer(LogEvent event) {
+        LogEvent handoff = snapshot(event);
+        int attempt = 0;
+        while (true) {
+            long position = tail.get();
+            if ((position & CLOSED_BIT) != 0) {
+                return Offer.CLOSED;
+            }
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events.lazySet(index, handoff);
+                    sequences.set(index, position + 1); // publish the slot to the consumer
+                    return Offer.ACCEPTED;
+                }
+            } else if (available < 0) {
+                // The slot still holds an event from the previous lap: the queue is full
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    return Offer.REJECTED;
+                }
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+
+    // Method to copy an event on the producer's thread, so that the consumer neither looks up the thread of
+    // the event lazily on its own thread nor formats mutable parameters after the caller changed them (events
+    // whose message was deferred are such a copy already)
+    static LogEvent snapshot(LogEvent event) {
+        if (event.getMessage() instanceof DeferredMessage) {
+            return event;
+        }
+        Log4jLogEvent copy = Log4jLogEvent.createMemento(event, event.isIncludeLocation());
+        copy.makeMessageImmutable();
+        return copy;
+    }
+
+    // Method to wait until every event offered before this call has reached the sink
+    void awaitConsumed() {
+        long target = tail.get() & ~CLOSED_BIT;
+        int attempt = 0;
+        while (consumed.get() < target && consumer.isAlive()) {
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    // Method to stop accepting events and wait for the consumer to drain the queue,
+    // returning false if it did not finish in time (a timeout of zero or less waits indefinitely)
+    boolean close(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        markClosed();
+        if (consumer.isAlive()) {
+            if (timeout > 0) {
+                consumer.join(timeUnit.toMillis(timeout));
+            } else {
+                consumer.join();
+            }
+            if (consumer.isAlive()) {
+                return false;
+            }
+        }
+        // The consumer has exited (or died, or never ran), so this thread can take over the remaining events
+        while (drainBatch() > 0) {
+            // keep draining
+        }
+        return true;
+    }
+
+    // Method to mark the tail as closed so that no further slot can be claimed
+    private void markClosed() {
+        long position;
+        while (((position = tail.get()) & CLOSED_BIT) == 0) {
+            tail.compareAndSet(position, position | CLOSED_BIT);
+        }
+    }
+
+    // === Section 2. Consumer
+
+    // Method run by the consumer thread until the queue is closed and drained (or an error escapes the sink,
+    // in which case the queue is closed so that producers stop handing it events)
+    private void consume() {
+        try {
+            int attempt = 0;
+            while (true) {
+                if (drainBatch() > 0) {
+                    attempt = 0;
+                    continue;
+                }
+                long position = tail.get();
+                if ((position & CLOSED_BIT) != 0 && head == (position & ~CLOSED_BIT)) {
+                    return;
+                }
+                waitStrategy.idle(attempt++);
+            }
+        } finally {
+            markClosed();
+        }
+    }
+
+    // Method to move up to one batch of published events into the sink, returning how many were moved
+    private int drainBatch() {
+        int count = 0;
+        while (count < BATCH_SIZE) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break; // not yet published
+            }
+            LogEvent event = events.get(index);
+            events.lazySet(index, null);
+            sequences.set(index, head + mask + 1); // free the slot for the next lap
+            head++;
+            count++;
+            try {
+                sink.accept(event);
+            } catch (RuntimeException e) {
+                errorHandler.accept(event, e);
+            }
+        }
+        if (count > 0) {
+            consumed.set(head);
+        }
+        return count;
+    }
+}
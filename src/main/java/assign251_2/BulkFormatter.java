@@ -0,0 +1,101 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+// Class to format many events at once on a fork/join pool.
+//
+// The events are split into chunks by their spliterator, and every chunk writes its strings straight into
+// its own positions of the result array, so the original order is kept without a reassembly step. The
+// layout is called from several threads at once, which log4j layouts (including VelocityLayout) allow.
+final class BulkFormatter {
+
+    // Number of events below which a chunk is formatted by a single task
+    static final int CHUNK_SIZE = 1024;
+
+    // Pool running the formatting tasks
+    private final ForkJoinPool pool;
+
+    // Constructor to initialize the formatter with the given number of worker threads
+    BulkFormatter(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Method to retrieve the number of worker threads
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Method to format the events with the layout, returning the strings in the order of the events
+    List<String> format(List<LogEvent> events, Layout<?> layout) {
+        return format(events, event -> layout.toSerializable(event).toString());
+    }
+
+    // Method to format the events with a formatting function, returning the strings in the order of the events
+    List<String> format(List<LogEvent> events, Function<LogEvent, String> formatter) {
+        Spliterator<LogEvent> spliterator = events.spliterator();
+        if (!spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+            spliterator = new ArrayList<>(events).spliterator(); // chunk offsets need exact sizes
+        }
+        String[] strings = new String[(int) spliterator.estimateSize()];
+        pool.invoke(new FormatTask(spliterator, 0, strings, formatter));
+        return new ArrayList<>(Arrays.asList(strings));
+    }
+
+    // Method to release the worker threads
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // Class to represent the formatting of one range of events into the result array (ForkJoinTask is
+    // Serializable, but the tasks only live inside the pool and are never serialized)
+    private static final class FormatTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Spliterator<LogEvent> events;
+        private final int offset;
+        private final transient String[] strings;
+        private final transient Function<LogEvent, String> formatter;
+
+        FormatTask(Spliterator<LogEvent> events, int offset, String[] strings, Function<LogEvent, String> formatter) {
+            this.events = events;
+            this.offset = offset;
+            this.strings = strings;
+            this.formatter = formatter;
+        }
+
+        @Override
+        protected void compute() {
+            // Split off prefixes for other workers until the remaining range is one chunk
+            List<FormatTask> forked = new ArrayList<>();
+            int position = offset;
+            while (events.estimateSize() > CHUNK_SIZE) {
+                Spliterator<LogEvent> prefix = events.trySplit();
+                if (prefix == null) {
+                    break;
+                }
+                int prefixSize = (int) prefix.estimateSize();
+                FormatTask task = new FormatTask(prefix, position, strings, formatter);
+                task.fork();
+                forked.add(task);
+                position += prefixSize;
+            }
+
+            int[] next = {position};
+            events.forEachRemaining(event -> strings[next[0]++] = formatter.apply(event));
+            for (FormatTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
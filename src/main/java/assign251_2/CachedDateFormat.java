@@ -0,0 +1,144 @@
+package assign251_2;
+
+// Import the necessary classes
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Class to render event timestamps for $d, reusing the text of recent seconds.
+//
+// Thousands of events share the same second, so the expensive part of the rendering (time zone rules,
+// field lookups and string building) is done once per second and cached. A format whose only sub-second
+// field is a trailing run of 'S' caches the text before that run and appends the milliseconds to it; a
+// format with other sub-second fields is cached per millisecond instead. Without a format the text is the
+// one Date.toString() produces, which has second precision. The cache is a few slots of immutable entries
+// chosen by the low bits of the key, so threads logging on both sides of a second boundary do not evict
+// each other, and a stale or lost update only costs a recomputation.
+final class CachedDateFormat {
+
+    // Number of cached entries (a power of two)
+    private static final int SLOTS = 4;
+
+    // Pattern given by the configuration, or null for the Date.toString() format
+    private final String pattern;
+
+    // Formatter for the cached part of the text, or null for the Date.toString() format
+    private final DateTimeFormatter formatter;
+
+    // Number of trailing fraction digits appended to the cached text (0 if there are none)
+    private final int fractionDigits;
+
+    // Whether entries are cached per millisecond rather than per second
+    private final boolean perMillisecond;
+
+    // Cached entries, indexed by the low bits of their key
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(SLOTS);
+
+    // Constructor to initialize the CachedDateFormat with a DateTimeFormatter pattern (null for Date.toString())
+    CachedDateFormat(String pattern) {
+        this.pattern = pattern;
+        if (pattern == null) {
+            this.formatter = null;
+            this.fractionDigits = 0;
+            this.perMillisecond = false;
+            return;
+        }
+        int end = pattern.length();
+        while (end > 0 && pattern.charAt(end - 1) == 'S') {
+            end--;
+        }
+        if (end < pattern.length() && !isQuoted(pattern, end) && !hasSubSecondField(pattern.substring(0, end))) {
+            this.formatter = DateTimeFormatter.ofPattern(pattern.substring(0, end)).withZone(ZoneId.systemDefault());
+            this.fractionDigits = pattern.length() - end;
+            this.perMillisecond = false;
+        } else {
+            this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+            this.fractionDigits = 0;
+            this.perMillisecond = hasSubSecondField(pattern);
+        }
+    }
+
+    // Method to get the pattern (null for the Date.toString() format)
+    String getPattern() {
+        return pattern;
+    }
+
+    // Method to render a timestamp
+    String format(long timeMillis) {
+        if (fractionDigits == 0) {
+            return cachedText(timeMillis);
+        }
+        StringBuilder builder = new StringBuilder(32);
+        formatTo(timeMillis, builder);
+        return builder.toString();
+    }
+
+    // Method to render a timestamp into the builder
+    void formatTo(long timeMillis, StringBuilder builder) {
+        builder.append(cachedText(timeMillis));
+        if (fractionDigits > 0) {
+            appendFraction(builder, (int) Math.floorMod(timeMillis, 1000L));
+        }
+    }
+
+    // Method to return the cached text for the second (or millisecond) of the timestamp, rendering it if needed
+    private String cachedText(long timeMillis) {
+        long key = perMillisecond ? timeMillis : Math.floorDiv(timeMillis, 1000L);
+        int slot = (int) key & (SLOTS - 1);
+        Entry entry = entries.get(slot);
+        if (entry == null || entry.key() != key) {
+            entry = new Entry(key, render(perMillisecond ? key : key * 1000L));
+            entries.set(slot, entry);
+        }
+        return entry.text();
+    }
+
+    // Method to render the cached part of the text for a timestamp
+    private String render(long timeMillis) {
+        if (formatter == null) {
+            return new Date(timeMillis).toString();
+        }
+        return formatter.format(Instant.ofEpochMilli(timeMillis));
+    }
+
+    // Method to append the milliseconds as the configured number of fraction digits
+    private void appendFraction(StringBuilder builder, int millis) {
+        int divisor = 100;
+        for (int i = 0; i < fractionDigits; i++) {
+            // timestamps have millisecond precision, so digits past the third are zero
+            builder.append(i < 3 ? (char) ('0' + millis / divisor % 10) : '0');
+            divisor /= 10;
+        }
+    }
+
+    // Method to check whether the text up to a position ends inside a quoted literal
+    private static boolean isQuoted(String pattern, int end) {
+        boolean quoted = false;
+        for (int i = 0; i < end; i++) {
+            if (pattern.charAt(i) == '\'') {
+                quoted = !quoted; // an escaped quote ('') toggles twice
+            }
+        }
+        return quoted;
+    }
+
+    // Method to check whether a pattern has a field that changes within a second
+    private static boolean hasSubSecondField(String pattern) {
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && (ch == 'S' || ch == 'n' || ch == 'N' || ch == 'A')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Record to hold the rendered text of one second (or millisecond)
+    private record Entry(long key, String text) {
+    }
+}
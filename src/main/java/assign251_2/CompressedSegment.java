@@ -0,0 +1,283 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Class to represent a buffer segment that keeps its events on the heap until it is full, and is then
+// compressed in the background.
+//
+// While a segment fills up it stores immutable event objects like a heap segment. Once its last slot is
+// published the segment is sealed and handed to a shared compressor thread (or compressed by the producer if
+// the compressor is behind), which encodes every event as a dictionary-coded record, deflates the records of
+// the whole segment into one byte array and drops the event objects. The size of each slot is lowered to its
+// share of the compressed bytes, so the byte budget of the buffer holds correspondingly more history. A read
+// inflates a compressed segment (recently inflated segments are cached for all threads) and decodes only the
+// records it needs. Evicting a compressed segment just drops one array.
+final class CompressedSegment extends LogEventBuffer.Segment {
+
+    // Bytes of the offset table per record (kept with the compressed bytes)
+    private static final int OFFSET_SIZE = Integer.BYTES;
+
+    // Largest number of sealed segments waiting for the compressor; beyond it the producer that seals a
+    // segment compresses it itself, so that a busy machine cannot evict segments before they are compressed
+    static final int MAX_PENDING_SEGMENTS = 4;
+
+    // Number of sealed segments handed to the compressor that it has not finished yet
+    private static final AtomicInteger PENDING = new AtomicInteger();
+
+    // Shared thread that compresses sealed segments
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "MemAppender-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Number of recently inflated segments kept for all reading threads (a power of two)
+    private static final int INFLATED_SLOTS = 8;
+
+    // Recently inflated segments, indexed by the low bits of the segment id. The cache is shared rather than
+    // per thread because readers running on short-lived virtual threads would never find their own entry
+    // again, and would keep a copy of the inflated bytes alive per thread. Entries refer to their segment
+    // weakly, so the cache never keeps an evicted segment (or the buffer it belongs to) reachable.
+    private static final AtomicReferenceArray<Inflated> RECENTLY_INFLATED =
+        new AtomicReferenceArray<>(INFLATED_SLOTS);
+
+    // Event objects of the slots until the segment has been compressed
+    private final AtomicReferenceArray<LogEvent> slots = new AtomicReferenceArray<>(LogEventBuffer.SEGMENT_SIZE);
+
+    // Number of published slots (the segment is sealed when every slot is published)
+    private final AtomicInteger published = new AtomicInteger();
+
+    // Compressed records, or null until the segment has been compressed
+    private volatile Compressed compressed;
+
+    // Dictionaries the records are coded against and the retained byte count of the buffer
+    private final LogEventSerializer.Dictionaries dictionaries;
+    private final AtomicLong retainedBytes;
+
+    // Constructor to initialize the segment with its id and the shared state of its buffer
+    CompressedSegment(long id, boolean tagged, LogEventSerializer.Dictionaries dictionaries,
+            AtomicLong retainedBytes) {
+        super(id, tagged);
+        this.dictionaries = dictionaries;
+        this.retainedBytes = retainedBytes;
+    }
+
+    // Method to store an immutable copy of the event for a slot and seal the segment once it is full
+    @Override
+    int put(int index, LogEvent event) {
+        LogEvent copy = event.toImmutable();
+        int size = recordSize(index, LogEventSizeEstimator.estimate(copy));
+        slots.set(index, copy);
+        if (published.incrementAndGet() == LogEventBuffer.SEGMENT_SIZE) {
+            seal();
+        }
+        return size;
+    }
+
+    // Method to publish a tombstone for a slot (it counts towards sealing the segment like any other slot)
+    @Override
+    void putTombstone(int index) {
+        slots.set(index, LogEventBuffer.TOMBSTONE);
+        if (published.incrementAndGet() == LogEventBuffer.SEGMENT_SIZE) {
+            seal();
+        }
+    }
+
+    // Method to read the event of a slot, decoding it if the segment has been compressed (the event object is
+    // only dropped after the compressed records are visible, so a missing object means either)
+    @Override
+    LogEvent get(int index) {
+        LogEvent event = slots.get(index);
+        if (event != null) {
+            return event;
+        }
+        Compressed records = compressed;
+        if (records == null) {
+            return null;
+        }
+        if (records.isTombstone(index)) {
+            return LogEventBuffer.TOMBSTONE;
+        }
+        byte[] raw = inflate(records);
+        return LogEventSerializer.deserialize(
+            Arrays.copyOfRange(raw, records.offsets[index], records.offsets[index + 1]), dictionaries);
+    }
+
+    // Method to read the level of a published slot without decoding the whole record
+    @Override
+    Level level(int index) {
+        LogEvent event = slots.get(index);
+        if (event != null) {
+            return event.getLevel();
+        }
+        Compressed records = compressed;
+        if (records.isTombstone(index)) {
+            return LogEventBuffer.TOMBSTONE.getLevel();
+        }
+        return LogEventSerializer.readLevel(ByteBuffer.wrap(inflate(records)), records.offsets[index], dictionaries);
+    }
+
+    // Method to read the timestamp of a published slot without decoding the whole record
+    @Override
+    long timeMillis(int index) {
+        LogEvent event = slots.get(index);
+        if (event != null) {
+            return event.getTimeMillis();
+        }
+        Compressed records = compressed;
+        if (records.isTombstone(index)) {
+            return LogEventBuffer.TOMBSTONE.getTimeMillis();
+        }
+        return LogEventSerializer.readTimeMillis(ByteBuffer.wrap(inflate(records)), records.offsets[index]);
+    }
+
+    @Override
+    boolean isPublished(int index) {
+        return slots.get(index) != null || compressed != null;
+    }
+
+    // Method to check whether the segment has been compressed
+    boolean isCompressed() {
+        return compressed != null;
+    }
+
+    // Method to wait until the segments sealed so far have been compressed
+    static void awaitCompressed() {
+        try {
+            COMPRESSOR.submit(() -> { }).get(1, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            throw new IllegalStateException("Compressor did not catch up", e);
+        }
+    }
+
+    // Method to hand the full segment to the compressor, or compress it right away if the compressor is behind
+    private void seal() {
+        if (PENDING.incrementAndGet() > MAX_PENDING_SEGMENTS) {
+            PENDING.decrementAndGet();
+            compress();
+            return;
+        }
+        COMPRESSOR.execute(() -> {
+            try {
+                compress();
+            } finally {
+                PENDING.decrementAndGet();
+            }
+        });
+    }
+
+    // Method to compress the records of a sealed segment and lower the sizes of the slots that are still
+    // retained (a slot that was evicted has a size of zero or RELEASED, and keeps it)
+    private void compress() {
+        boolean retained = false;
+        for (int i = LogEventBuffer.SEGMENT_SIZE - 1; i >= 0 && !retained; i--) {
+            retained = sizes.get(i) > 0;
+        }
+        if (!retained) {
+            return; // evicted before its turn, so the whole segment is garbage already
+        }
+        ByteArrayOutputStream records = new ByteArrayOutputStream(64 * LogEventBuffer.SEGMENT_SIZE);
+        int[] offsets = new int[LogEventBuffer.SEGMENT_SIZE + 1];
+        for (int i = 0; i < LogEventBuffer.SEGMENT_SIZE; i++) {
+            offsets[i] = records.size();
+            LogEvent event = slots.get(i);
+            if (event != LogEventBuffer.TOMBSTONE) {
+                records.writeBytes(LogEventSerializer.serialize(event, dictionaries)); // a tombstone has no record
+            }
+        }
+        int rawLength = records.size();
+        offsets[LogEventBuffer.SEGMENT_SIZE] = rawLength;
+        byte[] bytes = deflate(records.toByteArray());
+        compressed = new Compressed(bytes, offsets);
+
+        long released = 0;
+        for (int i = 0; i < LogEventBuffer.SEGMENT_SIZE; i++) {
+            slots.set(i, null);
+            int share = OFFSET_SIZE
+                + (int) ((long) bytes.length * (offsets[i + 1] - offsets[i]) / Math.max(1, rawLength));
+            int size;
+            do {
+                size = sizes.get(i);
+            } while (size > 0 && !sizes.compareAndSet(i, size, share));
+            if (size > 0) {
+                released += size - share;
+            }
+        }
+        retainedBytes.addAndGet(-released);
+    }
+
+    // Method to deflate the records of a segment
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] chunk = new byte[8 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Method to inflate the records of this segment, reusing a recent inflation of it by any thread
+    private byte[] inflate(Compressed records) {
+        int slot = (int) id & (INFLATED_SLOTS - 1);
+        Inflated last = RECENTLY_INFLATED.get(slot);
+        if (last != null && last.segment.get() == this) {
+            return last.raw;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(records.bytes);
+            byte[] raw = new byte[records.offsets[LogEventBuffer.SEGMENT_SIZE]];
+            int length = 0;
+            while (length < raw.length) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Compressed segment " + id + " is truncated");
+                }
+                length += inflated;
+            }
+            RECENTLY_INFLATED.set(slot, new Inflated(new WeakReference<>(this), raw));
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed segment " + id + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Record to hold the deflated records of a segment and the offset of every record in the inflated bytes
+    private record Compressed(byte[] bytes, int[] offsets) {
+
+        // Method to check whether a slot holds a tombstone (every stored event has a non-empty record)
+        boolean isTombstone(int index) {
+            return offsets[index] == offsets[index + 1];
+        }
+    }
+
+    // Record to hold the inflated records of a segment
+    private record Inflated(WeakReference<CompressedSegment> segment, byte[] raw) {
+    }
+}
@@ -0,0 +1,143 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.ReusableParameterizedMessage;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+// Import other necessary classes
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.UUID;
+
+// Class to represent a parameterized message whose formatting is deferred until it is first read.
+//
+// The pattern is kept together with a snapshot of the parameters: immutable values (strings, boxed
+// primitives, enums and a few other value types) are kept by reference, and every other parameter is
+// rendered to a string right away, exactly as ParameterizedMessage would render it. Later changes to a
+// mutable parameter, or the reuse of a ReusableParameterizedMessage, can therefore not change the text,
+// while the cost of formatting the whole message is only paid for the events that are actually read.
+final class DeferredMessage implements Message, StringBuilderFormattable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Parameter types whose instances cannot change after the event was logged
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(String.class, Integer.class, Long.class,
+        Short.class, Byte.class, Double.class, Float.class, Boolean.class, Character.class, BigInteger.class,
+        BigDecimal.class, UUID.class);
+
+    // Approximate size of the parameter array header and of a boxed parameter with its text
+    private static final int PARAMETER_ARRAY_OVERHEAD = 16;
+    private static final int BOXED_PARAMETER_SIZE = 32;
+
+    // The message is serialized as the ParameterizedMessage it stands for (see writeReplace), so the
+    // parameters, which need not be serializable, are never written themselves
+    private final String pattern;
+    private final transient Object[] parameters;
+    private final Throwable throwable;
+
+    // Formatted message, or null until it is first needed (formatting twice in a race is harmless)
+    private volatile String formatted;
+
+    // Constructor to initialize the message with its pattern and a snapshot of the parameters
+    private DeferredMessage(String pattern, Object[] parameters, Throwable throwable) {
+        this.pattern = pattern;
+        this.parameters = parameters;
+        this.throwable = throwable;
+    }
+
+    // Method to return an immutable copy of the event that defers formatting its message, or the usual
+    // immutable copy if the message is not parameterized (events whose message was already formatted, such
+    // as the mutable events of garbage-free logging, gain nothing from deferring)
+    static LogEvent defer(LogEvent event) {
+        Message message = event.getMessage();
+        if (!(event instanceof Log4jLogEvent)
+                || !(message instanceof ParameterizedMessage || message instanceof ReusableParameterizedMessage)) {
+            return event.toImmutable();
+        }
+        return new Log4jLogEvent.Builder(event).setMessage(of(message)).build();
+    }
+
+    // Method to snapshot a parameterized message
+    static DeferredMessage of(Message message) {
+        Object[] parameters = message.getParameters();
+        Object[] snapshot = parameters == null ? new Object[0] : parameters.clone();
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = snapshotParameter(snapshot[i]);
+        }
+        return new DeferredMessage(message.getFormat(), snapshot, message.getThrowable());
+    }
+
+    // Method to keep an immutable parameter (or a throwable, which log4j treats as immutable) and render
+    // any other parameter to the text it would be formatted as
+    private static Object snapshotParameter(Object parameter) {
+        if (parameter == null || parameter instanceof Throwable || parameter instanceof Enum
+                || IMMUTABLE_TYPES.contains(parameter.getClass())) {
+            return parameter;
+        }
+        return ParameterizedMessage.deepToString(parameter);
+    }
+
+    // Method to estimate the bytes the message retains, including the text it caches once it is formatted
+    // (the pattern is usually a shared constant, and the text is about as long as the pattern and parameters)
+    long estimateSize() {
+        long size = PARAMETER_ARRAY_OVERHEAD + (long) parameters.length * Long.BYTES
+            + LogEventSizeEstimator.sizeOf(pattern);
+        for (Object parameter : parameters) {
+            // A string parameter is retained itself and copied into the text
+            size += parameter instanceof String
+                ? 2 * LogEventSizeEstimator.sizeOf((String) parameter) : BOXED_PARAMETER_SIZE;
+        }
+        return size;
+    }
+
+    // Method to check whether the message has been formatted yet
+    boolean isFormatted() {
+        return formatted != null;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        String text = formatted;
+        if (text == null) {
+            text = ParameterizedMessage.format(pattern, parameters);
+            formatted = text;
+        }
+        return text;
+    }
+
+    @Override
+    public void formatTo(StringBuilder buffer) {
+        buffer.append(getFormattedMessage());
+    }
+
+    @Override
+    public String getFormat() {
+        return pattern;
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return parameters.clone();
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    @Override
+    public String toString() {
+        return getFormattedMessage();
+    }
+
+    // Method to serialize the message as an equivalent ParameterizedMessage, which writes its parameters
+    // as strings
+    private Object writeReplace() {
+        return new ParameterizedMessage(pattern, parameters, throwable);
+    }
+}
@@ -0,0 +1,174 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.core.LogEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Class to represent a VelocityLayout pattern compiled into literal and field appenders.
+//
+// Only patterns that substitute the variables VelocityLayout puts into the context ($c, $d, $m, $p, $t
+// and $n, also written as ${x}, $!x or $!{x}) are compiled; anything that Velocity could interpret
+// differently (directives, escapes, method calls, indexes) makes compile return null so that the layout
+// falls back to the Velocity engine. The output matches what the engine would produce, including the
+// engine's habit of printing unknown or null references literally.
+final class DirectPattern {
+
+    // Interface for one step of the compiled pattern
+    private interface Part {
+        void appendTo(StringBuilder builder, LogEvent event);
+    }
+
+    // The precomputed sequence of parts
+    private final Part[] parts;
+
+    // Constructor to initialize the DirectPattern with its parts
+    private DirectPattern(List<Part> parts) {
+        this.parts = parts.toArray(new Part[0]);
+    }
+
+    // Method to format the log event into the builder
+    void format(LogEvent event, StringBuilder builder) {
+        for (Part part : parts) {
+            part.appendTo(builder, event);
+        }
+    }
+
+    // === Section 1. Compilation
+
+    // Method to compile the pattern, returning null if the pattern needs the Velocity engine
+    static DirectPattern compile(String pattern, CachedDateFormat dateFormat) {
+        if (pattern.indexOf('#') >= 0 || pattern.indexOf('\\') >= 0) {
+            return null; // directives, comments and escapes are left to the engine
+        }
+        List<Part> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char ch = pattern.charAt(i);
+            if (ch != '$') {
+                literal.append(ch);
+                i++;
+                continue;
+            }
+
+            // Parse the reference: $name, ${name}, $!name or $!{name}
+            int pos = i + 1;
+            boolean quiet = pos < pattern.length() && pattern.charAt(pos) == '!';
+            if (quiet) {
+                pos++;
+            }
+            boolean formal = pos < pattern.length() && pattern.charAt(pos) == '{';
+            if (formal) {
+                pos++;
+            }
+            int nameStart = pos;
+            if (pos < pattern.length() && isIdentifierStart(pattern.charAt(pos))) {
+                pos++;
+                while (pos < pattern.length() && isIdentifierPart(pattern.charAt(pos))) {
+                    pos++;
+                }
+            }
+            String name = pattern.substring(nameStart, pos);
+            if (name.isEmpty()) {
+                if (quiet || formal) {
+                    return null; // unusual syntax, let the engine decide
+                }
+                literal.append(ch); // a lone '$' is printed as-is
+                i++;
+                continue;
+            }
+            if (formal) {
+                if (pos >= pattern.length() || pattern.charAt(pos) != '}') {
+                    return null;
+                }
+                pos++;
+            } else if (pos < pattern.length() && isAccessor(pattern, pos)) {
+                return null; // property, method or index access
+            }
+
+            String source = pattern.substring(i, pos);
+            if (name.equals("d")) {
+                flushLiteral(parts, literal);
+                parts.add((builder, event) -> dateFormat.formatTo(event.getTimeMillis(), builder));
+                i = pos;
+                continue;
+            }
+            Function<LogEvent, Object> field = fieldFor(name);
+            if (field == null) {
+                literal.append(quiet ? "" : source); // unknown references are printed as-is (or not at all if quiet)
+            } else {
+                flushLiteral(parts, literal);
+                parts.add(new FieldPart(field, quiet ? "" : source));
+            }
+            i = pos;
+        }
+        flushLiteral(parts, literal);
+        return new DirectPattern(parts);
+    }
+
+    // Method to map a variable name to the value VelocityLayout puts into the context ($d is rendered
+    // separately, straight into the builder)
+    private static Function<LogEvent, Object> fieldFor(String name) {
+        switch (name) {
+            case "c":
+                return LogEvent::getLoggerName;
+            case "m":
+                return event -> event.getMessage().getFormattedMessage();
+            case "p":
+                return event -> event.getLevel().toString();
+            case "t":
+                return LogEvent::getThreadName;
+            case "n":
+                return event -> System.lineSeparator();
+            default:
+                return null;
+        }
+    }
+
+    // Method to add the pending literal text as a part
+    private static void flushLiteral(List<Part> parts, StringBuilder literal) {
+        if (literal.length() > 0) {
+            String text = literal.toString();
+            parts.add((builder, event) -> builder.append(text));
+            literal.setLength(0);
+        }
+    }
+
+    // Method to check whether the text after a reference would be parsed as an accessor by Velocity
+    private static boolean isAccessor(String pattern, int pos) {
+        char ch = pattern.charAt(pos);
+        if (ch == '[') {
+            return true;
+        }
+        return ch == '.' && pos + 1 < pattern.length() && isIdentifierStart(pattern.charAt(pos + 1));
+    }
+
+    // Method to check whether a character can start a Velocity identifier
+    private static boolean isIdentifierStart(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    // Method to check whether a character can continue a Velocity identifier
+    private static boolean isIdentifierPart(char ch) {
+        return isIdentifierStart(ch) || (ch >= '0' && ch <= '9') || ch == '_';
+    }
+
+    // Class to append the value of a variable, or the reference text when the value is null
+    private static final class FieldPart implements Part {
+        private final Function<LogEvent, Object> field;
+        private final String nullText;
+
+        FieldPart(Function<LogEvent, Object> field, String nullText) {
+            this.field = field;
+            this.nullText = nullText;
+        }
+
+        @Override
+        public void appendTo(StringBuilder builder, LogEvent event) {
+            Object value = field.apply(event);
+            builder.append(value != null ? value.toString() : nullText);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Class to represent secondary indexes over the sequence numbers of the events in a LogEventStore.
+//
+// Producers record the level, logger and timestamp of every stored event into a small handoff ring, and
+// whichever thread wins the indexing flag moves the recorded entries into the indexes in sequence order.
+// Because only one thread writes the indexes at a time and always in sequence order, every index is a
+// sorted list of sequence numbers that readers can binary-search without locks:
+//  - one posting list per level and one per logger name;
+//  - the running maximum timestamp per sequence, which is non-decreasing even when timestamps arrive
+//    slightly out of order. Together with the largest lateness seen so far, it turns a time range into
+//    an exact sequence range.
+// Evicted events are not removed one by one: queries ignore sequences before the store's start, and whole
+// chunks of the lists are dropped once they fall behind it.
+final class EventIndex {
+
+    // Number of slots in the handoff ring (a power of two)
+    private static final int RING_SIZE = 4096;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    // Number of indexed events between two passes that drop evicted chunks
+    private static final int TRIM_INTERVAL = 1024;
+
+    // Handoff ring: each slot's stamp is the sequence it is free for, or that sequence plus one once written
+    private final AtomicLongArray stamps = new AtomicLongArray(RING_SIZE);
+    private final Level[] ringLevels = new Level[RING_SIZE];
+    private final String[] ringLoggers = new String[RING_SIZE];
+    private final long[] ringTimes = new long[RING_SIZE];
+    private final boolean[] ringSkipped = new boolean[RING_SIZE];
+
+    // Flag held by the thread that is currently moving entries into the indexes
+    private final AtomicBoolean indexing = new AtomicBoolean();
+
+    // Next sequence to index (only accessed while holding the flag)
+    private long cursor;
+
+    // Every sequence before this one has been indexed
+    private volatile long indexedUpTo;
+
+    // Store whose events are indexed and the first sequence the index covers
+    private final LogEventStore store;
+    private final long firstSequence;
+
+    // Posting lists by level and by logger name
+    private final Map<Level, LongList> byLevel = new ConcurrentHashMap<>();
+    private final Map<String, LongList> byLogger = new ConcurrentHashMap<>();
+
+    // Running maximum timestamp of the events, by sequence minus firstSequence
+    private final LongList maxTimes = new LongList();
+    private long runningMaxTime = Long.MIN_VALUE;
+
+    // Largest amount by which an event's timestamp was behind the running maximum
+    private volatile long maxLateness;
+
+    // Constructor to initialize an empty index whose first recorded event will have the given sequence
+    EventIndex(LogEventStore store, long firstSequence) {
+        this.store = store;
+        this.firstSequence = firstSequence;
+        for (int i = 0; i < RING_SIZE; i++) {
+            long seq = firstSequence + i;
+            stamps.set((int) seq & RING_MASK, seq);
+        }
+        this.cursor = firstSequence;
+        this.indexedUpTo = firstSequence;
+    }
+
+    // === Section 1. Recording
+
+    // Method to record a stored event (every sequence from firstSequence on must be recorded or skipped
+    // exactly once)
+    void record(long seq, LogEvent event) {
+        write(seq, event.getLevel(), event.getLoggerName(), event.getTimeMillis(), false);
+    }
+
+    // Method to record a sequence whose event could not be stored, so that indexing moves past it
+    void skip(long seq) {
+        write(seq, null, null, 0, true);
+    }
+
+    // Method to write an entry into the handoff ring and index what is ready
+    private void write(long seq, Level level, String loggerName, long timeMillis, boolean skipped) {
+        int slot = (int) seq & RING_MASK;
+        int attempt = 0;
+        while (stamps.get(slot) != seq) {
+            drain(); // the entry from the previous lap has not been indexed yet
+            WaitStrategy.YIELD.idle(attempt++);
+        }
+        ringLevels[slot] = level;
+        ringLoggers[slot] = loggerName;
+        ringTimes[slot] = timeMillis;
+        ringSkipped[slot] = skipped;
+        stamps.set(slot, seq + 1);
+        drain();
+    }
+
+    // Method to move the recorded entries into the indexes if no other thread is doing so
+    private void drain() {
+        while (indexing.compareAndSet(false, true)) {
+            long seq = cursor;
+            try {
+                int slot;
+                while (stamps.get(slot = (int) seq & RING_MASK) == seq + 1) {
+                    if (ringSkipped[slot]) {
+                        maxTimes.add(runningMaxTime); // keeps the time index aligned with the sequences
+                    } else {
+                        index(seq, ringLevels[slot], ringLoggers[slot], ringTimes[slot]);
+                    }
+                    ringLevels[slot] = null;
+                    ringLoggers[slot] = null;
+                    stamps.set(slot, seq + RING_SIZE); // free the slot for the next lap
+                    seq++;
+                    if ((seq & (TRIM_INTERVAL - 1)) == 0) {
+                        trim();
+                    }
+                }
+            } finally {
+                cursor = seq;
+                indexedUpTo = seq;
+                indexing.set(false);
+            }
+            // A producer may have written the next slot after we stopped looking but before we released
+            if (stamps.get((int) seq & RING_MASK) != seq + 1) {
+                return;
+            }
+        }
+    }
+
+    // Method to add one entry to the indexes
+    private void index(long seq, Level level, String loggerName, long timeMillis) {
+        if (level != null) {
+            byLevel.computeIfAbsent(level, key -> new LongList()).add(seq);
+        }
+        byLogger.computeIfAbsent(loggerName == null ? "" : loggerName, key -> new LongList()).add(seq);
+        if (timeMillis > runningMaxTime) {
+            runningMaxTime = timeMillis;
+        } else if (runningMaxTime - timeMillis > maxLateness) {
+            maxLateness = runningMaxTime - timeMillis;
+        }
+        maxTimes.add(runningMaxTime);
+    }
+
+    // Method to drop the chunks of the indexes that only cover evicted events
+    private void trim() {
+        long start = store.getStartSequence();
+        maxTimes.trimBefore(start - firstSequence);
+        trimPostings(byLevel, start);
+        trimPostings(byLogger, start);
+    }
+
+    // Method to trim posting lists and forget the keys that no longer have retained events
+    private static <K> void trimPostings(Map<K, LongList> postings, long start) {
+        postings.values().removeIf(list -> {
+            LongList.View view = list.view();
+            long firstRetained = view.lowerBound(start, view.first(), view.size());
+            list.trimBefore(firstRetained);
+            return firstRetained == view.size();
+        });
+    }
+
+    // === Section 2. Queries
+
+    // Method to find the retained events that match the query, in sequence order
+    List<LogEvent> query(EventQuery query) {
+        // Wait for the events stored before the query to be indexed
+        long target = store.getTailSequence();
+        int attempt = 0;
+        while (indexedUpTo < target) {
+            drain();
+            WaitStrategy.YIELD.idle(attempt++);
+        }
+
+        // Narrow the sequence range with the time index
+        long lo = Math.max(store.getStartSequence(), firstSequence);
+        long hi = indexedUpTo;
+        LongList.View times = maxTimes.view();
+        lo = Math.max(lo, firstSequence + times.first());
+        hi = Math.min(hi, firstSequence + times.size());
+        long lateness = maxLateness;
+        if (lo < hi && query.getFromMillis() != Long.MIN_VALUE) {
+            lo = firstSequence + times.lowerBound(query.getFromMillis(), lo - firstSequence, hi - firstSequence);
+        }
+        if (lo < hi && query.getToMillis() < Long.MAX_VALUE - lateness) {
+            // Events after this point are at least (toMillis + 1) - lateness >= toMillis + 1
+            hi = firstSequence + times.lowerBound(query.getToMillis() + lateness + 1, lo - firstSequence,
+                hi - firstSequence);
+        }
+        if (lo >= hi) {
+            return new ArrayList<>();
+        }
+
+        // Collect the candidate sequences from the smallest posting list and check them against the others
+        List<LongList.View> levelViews = null;
+        long levelCount = 0;
+        if (!query.getLevels().isEmpty()) {
+            levelViews = new ArrayList<>();
+            for (Level level : query.getLevels()) {
+                LongList list = byLevel.get(level);
+                if (list != null) {
+                    LongList.View view = list.view();
+                    levelViews.add(view);
+                    levelCount += view.count(lo, hi);
+                }
+            }
+        }
+        LongList.View loggerView = null;
+        long loggerCount = 0;
+        if (query.getLoggerName() != null) {
+            LongList list = byLogger.get(query.getLoggerName());
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            loggerView = list.view();
+            loggerCount = loggerView.count(lo, hi);
+        }
+
+        LongArray matches = new LongArray();
+        if (loggerView != null && (levelViews == null || loggerCount <= levelCount)) {
+            long end = loggerView.lowerBound(hi, loggerView.first(), loggerView.size());
+            for (long i = loggerView.lowerBound(lo, loggerView.first(), end); i < end; i++) {
+                long seq = loggerView.get(i);
+                if (levelViews == null || containsAny(levelViews, seq)) {
+                    matches.add(seq);
+                }
+            }
+        } else if (levelViews != null) {
+            for (LongList.View view : levelViews) {
+                long end = view.lowerBound(hi, view.first(), view.size());
+                for (long i = view.lowerBound(lo, view.first(), end); i < end; i++) {
+                    long seq = view.get(i);
+                    if (loggerView == null || loggerView.contains(seq)) {
+                        matches.add(seq);
+                    }
+                }
+            }
+            if (levelViews.size() > 1) {
+                matches.sort();
+            }
+        } else {
+            for (long seq = lo; seq < hi; seq++) {
+                matches.add(seq);
+            }
+        }
+
+        // Fetch the events and apply the exact filters (the time range may still include a few extra events)
+        List<LogEvent> events = store.get(matches.values, matches.size);
+        events.removeIf(event -> !query.matches(event));
+        return events;
+    }
+
+    // Method to check whether any of the posting lists contains the sequence
+    private static boolean containsAny(List<LongList.View> views, long seq) {
+        for (LongList.View view : views) {
+            if (view.contains(seq)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Class to represent a growable array of longs used to collect matches
+    private static final class LongArray {
+        long[] values = new long[16];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+    }
+
+    // Class to represent an append-only list of non-decreasing longs with a single writer and lock-free
+    // readers. Entries are stored in fixed-size chunks; whole chunks are dropped from the front when trimmed.
+    static final class LongList {
+        private static final int CHUNK_SHIFT = 10;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+        // Chunks of the list, replaced as a whole when a chunk is added or dropped
+        private volatile Chunks chunks = new Chunks(new long[0][], 0);
+
+        // Position after the last entry
+        private volatile long size;
+
+        // Method to append an entry (writer only)
+        void add(long value) {
+            long position = size;
+            Chunks current = chunks;
+            int chunk = (int) ((position >>> CHUNK_SHIFT) - current.firstChunk);
+            if (chunk == current.chunks.length) {
+                long[][] grown = Arrays.copyOf(current.chunks, chunk + 1);
+                grown[chunk] = new long[CHUNK_SIZE];
+                current = new Chunks(grown, current.firstChunk);
+                chunks = current;
+            }
+            current.chunks[chunk][(int) (position & CHUNK_MASK)] = value;
+            size = position + 1; // publish the entry
+        }
+
+        // Method to drop the chunks that only hold entries before the given position (writer only)
+        void trimBefore(long position) {
+            Chunks current = chunks;
+            int drop = (int) Math.min((position >>> CHUNK_SHIFT) - current.firstChunk, current.chunks.length);
+            if (drop > 0) {
+                chunks = new Chunks(Arrays.copyOfRange(current.chunks, drop, current.chunks.length),
+                    current.firstChunk + drop);
+            }
+        }
+
+        // Method to capture a consistent view of the list for reading
+        View view() {
+            long published = size; // read the size first so that the chunks cover every published entry
+            return new View(chunks, published);
+        }
+
+        // Record to hold the chunks of a list
+        private record Chunks(long[][] chunks, long firstChunk) {
+        }
+
+        // Record to represent a readable view of the list: the entries between first() and size()
+        record View(Chunks chunks, long size) {
+
+            // Method to retrieve the position of the first readable entry
+            long first() {
+                return Math.min(chunks.firstChunk << CHUNK_SHIFT, size);
+            }
+
+            // Method to read the entry at a position
+            long get(long position) {
+                return chunks.chunks[(int) ((position >>> CHUNK_SHIFT) - chunks.firstChunk)][(int) (position & CHUNK_MASK)];
+            }
+
+            // Method to find the first position in [from, to) whose entry is at least the value
+            long lowerBound(long value, long from, long to) {
+                long low = Math.max(from, first());
+                long high = to;
+                while (low < high) {
+                    long mid = (low + high) >>> 1;
+                    if (get(mid) < value) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return low;
+            }
+
+            // Method to count the entries in the value range [from, to)
+            long count(long from, long to) {
+                return lowerBound(to, first(), size) - lowerBound(from, first(), size);
+            }
+
+            // Method to check whether the list contains the value
+            boolean contains(long value) {
+                long position = lowerBound(value, first(), size);
+                return position < size && get(position) == value;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+// Class to represent a filter over the events retained by MemAppender.
+//
+// A query starts from all() and is narrowed with the with* methods, each of which returns a new query;
+// an event matches when it satisfies every filter that was set.
+public final class EventQuery {
+
+    // Query that matches every event
+    private static final EventQuery ALL = new EventQuery(Collections.emptySet(), null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    // Levels to match (empty to match any level)
+    private final Set<Level> levels;
+
+    // Logger name to match (null to match any logger)
+    private final String loggerName;
+
+    // Inclusive range of timestamps to match, in epoch milliseconds
+    private final long fromMillis;
+    private final long toMillis;
+
+    // Private constructor to initialize the query; use all() and the with* methods instead
+    private EventQuery(Set<Level> levels, String loggerName, long fromMillis, long toMillis) {
+        this.levels = levels;
+        this.loggerName = loggerName;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    // Factory method to create a query that matches every event
+    public static EventQuery all() {
+        return ALL;
+    }
+
+    // Method to only match events with one of the given levels
+    public EventQuery withLevels(Level... levels) {
+        Set<Level> copy = new LinkedHashSet<>(Arrays.asList(levels));
+        copy.forEach(level -> Objects.requireNonNull(level, "level"));
+        return new EventQuery(Collections.unmodifiableSet(copy), loggerName, fromMillis, toMillis);
+    }
+
+    // Method to only match events of the logger with the given name
+    public EventQuery withLogger(String loggerName) {
+        return new EventQuery(levels, Objects.requireNonNull(loggerName, "loggerName"), fromMillis, toMillis);
+    }
+
+    // Method to only match events whose timestamp lies in the inclusive range, in epoch milliseconds
+    public EventQuery withTimeRange(long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("Time range is empty: " + fromMillis + " > " + toMillis);
+        }
+        return new EventQuery(levels, loggerName, fromMillis, toMillis);
+    }
+
+    // Method to check whether an event matches every filter of the query
+    public boolean matches(LogEvent event) {
+        return (levels.isEmpty() || levels.contains(event.getLevel()))
+            && (loggerName == null || loggerName.equals(event.getLoggerName()))
+            && event.getTimeMillis() >= fromMillis
+            && event.getTimeMillis() <= toMillis;
+    }
+
+    // === Accessors used by the index
+
+    Set<Level> getLevels() {
+        return levels;
+    }
+
+    String getLoggerName() {
+        return loggerName;
+    }
+
+    long getFromMillis() {
+        return fromMillis;
+    }
+
+    long getToMillis() {
+        return toMillis;
+    }
+}
@@ -0,0 +1,289 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+// Class to represent a flight recorder that forwards the context of severe events to a downstream appender.
+//
+// Every stored event is checked against the trigger level and filter. A triggering event only costs the
+// storing thread a lookup of its scope's last trigger time and an offer to a bounded queue; a background
+// thread drains the queue in batches, reads the events that preceded each trigger back from the store in
+// chunks walking backwards from the trigger, picks the newest ones of the same scope (until it has enough or
+// reaches events that are too old) and forwards them to the downstream appender in their original order,
+// followed by the trigger. Each chunk is twice the size of the previous one, so a context close to its
+// trigger only decodes the events around it, while stores that are not indexed by sequence (and scan all
+// their events for a lookup) are scanned a logarithmic number of times at most.
+// Trigger storms are contained in three ways: a trigger within the suppression interval of the last
+// queued trigger of its scope is suppressed, a context never reaches back past what the previous
+// trigger of its scope forwarded (so no event is forwarded twice), and triggers that find the queue full
+// are suppressed as well.
+final class FlightRecorder {
+
+    // Largest number of triggers waiting for the forwarding thread
+    static final int MAX_PENDING_TRIGGERS = 1024;
+
+    // Smallest and largest number of sequences the context of a trigger is read back in at a time
+    private static final int MIN_CONTEXT_CHUNK = 64;
+    private static final int MAX_CONTEXT_CHUNK = 64 * 1024;
+
+    // Number of scopes whose trigger times are kept before old ones are pruned
+    private static final int MAX_TRACKED_SCOPES = 4096;
+
+    // Downstream appender and the thread name of the forwarding thread
+    private final Appender downstream;
+    private final String name;
+
+    // Events at least as severe as the trigger level that the filter does not deny trigger a forward
+    private final Level triggerLevel;
+    private final Filter triggerFilter;
+
+    // Which preceding events form the context, how many at most, and how much older than the trigger at most
+    private final TriggerScope scope;
+    private final int contextEvents;
+    private final long contextMillis;
+
+    // Minimum time between two forwarded triggers of the same scope
+    private final long suppressionMillis;
+
+    // Store the context is read from (looked up for every batch, since the appender may replace it)
+    private final Supplier<LogEventStore> store;
+
+    // Handler for exceptions thrown by the downstream appender
+    private final BiConsumer<LogEvent, RuntimeException> errorHandler;
+
+    // Triggers waiting to be forwarded
+    private final ArrayBlockingQueue<Trigger> pending = new ArrayBlockingQueue<>(MAX_PENDING_TRIGGERS);
+
+    // Timestamp of the last trigger that was queued, by scope key
+    private final Map<String, Long> lastTriggered = new ConcurrentHashMap<>();
+
+    // Sequence after the last forwarded event, by scope key (only accessed by the forwarding thread)
+    private final Map<String, Long> forwardedUpTo = new HashMap<>();
+
+    // Candidate sequences of the context being collected (only accessed by the forwarding thread)
+    private long[] candidates = new long[0];
+
+    // Number of triggers seen, suppressed, queued and completed, and of events forwarded
+    private final LongAdder triggered = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+
+    // Forwarding thread, or null when stopped
+    private volatile Thread worker;
+    private volatile boolean stopping;
+
+    // Constructor to initialize the recorder
+    FlightRecorder(String name, Appender downstream, Level triggerLevel, Filter triggerFilter, TriggerScope scope,
+            int contextEvents, long contextMillis, long suppressionMillis, Supplier<LogEventStore> store,
+            BiConsumer<LogEvent, RuntimeException> errorHandler) {
+        if (contextEvents < 0) {
+            throw new IllegalArgumentException("Context events must not be negative: " + contextEvents);
+        }
+        if (contextMillis < 0 || suppressionMillis < 0) {
+            throw new IllegalArgumentException("Context and suppression times must not be negative");
+        }
+        this.name = name;
+        this.downstream = downstream;
+        this.triggerLevel = triggerLevel == null ? Level.ERROR : triggerLevel;
+        this.triggerFilter = triggerFilter;
+        this.scope = scope == null ? TriggerScope.THREAD : scope;
+        this.contextEvents = contextEvents;
+        this.contextMillis = contextMillis;
+        this.suppressionMillis = suppressionMillis;
+        this.store = store;
+        this.errorHandler = errorHandler;
+    }
+
+    // === Section 1. Triggering
+
+    // Method to check a stored event and queue a forward if it triggers one (called by the storing thread).
+    // The trigger time of the scope is only recorded once the trigger is queued, so a trigger that finds the
+    // queue full does not suppress the next one.
+    void stored(long sequence, LogEvent event) {
+        Level level = event.getLevel();
+        if (level == null || !level.isMoreSpecificThan(triggerLevel)
+                || triggerFilter != null && triggerFilter.filter(event) == Filter.Result.DENY) {
+            return;
+        }
+        triggered.increment();
+        String key = scope.keyOf(event);
+        long time = event.getTimeMillis();
+        if (suppressionMillis > 0) {
+            Long last = lastTriggered.get(key);
+            if (last != null && time - last < suppressionMillis) {
+                suppressed.increment();
+                return;
+            }
+        }
+        if (worker == null || !pending.offer(new Trigger(sequence, key, event.toImmutable()))) {
+            suppressed.increment();
+            return;
+        }
+        if (suppressionMillis > 0) {
+            lastTriggered.merge(key, time, Math::max);
+        }
+        queued.incrementAndGet();
+    }
+
+    // Method to retrieve the number of events that met the trigger level and filter
+    long getTriggeredCount() {
+        return triggered.sum();
+    }
+
+    // Method to retrieve the number of triggers that were suppressed
+    long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    // Method to retrieve the number of events forwarded to the downstream appender, triggers included
+    long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    // === Section 2. Lifecycle
+
+    // Method to start the forwarding thread
+    void start() {
+        stopping = false;
+        Thread thread = new Thread(this::forward, name);
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    // Method to forward the queued triggers and stop the forwarding thread, returning false if it did not
+    // finish in time
+    boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        Thread thread = worker;
+        if (thread == null) {
+            return true;
+        }
+        stopping = true;
+        thread.join(unit.toMillis(timeout));
+        worker = null;
+        return !thread.isAlive();
+    }
+
+    // Method to wait until every queued trigger has been forwarded (used by tests and benchmarks)
+    void awaitForwarded() {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (completed.get() < queued.get()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Flight recorder did not catch up");
+            }
+            Thread.yield();
+        }
+    }
+
+    // === Section 3. Forwarding
+
+    // Method run by the forwarding thread: forward the queued triggers in batches until stopped
+    private void forward() {
+        List<Trigger> batch = new ArrayList<>();
+        List<LogEvent> events = new ArrayList<>();
+        while (!stopping || !pending.isEmpty()) {
+            Trigger first;
+            try {
+                first = pending.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            pending.drainTo(batch);
+            LogEventStore current = store.get();
+            for (Trigger trigger : batch) {
+                collectContext(current, trigger, events);
+                events.add(trigger.event());
+            }
+            for (LogEvent event : events) {
+                try {
+                    downstream.append(event);
+                } catch (RuntimeException e) {
+                    errorHandler.accept(event, e);
+                }
+            }
+            forwarded.addAndGet(events.size());
+            completed.addAndGet(batch.size());
+            batch.clear();
+            events.clear();
+            pruneScopes(current);
+        }
+    }
+
+    // Method to add the context of a trigger to the forwarded events, oldest first (the events before the
+    // trigger are read back one chunk at a time, newest chunk first, until the context is complete)
+    private void collectContext(LogEventStore current, Trigger trigger, List<LogEvent> events) {
+        long from = Math.max(current.getStartSequence(), forwardedUpTo.getOrDefault(trigger.key(), 0L));
+        long to = trigger.sequence();
+        forwardedUpTo.put(trigger.key(), to + 1);
+        if (contextEvents == 0 || to <= from) {
+            return;
+        }
+        long cutoff = contextMillis == Long.MAX_VALUE ? Long.MIN_VALUE
+            : trigger.event().getTimeMillis() - contextMillis;
+        ArrayDeque<LogEvent> context = new ArrayDeque<>();
+        long chunk = Math.min(Math.max(MIN_CONTEXT_CHUNK, 2L * contextEvents), MAX_CONTEXT_CHUNK);
+        long end = to;
+        boolean complete = false;
+        while (!complete && end > from) {
+            int count = (int) Math.min(end - from, chunk);
+            if (candidates.length < count) {
+                candidates = new long[count];
+            }
+            for (int i = 0; i < count; i++) {
+                candidates[i] = end - count + i;
+            }
+            List<LogEvent> found = current.get(candidates, count);
+            for (int i = found.size() - 1; i >= 0 && !complete; i--) {
+                LogEvent event = found.get(i);
+                if (event.getTimeMillis() < cutoff) {
+                    complete = true; // the rest is older still
+                } else if (scope.keyOf(event).equals(trigger.key())) {
+                    context.addFirst(event);
+                    complete = context.size() >= contextEvents;
+                }
+            }
+            end -= count;
+            chunk = Math.min(2 * chunk, MAX_CONTEXT_CHUNK);
+        }
+        events.addAll(context);
+    }
+
+    // Method to forget scopes whose state no longer matters once many scopes are tracked
+    private void pruneScopes(LogEventStore current) {
+        if (forwardedUpTo.size() > MAX_TRACKED_SCOPES) {
+            long start = current.getStartSequence();
+            forwardedUpTo.values().removeIf(sequence -> sequence <= start);
+        }
+        if (lastTriggered.size() > MAX_TRACKED_SCOPES) {
+            long expired = System.currentTimeMillis() - suppressionMillis;
+            lastTriggered.values().removeIf(time -> time < expired);
+        }
+    }
+
+    // Record to hold a queued trigger: its sequence number, scope key and an immutable copy of its event
+    private record Trigger(long sequence, String key, LogEvent event) {
+    }
+}
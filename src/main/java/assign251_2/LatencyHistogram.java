@@ -0,0 +1,116 @@
+package assign251_2;
+
+// Import other necessary classes
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Class to represent a concurrent histogram of latencies in nanoseconds.
+//
+// Buckets are log-linear: every power of two is split into SUB_BUCKETS equal buckets, so a percentile is
+// reported with a relative error of at most 1/SUB_BUCKETS over the whole range of long values. Writers are
+// spread over stripes selected by thread id, so concurrent threads increment different arrays; reads add the
+// stripes up, which is only done when a percentile is requested.
+final class LatencyHistogram {
+
+    // Number of buckets each power of two is split into (a power of two)
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Number of buckets needed to cover every non-negative long
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // Bucket counts of each stripe (a power of two, selected by thread id)
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    // Constructor to initialize the histogram with one stripe per available processor
+    LatencyHistogram() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int size = Integer.highestOneBit(Math.min(processors, 64));
+        if (size < processors && size < 64) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicLongArray[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        this.stripeMask = size - 1;
+    }
+
+    // Method to record one latency (negative values are recorded as zero)
+    void record(long nanos) {
+        long id = Thread.currentThread().threadId();
+        stripes[(int) (id ^ (id >>> 16)) & stripeMask].getAndIncrement(bucketOf(Math.max(0, nanos)));
+    }
+
+    // Method to retrieve the number of recorded latencies
+    long count() {
+        long count = 0;
+        for (long bucket : totals()) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    // Method to retrieve the latency below which the given fraction of the recorded latencies lie
+    // (the upper bound of the bucket holding that rank, or 0 if nothing was recorded)
+    long percentile(double fraction) {
+        long[] totals = totals();
+        long count = 0;
+        for (long bucket : totals) {
+            count += bucket;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += totals[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Method to forget every recorded latency (concurrent records may survive the reset)
+    void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    // Method to add up the stripes
+    private long[] totals() {
+        long[] totals = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                totals[i] += stripe.get(i);
+            }
+        }
+        return totals;
+    }
+
+    // Method to map a value to its bucket: small values have a bucket each, larger ones share a bucket with
+    // the values that have the same highest bit and the same SUB_BUCKET_BITS bits below it
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Method to retrieve the largest value that maps to a bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
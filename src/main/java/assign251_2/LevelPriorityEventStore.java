@@ -0,0 +1,381 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Class to represent an event store that evicts the least severe events first.
+//
+// Every standard level has its own tagged LogEventBuffer (a tier); custom levels join the tier of the
+// nearest standard level that is not more severe. The tiers share one capacity and byte budget: when an
+// append takes the store over capacity, the oldest event of the least severe tier that holds more than its
+// reservation is evicted, or of the least severe non-empty tier if every tier is within its reservation.
+// Reservations therefore guarantee each level a share of the capacity, and levels above their reservation
+// are evicted from the bottom up. With a fixed number of tiers this keeps appends O(1). Every eviction is
+// claimed by decrementing the shared retained count, so concurrent producers never evict more than needed.
+// Events are tagged with a global sequence number, which orders the merged reads.
+final class LevelPriorityEventStore implements LogEventStore {
+
+    // Levels that own a tier, most severe first
+    private static final Level[] TIER_LEVELS = {
+        Level.OFF, Level.FATAL, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL
+    };
+
+    // Buffers of the tiers (unbounded: the store evicts across them) and their reserved number of events
+    private final LogEventBuffer[] tiers = new LogEventBuffer[TIER_LEVELS.length];
+    private final int[] reservations = new int[TIER_LEVELS.length];
+
+    // Next global sequence number (taken by each tier after it claimed its slot)
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Every event before this sequence was cleared
+    private final AtomicLong start = new AtomicLong();
+
+    // Number of retained events minus the evictions claimed so far
+    private final AtomicLong retained = new AtomicLong();
+
+    // Number of events rejected before reaching the store since the last clear
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Maximum number of retained events and estimated bytes over all tiers
+    private volatile int capacity;
+    private volatile long maxRetainedBytes = Long.MAX_VALUE;
+
+    // Maximum age in milliseconds of the retained events (expired here, so that the retained count follows)
+    private volatile long maxAgeMillis = Long.MAX_VALUE;
+
+    // Constructor to initialize the store with the number of events reserved per level (levels that are
+    // missing from the map reserve nothing)
+    LevelPriorityEventStore(Map<Level, Integer> levelReservations, int capacity, StorageMode storageMode) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        levelReservations.forEach((level, reserved) -> {
+            if (level == null || reserved == null || reserved < 0) {
+                throw new IllegalArgumentException("Invalid reservation: " + level + "=" + reserved);
+            }
+            reservations[tierOf(level)] += reserved;
+        });
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = new LogEventBuffer(Integer.MAX_VALUE, storageMode, true);
+        }
+        this.capacity = capacity;
+    }
+
+    // === Section 1. Levels
+
+    // Method to retrieve the number of events reserved for the tier of a level
+    int getReservation(Level level) {
+        return reservations[tierOf(level)];
+    }
+
+    // Method to retrieve the number of discarded events per tier level, most severe first (tiers without
+    // discards are left out)
+    Map<Level, Long> getDiscardedCountByLevel() {
+        Map<Level, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < tiers.length; i++) {
+            long count = tiers[i].getDiscardedCount();
+            if (count > 0) {
+                counts.put(TIER_LEVELS[i], count);
+            }
+        }
+        return counts;
+    }
+
+    // Method to find the tier of a level (events without a level are kept with OFF)
+    private static int tierOf(Level level) {
+        if (level == null) {
+            return 0;
+        }
+        int intLevel = level.intLevel();
+        for (int i = 0; i < TIER_LEVELS.length; i++) {
+            if (intLevel <= TIER_LEVELS[i].intLevel()) {
+                return i;
+            }
+        }
+        return TIER_LEVELS.length - 1;
+    }
+
+    // === Section 2. Writing
+
+    // Method to append an event to the tier of its level and evict what no longer fits
+    @Override
+    public long append(LogEvent event) {
+        long seq;
+        try {
+            seq = tiers[tierOf(event.getLevel())].appendTagged(event, sequence);
+        } finally {
+            retained.incrementAndGet(); // a failed append still takes a slot, for its tombstone
+        }
+        evictOverCapacity();
+        enforceByteBudget();
+        expire();
+        return seq;
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        evictOverCapacity();
+    }
+
+    @Override
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Byte budget must not be negative: " + maxRetainedBytes);
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        enforceByteBudget();
+    }
+
+    @Override
+    public void setMaxAge(long maxAgeMillis) {
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximum age must not be negative: " + maxAgeMillis);
+        }
+        this.maxAgeMillis = maxAgeMillis;
+        expire();
+    }
+
+    @Override
+    public void setStorageMode(StorageMode storageMode) {
+        for (LogEventBuffer tier : tiers) {
+            tier.setStorageMode(storageMode);
+        }
+    }
+
+    // Method to drop every retained event and reset the discarded counts (each tier reports how many events it
+    // dropped itself, so events appended or evicted during the clear keep the retained count exact)
+    @Override
+    public void clear() {
+        start.accumulateAndGet(sequence.get(), Math::max);
+        rejected.set(0);
+        for (LogEventBuffer tier : tiers) {
+            retained.addAndGet(-tier.clearAll());
+        }
+    }
+
+    @Override
+    public long clearUpTo(long sequence) {
+        long previous = start.getAndAccumulate(sequence, Math::max);
+        long first = Math.max(previous, sequence);
+        for (LogEventBuffer tier : tiers) {
+            retained.addAndGet(-tier.trimTagsBelow(first));
+        }
+        return Math.min(previous, sequence);
+    }
+
+    @Override
+    public void addDiscarded(long count) {
+        rejected.addAndGet(count);
+    }
+
+    // === Section 3. Reading
+
+    // Method to retrieve the number of retained events (events that were cleared but sit behind a newer
+    // event in their tier are counted until that event leaves too)
+    @Override
+    public int size() {
+        expire();
+        long size = 0;
+        for (LogEventBuffer tier : tiers) {
+            size += tier.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    // Method to retrieve the sequence before which every event was cleared (tiers are evicted separately,
+    // so later sequences may be missing too)
+    @Override
+    public long getStartSequence() {
+        return start.get();
+    }
+
+    @Override
+    public long getTailSequence() {
+        return sequence.get();
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Method to retrieve the number of events evicted from all tiers or rejected since the last clear
+    @Override
+    public long getDiscardedCount() {
+        long discarded = rejected.get();
+        for (LogEventBuffer tier : tiers) {
+            discarded += tier.getDiscardedCount();
+        }
+        return discarded;
+    }
+
+    @Override
+    public long getMaxAge() {
+        return maxAgeMillis;
+    }
+
+    @Override
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        long bytes = 0;
+        for (LogEventBuffer tier : tiers) {
+            bytes += tier.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return tiers[0].getStorageMode();
+    }
+
+    @Override
+    public List<LogEvent> toList() {
+        return copyRange(null);
+    }
+
+    // Method to merge the retained events of all tiers in global sequence order (the end is read before the
+    // tiers, so every event before it has already claimed its slot)
+    @Override
+    public List<LogEvent> copyRange(long[] endSequence) {
+        expire();
+        long to = sequence.get();
+        List<LogEvent> events = LogEventBuffer.mergeTagged(Arrays.asList(tiers), start.get(), to);
+        if (endSequence != null) {
+            endSequence[0] = to;
+        }
+        return events;
+    }
+
+    // Method to return an immutable view of the retained events (the tiers have to be merged, so this copies
+    // the retained events; the range starts at the oldest sequence that was not cleared)
+    @Override
+    public List<LogEvent> snapshot(long[] range) {
+        long[] end = new long[1];
+        List<LogEvent> events = copyRange(end);
+        if (range != null) {
+            range[0] = Math.min(start.get(), end[0]);
+            range[1] = end[0];
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    // Method to look up events by ascending sequence numbers (the tiers are not indexed by the global
+    // sequence, so this scans every tier)
+    @Override
+    public List<LogEvent> get(long[] sequences, int count) {
+        expire();
+        long from = start.get();
+        List<LogEventBuffer.TaggedEvent> found = new ArrayList<>(count);
+        for (LogEventBuffer tier : tiers) {
+            for (LogEventBuffer.TaggedEvent event : tier.copyTagged()) {
+                if (event.tag() >= from && event.event() != LogEventBuffer.TOMBSTONE
+                        && Arrays.binarySearch(sequences, 0, count, event.tag()) >= 0) {
+                    found.add(event);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(LogEventBuffer.TaggedEvent::tag));
+        List<LogEvent> events = new ArrayList<>(found.size());
+        for (LogEventBuffer.TaggedEvent event : found) {
+            events.add(event.event());
+        }
+        return events;
+    }
+
+    // Method to register an eviction listener (not supported: events leave the tiers out of sequence order,
+    // so there is no contiguous range that leaves the store)
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        if (listener != null) {
+            throw new UnsupportedOperationException("Level priority stores do not report evicted events");
+        }
+    }
+
+    // === Section 4. Internal helpers
+
+    // Method to evict events until the retained count is within the capacity (one eviction per append
+    // unless the capacity was lowered)
+    private void evictOverCapacity() {
+        long current;
+        while ((current = retained.get()) > capacity) {
+            if (retained.compareAndSet(current, current - 1) && !evictOne()) {
+                retained.incrementAndGet(); // nothing left to evict (the events were cleared meanwhile)
+                return;
+            }
+        }
+    }
+
+    // Method to expire the events older than the maximum age from every tier (each tier is in time order on
+    // its own) and take them off the retained count
+    private void expire() {
+        long maxAge = maxAgeMillis;
+        if (maxAge == Long.MAX_VALUE) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - maxAge;
+        for (LogEventBuffer tier : tiers) {
+            retained.addAndGet(-tier.expireBefore(cutoff));
+        }
+    }
+
+    // Method to evict events until the retained events fit in the byte budget
+    private void enforceByteBudget() {
+        if (maxRetainedBytes == Long.MAX_VALUE) {
+            return;
+        }
+        while (getRetainedBytes() > maxRetainedBytes) {
+            long current = retained.get();
+            if (current <= 0) {
+                return;
+            }
+            if (retained.compareAndSet(current, current - 1) && !evictOne()) {
+                retained.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // Method to evict the oldest event of the least severe tier above its reservation, or of the least
+    // severe non-empty tier, returning false if every tier is empty
+    private boolean evictOne() {
+        while (true) {
+            int victim = -1;
+            for (int i = tiers.length - 1; i >= 0; i--) {
+                int size = tiers[i].size();
+                if (size > reservations[i]) {
+                    victim = i;
+                    break;
+                }
+                if (size > 0 && victim < 0) {
+                    victim = i;
+                }
+            }
+            if (victim < 0) {
+                return false;
+            }
+            if (tiers[victim].evictOldest()) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.time.MutableInstant;
+
+// Import other necessary classes
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Class to read a dump written by LogDumpWriter.
+//
+// Opening a dump reads only its trailer and footer: the dictionaries and the block index. A read then
+// selects the blocks whose time range overlaps the requested one and whose level mask contains a level
+// that is severe enough, reads just those blocks from the channel and decodes their records, so the cost
+// depends on the events in range rather than on the size of the dump.
+final class LogDumpReader implements Closeable {
+
+    // Largest footer the reader accepts (far more than the dictionaries and index of any real dump need)
+    static final int MAX_FOOTER_SIZE = 64 * 1024 * 1024;
+
+    // Standard levels, from the most to the least severe, that levels unknown to this process map onto
+    private static final Level[] STANDARD_LEVELS = {
+        Level.OFF, Level.FATAL, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL
+    };
+
+    private final FileChannel channel;
+
+    // Dictionaries of the dump, by id
+    private final String[] strings;
+    private final Level[] levels;
+
+    // Index entries of the blocks, in the order they were written
+    private final List<LogDumpWriter.Block> blocks;
+
+    private final long eventCount;
+
+    // Constructor to read the trailer and footer of a dump that fills the channel
+    private LogDumpReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < LogDumpWriter.HEADER_SIZE + LogDumpWriter.TRAILER_SIZE) {
+            throw new IOException("Log dump is truncated");
+        }
+        ByteBuffer header = readFully(0, LogDumpWriter.HEADER_SIZE);
+        if (header.getInt() != LogDumpWriter.MAGIC || header.get() != LogDumpWriter.FORMAT_VERSION) {
+            throw new IOException("Not a supported log dump");
+        }
+        ByteBuffer trailer = readFully(size - LogDumpWriter.TRAILER_SIZE, LogDumpWriter.TRAILER_SIZE);
+        long footerPosition = trailer.getLong();
+        if (trailer.getInt() != LogDumpWriter.MAGIC || footerPosition < LogDumpWriter.HEADER_SIZE
+                || footerPosition > size - LogDumpWriter.TRAILER_SIZE) {
+            throw new IOException("Log dump is truncated");
+        }
+        long footerSize = size - LogDumpWriter.TRAILER_SIZE - footerPosition;
+        if (footerSize > MAX_FOOTER_SIZE) {
+            throw new IOException("Log dump footer of " + footerSize + " bytes exceeds " + MAX_FOOTER_SIZE);
+        }
+        ByteBuffer footer = readFully(footerPosition, (int) footerSize);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()))) {
+            strings = new String[readCount(in, Integer.BYTES)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = LogEventSerializer.readString(in);
+            }
+            levels = new Level[readCount(in, 2 * Integer.BYTES)];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = knownLevel(LogEventSerializer.readString(in), in.readInt());
+            }
+            int blockCount = readCount(in, 3 * Long.BYTES);
+            blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new LogDumpWriter.Block(LogEventSerializer.readVarLong(in),
+                    LogEventSerializer.readVarInt(in), LogEventSerializer.readVarInt(in),
+                    in.readLong(), in.readLong(), in.readLong()));
+            }
+            eventCount = LogEventSerializer.readVarLong(in);
+        }
+    }
+
+    // Factory method to open the dump in the given file
+    static LogDumpReader open(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new LogDumpReader(channel);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Failed to open log dump " + file, e);
+        }
+    }
+
+    // Method to retrieve the number of events in the dump
+    long getEventCount() {
+        return eventCount;
+    }
+
+    // Method to retrieve the index entries of the blocks
+    List<LogDumpWriter.Block> getBlocks() {
+        return blocks;
+    }
+
+    // Method to read every event of the dump, in the order they were written
+    List<LogEvent> readAll() {
+        return read(Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    // Method to read the events with timestamps in [fromMillis, toMillis), in the order they were written
+    List<LogEvent> read(long fromMillis, long toMillis) {
+        return read(fromMillis, toMillis, null);
+    }
+
+    // Method to read the events with timestamps in [fromMillis, toMillis) that are at least as severe as the
+    // given level (a null level matches every event), in the order they were written
+    List<LogEvent> read(long fromMillis, long toMillis, Level minimumLevel) {
+        List<LogEvent> events = new ArrayList<>();
+        for (LogDumpWriter.Block block : blocksFor(fromMillis, toMillis, minimumLevel)) {
+            decodeBlock(block, fromMillis, toMillis, minimumLevel, events);
+        }
+        return events;
+    }
+
+    // Method to select the blocks that may hold events of the range and level, using only the index
+    List<LogDumpWriter.Block> blocksFor(long fromMillis, long toMillis, Level minimumLevel) {
+        long levelMask = -1L;
+        if (minimumLevel != null) {
+            levelMask = 0;
+            for (int id = 0; id < levels.length; id++) {
+                if (levels[id].isMoreSpecificThan(minimumLevel)) {
+                    levelMask |= 1L << Math.min(id, LogDumpWriter.OVERFLOW_LEVEL_BIT);
+                }
+            }
+        }
+        List<LogDumpWriter.Block> selected = new ArrayList<>();
+        for (LogDumpWriter.Block block : blocks) {
+            if (block.maxTime() >= fromMillis && block.minTime() < toMillis && (block.levelMask() & levelMask) != 0) {
+                selected.add(block);
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close log dump", e);
+        }
+    }
+
+    // Method to decode the records of a block and add the ones that match the range and level
+    private void decodeBlock(LogDumpWriter.Block block, long fromMillis, long toMillis, Level minimumLevel,
+            List<LogEvent> events) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(readFully(block.position(), block.length()).array()))) {
+            long time = 0;
+            for (int i = 0; i < block.eventCount(); i++) {
+                time += LogEventSerializer.readSignedVarLong(in);
+                MutableInstant instant = new MutableInstant();
+                instant.initFromEpochMilli(time, LogEventSerializer.readVarInt(in));
+                int levelCode = LogEventSerializer.readVarInt(in);
+                Level level = levelCode == LogDumpWriter.NULL_CODE ? null : entry(levels, levelCode);
+                Log4jLogEvent.Builder builder = Log4jLogEvent.newBuilder()
+                    .setInstant(instant)
+                    .setLevel(level)
+                    .setLoggerName(readCodedString(in))
+                    .setLoggerFqcn(readCodedString(in))
+                    .setThreadName(readCodedString(in))
+                    .setThreadId(LogEventSerializer.readSignedVarLong(in))
+                    .setThreadPriority((int) LogEventSerializer.readSignedVarLong(in));
+                LogEventSerializer.readBody(in, builder);
+                if (time >= fromMillis && time < toMillis
+                        && (minimumLevel == null || level != null && level.isMoreSpecificThan(minimumLevel))) {
+                    events.add(builder.build());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode log dump block at " + block.position(), e);
+        }
+    }
+
+    // Method to read a string written as a dictionary id plus one, or NULL_CODE
+    private String readCodedString(DataInputStream in) throws IOException {
+        int code = LogEventSerializer.readVarInt(in);
+        return code == LogDumpWriter.NULL_CODE ? null : entry(strings, code);
+    }
+
+    // Method to look up a dictionary entry by its id plus one, rejecting ids the footer does not define
+    private static <T> T entry(T[] dictionary, int code) throws IOException {
+        if (code < 1 || code > dictionary.length) {
+            throw new IOException("Log dump block is corrupt");
+        }
+        return dictionary[code - 1];
+    }
+
+    // Method to read the number of entries of a footer table, checking that the rest of the footer can hold
+    // that many entries of at least the given size before anything is allocated for them
+    private static int readCount(DataInputStream in, int minimumEntrySize) throws IOException {
+        int count = LogEventSerializer.readVarInt(in);
+        if (count < 0 || (long) count * minimumEntrySize > in.available()) {
+            throw new IOException("Log dump footer is corrupt");
+        }
+        return count;
+    }
+
+    // Method to look up a level of the dump without registering it: a name this process does not know maps
+    // onto the least severe standard level that is at least as severe, so that level queries still match it
+    private static Level knownLevel(String name, int intLevel) {
+        Level level = name == null ? null : Level.getLevel(name);
+        if (level != null) {
+            return level;
+        }
+        for (int i = STANDARD_LEVELS.length - 1; i > 0; i--) {
+            if (STANDARD_LEVELS[i].intLevel() <= intLevel) {
+                return STANDARD_LEVELS[i];
+            }
+        }
+        return STANDARD_LEVELS[0];
+    }
+
+    // Method to read the given number of bytes at a position of the channel
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Log dump is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+}
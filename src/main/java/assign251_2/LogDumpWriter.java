@@ -0,0 +1,208 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Class to write log events to a compact binary dump.
+//
+// A dump is a short header, blocks of up to BLOCK_EVENTS records, a footer and a fixed-size trailer that
+// points at the footer. A record stores the level, logger name, caller class and thread name as ids into
+// the dictionaries of the dump, and the timestamp as a variable-length difference to the previous record
+// of its block, so apart from its message a typical record takes a few bytes. Every block goes to the
+// channel as soon as it is full, so the writer only holds one block in memory however large the dump is.
+// The footer holds the dictionaries and an index with the position, time range and levels of every block,
+// which lets LogDumpReader seek to the blocks of a time range without decoding the rest of the dump.
+final class LogDumpWriter implements Closeable {
+
+    // Magic number at the start and at the end of every dump ("MEMD") and version of the format
+    static final int MAGIC = 0x4D454D44;
+    static final byte FORMAT_VERSION = 1;
+
+    // Bytes of the header (magic and version) and of the trailer (footer position and magic)
+    static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    // Maximum number of records per block
+    static final int BLOCK_EVENTS = 1024;
+
+    // Bit of a block's level mask that stands for every level id that has no bit of its own
+    static final int OVERFLOW_LEVEL_BIT = Long.SIZE - 1;
+
+    // Code written instead of a dictionary id for a missing value (ids are written plus one)
+    static final int NULL_CODE = 0;
+
+    private final FileChannel channel;
+
+    // Bytes written to the channel so far (block positions are relative to the start of the dump)
+    private long written;
+
+    // Dictionaries of the dump: ids by value and values in id order
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Level, Integer> levelIds = new HashMap<>();
+    private final List<Level> levels = new ArrayList<>();
+
+    // Index entries of the blocks written so far
+    private final List<Block> blocks = new ArrayList<>();
+
+    // Records of the block being filled, with its time range and levels
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream(128 * BLOCK_EVENTS);
+    private final DataOutputStream out = new DataOutputStream(records);
+    private int blockEvents;
+    private long previousTime;
+    private long minTime;
+    private long maxTime;
+    private long levelMask;
+
+    private long eventCount;
+    private boolean closed;
+
+    // Constructor to start a dump at the current position of the channel
+    LogDumpWriter(FileChannel channel) {
+        this.channel = channel;
+        writeFully(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(FORMAT_VERSION).flip());
+    }
+
+    // Method to append an event to the dump
+    void write(LogEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Log dump is already closed");
+        }
+        long time = event.getTimeMillis();
+        if (blockEvents == 0) {
+            previousTime = 0;
+            minTime = time;
+            maxTime = time;
+            levelMask = 0;
+        }
+        try {
+            LogEventSerializer.writeSignedVarLong(out, time - previousTime);
+            LogEventSerializer.writeVarInt(out, event.getInstant().getNanoOfMillisecond());
+            Level level = event.getLevel();
+            if (level == null) {
+                LogEventSerializer.writeVarInt(out, NULL_CODE);
+            } else {
+                int id = levelIds.computeIfAbsent(level, key -> {
+                    levels.add(key);
+                    return levels.size() - 1;
+                });
+                LogEventSerializer.writeVarInt(out, id + 1);
+                levelMask |= 1L << Math.min(id, OVERFLOW_LEVEL_BIT);
+            }
+            writeCodedString(event.getLoggerName());
+            writeCodedString(event.getLoggerFqcn());
+            writeCodedString(event.getThreadName());
+            LogEventSerializer.writeSignedVarLong(out, event.getThreadId());
+            LogEventSerializer.writeSignedVarLong(out, event.getThreadPriority());
+            LogEventSerializer.writeBody(out, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode log event for the dump", e);
+        }
+        previousTime = time;
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        eventCount++;
+        if (++blockEvents == BLOCK_EVENTS) {
+            flushBlock();
+        }
+    }
+
+    // Method to retrieve the number of events written so far
+    long getEventCount() {
+        return eventCount;
+    }
+
+    // Method to write the last block, the footer and the trailer (the channel is left open, since the
+    // caller owns it)
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flushBlock();
+        closed = true;
+        long footerPosition = written;
+        try {
+            LogEventSerializer.writeVarInt(out, strings.size());
+            for (String value : strings) {
+                LogEventSerializer.writeString(out, value);
+            }
+            LogEventSerializer.writeVarInt(out, levels.size());
+            for (Level level : levels) {
+                LogEventSerializer.writeString(out, level.name());
+                out.writeInt(level.intLevel());
+            }
+            LogEventSerializer.writeVarInt(out, blocks.size());
+            for (Block block : blocks) {
+                LogEventSerializer.writeVarLong(out, block.position());
+                LogEventSerializer.writeVarInt(out, block.length());
+                LogEventSerializer.writeVarInt(out, block.eventCount());
+                out.writeLong(block.minTime());
+                out.writeLong(block.maxTime());
+                out.writeLong(block.levelMask());
+            }
+            LogEventSerializer.writeVarLong(out, eventCount);
+            out.writeLong(footerPosition);
+            out.writeInt(MAGIC);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode the log dump footer", e);
+        }
+        writeFully(ByteBuffer.wrap(records.toByteArray()));
+        records.reset();
+    }
+
+    // Method to write a string as its dictionary id plus one, or NULL_CODE
+    private void writeCodedString(String value) throws IOException {
+        if (value == null) {
+            LogEventSerializer.writeVarInt(out, NULL_CODE);
+            return;
+        }
+        int id = stringIds.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+        LogEventSerializer.writeVarInt(out, id + 1);
+    }
+
+    // Method to write the records of the current block to the channel and add the block to the index
+    private void flushBlock() {
+        if (blockEvents == 0) {
+            return;
+        }
+        int length = records.size();
+        blocks.add(new Block(written, length, blockEvents, minTime, maxTime, levelMask));
+        writeFully(ByteBuffer.wrap(records.toByteArray()));
+        records.reset();
+        blockEvents = 0;
+    }
+
+    // Method to write every remaining byte of a buffer to the channel
+    private void writeFully(ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the log dump", e);
+        }
+    }
+
+    // Record to hold the index entry of a block: its position and length in the dump, its number of events,
+    // the range of its timestamps and a bit for each level id it contains
+    record Block(long position, int length, int eventCount, long minTime, long maxTime, long levelMask) {
+    }
+}
@@ -0,0 +1,908 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Import other necessary classes
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Class to represent a bounded, lock-free, multi-producer buffer of log events.
+//
+// Every appended event claims a global sequence number with a single getAndIncrement and is written
+// into the slot for that sequence. Slots live in fixed-size segments that are linked in sequence order
+// (the links are kept apart from the segments, so a view holding old segments does not keep later ones),
+// so the buffer behaves like a ring whose storage is recycled a whole segment at a time: events are
+// never overwritten in place, the oldest events are dropped by advancing the start sequence, and
+// segments that fall completely behind the start are released to the garbage collector. This keeps
+// appends O(1), lets the capacity be changed (or be effectively unbounded) without preallocating it,
+// and means readers can never observe a half-overwritten slot.
+//
+// How a segment stores its events depends on the storage mode that was current when the segment was
+// created, so changing the mode never moves or loses events: older segments keep their storage until
+// they are evicted.
+//
+// Retention by age works on whole segments like a timing wheel whose slots are the segments: every segment
+// remembers the newest timestamp it holds, so once that timestamp is older than the maximum age the rest of
+// the segment expires in one step, and only the head segment is ever inspected event by event. Expiry runs
+// on every append and before every read, and stops at the first event that is young enough, so an event
+// with an older timestamp than the events before it (for example from a skewed clock) waits for them.
+//
+// A slot whose event cannot be stored (for example because copying or encoding it throws) is published
+// with TOMBSTONE instead, so readers waiting for it move on; every reader leaves tombstones out.
+final class LogEventBuffer implements LogEventStore {
+
+    // Number of slots in each segment (a power of two so that index math is cheap)
+    static final int SEGMENT_SIZE = 1024;
+    private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_SIZE);
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // Value returned by advanceStart when the start sequence was already at or past the target
+    private static final long NOT_ADVANCED = -1;
+
+    // Size left in a slot that was released before its producer recorded a size
+    static final int RELEASED = -1;
+
+    // Event published in a slot whose event could not be stored
+    static final LogEvent TOMBSTONE = Log4jLogEvent.newBuilder()
+        .setMessage(new SimpleMessage(""))
+        .setTimeMillis(Long.MIN_VALUE)
+        .build();
+
+    // Next sequence number to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // First sequence number that is still retained (everything before it was evicted or cleared)
+    private final AtomicLong start = new AtomicLong();
+
+    // Number of events evicted to respect the capacity since the last clear
+    private final AtomicLong discarded = new AtomicLong();
+
+    // Estimated size in bytes of the retained events
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    // Highest sequence whose slot holds a tombstone, or -1 (views that may cover it are copied instead; a view
+    // taken while the failing append is still in flight can only show its slot as the empty TOMBSTONE event)
+    private final AtomicLong lastTombstone = new AtomicLong(-1);
+
+    // Maximum number of retained events
+    private volatile int capacity;
+
+    // Maximum estimated size in bytes of the retained events
+    private volatile long maxRetainedBytes = Long.MAX_VALUE;
+
+    // Maximum age in milliseconds of the retained events
+    private volatile long maxAgeMillis = Long.MAX_VALUE;
+
+    // Link to the oldest segment that may still hold retained events
+    private final AtomicReference<Link> head = new AtomicReference<>();
+
+    // Link to the newest segment known to exist (used as a starting point by producers)
+    private final AtomicReference<Link> last = new AtomicReference<>();
+
+    // Storage mode used for newly created segments
+    private volatile StorageMode storageMode;
+
+    // Listener told about the ranges that leave the buffer, or null
+    private volatile EvictionListener evictionListener;
+
+    // Whether every slot also records a caller-supplied tag (used to merge several buffers)
+    private final boolean tagged;
+
+    // Dictionaries that off-heap and compressed segments code logger, thread and level names against
+    private final LogEventSerializer.Dictionaries dictionaries = new LogEventSerializer.Dictionaries();
+
+    // Constructor to initialize the buffer with the given capacity, storing events on the heap
+    LogEventBuffer(int capacity) {
+        this(capacity, StorageMode.HEAP);
+    }
+
+    // Constructor to initialize the buffer with the given capacity and storage mode
+    LogEventBuffer(int capacity, StorageMode storageMode) {
+        this(capacity, storageMode, false);
+    }
+
+    // Constructor to initialize the buffer, optionally recording a tag for every slot
+    LogEventBuffer(int capacity, StorageMode storageMode, boolean tagged) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.storageMode = storageMode;
+        this.tagged = tagged;
+        Link first = new Link(newSegment(0));
+        this.head.set(first);
+        this.last.set(first);
+    }
+
+    // === Section 1. Writing
+
+    // Method to append an event, evicting the oldest events if the capacity is exceeded.
+    // The event may be mutable: the segment copies or encodes it before this method returns.
+    @Override
+    public long append(LogEvent event) {
+        return append(event, 0);
+    }
+
+    // Method to append an event together with a tag (the tag is only kept if the buffer is tagged)
+    long append(LogEvent event, long tag) {
+        // Read the newest segment before claiming a sequence: it can never be ahead of our slot
+        Link from = last.get();
+        long seq = tail.getAndIncrement();
+        store(from, seq, event, tag, seq);
+        return seq;
+    }
+
+    // Method to append an event tagged with the next value of a shared counter and return the tag. The tag
+    // is taken after the slot is claimed, so a reader that finds the counter past a tag also finds its slot.
+    long appendTagged(LogEvent event, AtomicLong tags) {
+        Link from = last.get();
+        long seq = tail.getAndIncrement();
+        long tag = tags.getAndIncrement();
+        store(from, seq, event, tag, tag);
+        return tag;
+    }
+
+    // Method to append an event tagged with a value taken from the given source after the slot is claimed,
+    // and return the tag
+    long appendTagged(LogEvent event, LongSupplier tags) {
+        Link from = last.get();
+        long seq = tail.getAndIncrement();
+        long tag = tags.getAsLong();
+        store(from, seq, event, tag, tag);
+        return tag;
+    }
+
+    // Method to write an event into its claimed slot and evict what no longer fits. If the event cannot be
+    // stored the slot is published with a tombstone, because readers wait for every claimed slot, and the
+    // failure is rethrown with the sequence number the caller reports.
+    private void store(Link from, long seq, LogEvent event, long tag, long reported) {
+        Segment segment = findLink(from, seq >>> SEGMENT_SHIFT).segment;
+        int index = (int) (seq & SEGMENT_MASK);
+        if (segment.tags != null) {
+            segment.tags.set(index, tag); // written before put publishes the slot
+        }
+        int size;
+        try {
+            segment.recordTime(event.getTimeMillis()); // also before put, so that expiry never misses it
+            size = segment.put(index, event);
+        } catch (RuntimeException | Error e) {
+            if (!segment.isPublished(index)) {
+                lastTombstone.accumulateAndGet(seq, Math::max); // raised before readers can see the tombstone
+                segment.putTombstone(index);
+            }
+            throw new AppendFailedException(reported, e);
+        }
+        retainedBytes.addAndGet(size);
+        if (segment.id > from.segment.id) {
+            advance(last, segment.id);
+        }
+        advanceStart(seq + 1 - capacity, true);
+        enforceByteBudget();
+        expire();
+    }
+
+    // Method to change the capacity, evicting the oldest events if the buffer is now over capacity
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        advanceStart(tail.get() - capacity, true);
+    }
+
+    // Method to change the byte budget, evicting the oldest events until the retained events fit in it
+    @Override
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Byte budget must not be negative: " + maxRetainedBytes);
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        enforceByteBudget();
+    }
+
+    // Method to change the maximum age of the retained events, expiring the events that are now too old
+    @Override
+    public void setMaxAge(long maxAgeMillis) {
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximum age must not be negative: " + maxAgeMillis);
+        }
+        this.maxAgeMillis = maxAgeMillis;
+        expire();
+    }
+
+    // Method to retrieve the maximum age of the retained events
+    @Override
+    public long getMaxAge() {
+        return maxAgeMillis;
+    }
+
+    // Method to change how newly created segments store their events
+    @Override
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+    }
+
+    // Method to retrieve the storage mode used for newly created segments
+    @Override
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    // Method to drop every retained event and reset the discarded count
+    @Override
+    public void clear() {
+        clearAll();
+    }
+
+    // Method to drop every retained event, reset the discarded count and return how many events this call
+    // dropped (the start moves in one step, so events that other threads evict or clear meanwhile are never
+    // counted twice)
+    long clearAll() {
+        long target = tail.get();
+        long from = advanceStart(target, false);
+        discarded.set(0);
+        return from == NOT_ADVANCED ? 0 : target - from;
+    }
+
+    // Method to drop the retained events before the given sequence without counting them as discarded
+    @Override
+    public long clearUpTo(long sequence) {
+        long from = advanceStart(sequence, false);
+        return from == NOT_ADVANCED ? sequence : from;
+    }
+
+    // Method to count events that were rejected before reaching the buffer as discarded
+    @Override
+    public void addDiscarded(long count) {
+        discarded.addAndGet(count);
+    }
+
+    // === Section 2. Reading
+
+    // Method to retrieve the number of retained events
+    @Override
+    public int size() {
+        expire();
+        long size = tail.get() - start.get();
+        return (int) Math.max(0, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    // Method to retrieve the maximum number of retained events
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Method to retrieve the byte budget for the retained events
+    @Override
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    // Method to retrieve the estimated size in bytes of the retained events
+    @Override
+    public long getRetainedBytes() {
+        return Math.max(0, retainedBytes.get());
+    }
+
+    // Method to retrieve the number of events evicted to respect the capacity or the byte budget
+    @Override
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    // Method to retrieve the sequence number of the oldest retained event
+    @Override
+    public long getStartSequence() {
+        return start.get();
+    }
+
+    // Method to retrieve the sequence number that the next appended event will receive
+    @Override
+    public long getTailSequence() {
+        return tail.get();
+    }
+
+    // Method to copy the retained events, oldest first
+    @Override
+    public List<LogEvent> toList() {
+        return copyRange(null);
+    }
+
+    // Method to copy the retained events and report the sequence just after the last copied event
+    @Override
+    public List<LogEvent> copyRange(long[] endSequence) {
+        expire();
+        // Read the head before the start so that the head segment always covers the start sequence
+        Link link = head.get();
+        long from = Math.max(start.get(), link.segment.id << SEGMENT_SHIFT);
+        long to = tail.get();
+        List<LogEvent> events = new ArrayList<>((int) Math.max(0, Math.min(to - from, Integer.MAX_VALUE)));
+        for (long seq = from; seq < to; seq++) {
+            link = findLink(link, seq >>> SEGMENT_SHIFT);
+            LogEvent event = awaitPublished(link.segment, (int) (seq & SEGMENT_MASK));
+            if (event != TOMBSTONE) {
+                events.add(event);
+            }
+        }
+        if (endSequence != null) {
+            endSequence[0] = to;
+        }
+        return events;
+    }
+
+    // Method to look up events by ascending sequence numbers, walking the segments forward only once
+    @Override
+    public List<LogEvent> get(long[] sequences, int count) {
+        expire();
+        Link link = head.get();
+        long from = Math.max(start.get(), link.segment.id << SEGMENT_SHIFT);
+        long to = tail.get();
+        List<LogEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long seq = sequences[i];
+            if (seq >= from && seq < to) {
+                link = findLink(link, seq >>> SEGMENT_SHIFT);
+                LogEvent event = awaitPublished(link.segment, (int) (seq & SEGMENT_MASK));
+                if (event != TOMBSTONE) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    // Method to return an immutable view of the retained events without copying them: the view holds on to
+    // the segments of the current range, which are never overwritten, so later appends and evictions do not
+    // affect it (a range that may hold a tombstone is copied instead, leaving the tombstones out)
+    @Override
+    public List<LogEvent> snapshot(long[] range) {
+        expire();
+        Link link = head.get();
+        long from = Math.max(start.get(), link.segment.id << SEGMENT_SHIFT);
+        long to = Math.max(from, tail.get());
+        if (range != null) {
+            range[0] = from;
+            range[1] = to;
+        }
+        return view(link, from, to);
+    }
+
+    // Method to register the listener told about the ranges that leave the buffer
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        this.evictionListener = listener;
+    }
+
+    // Method to copy the retained events together with their tags, oldest first. Tombstones are included, so
+    // that a caller can tell that a slot was published; their event is TOMBSTONE.
+    List<TaggedEvent> copyTagged() {
+        expire();
+        Link link = head.get();
+        long from = Math.max(start.get(), link.segment.id << SEGMENT_SHIFT);
+        long to = tail.get();
+        List<TaggedEvent> events = new ArrayList<>((int) Math.max(0, Math.min(to - from, Integer.MAX_VALUE)));
+        for (long seq = from; seq < to; seq++) {
+            link = findLink(link, seq >>> SEGMENT_SHIFT);
+            int index = (int) (seq & SEGMENT_MASK);
+            LogEvent event = awaitPublished(link.segment, index);
+            events.add(new TaggedEvent(link.segment.tags.get(index), event));
+        }
+        return events;
+    }
+
+    // Method to drop the oldest events while their tags are below the given value and return how many
+    // events this call dropped (the run of such events is found first and dropped in one step)
+    int trimTagsBelow(long tag) {
+        while (true) {
+            Link link = head.get();
+            long current = start.get();
+            long end = tail.get();
+            long target = current;
+            while (target < end) {
+                link = findLink(link, target >>> SEGMENT_SHIFT);
+                Segment segment = link.segment;
+                int index = (int) (target & SEGMENT_MASK);
+                if (!segment.isPublished(index) || segment.tags.get(index) >= tag) {
+                    break;
+                }
+                target++;
+            }
+            if (target == current) {
+                return 0;
+            }
+            if (advanceStart(target, false) != NOT_ADVANCED) {
+                return (int) Math.min(target - current, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    // Method to expire the oldest events whose timestamps are before the cutoff and return how many events
+    // this call expired. Whole segments whose newest timestamp is before the cutoff are expired in one step;
+    // in the head segment the events are checked one by one up to the first event that is young enough.
+    int expireBefore(long cutoffMillis) {
+        int expired = 0;
+        while (true) {
+            Link link = head.get();
+            long current = start.get();
+            long end = tail.get();
+            if (current >= end) {
+                return expired;
+            }
+            Segment segment = findLink(link, current >>> SEGMENT_SHIFT).segment;
+            long segmentEnd = (segment.id + 1) << SEGMENT_SHIFT;
+            long target = current;
+            if (segmentEnd <= end && segment.isExpired(cutoffMillis)) {
+                target = segmentEnd;
+            } else {
+                long limit = Math.min(segmentEnd, end);
+                while (target < limit && segment.isPublished((int) (target & SEGMENT_MASK))
+                        && segment.timeMillis((int) (target & SEGMENT_MASK)) < cutoffMillis) {
+                    target++;
+                }
+            }
+            if (target == current) {
+                return expired;
+            }
+            if (advanceStart(target, true) != NOT_ADVANCED) {
+                expired += (int) (target - current);
+            }
+        }
+    }
+
+    // Method to read the tag of the oldest retained event, waiting for its producer if needed, or return
+    // Long.MAX_VALUE if the buffer is empty
+    long oldestTag() {
+        // Read the head before the start so that the head segment always covers the start sequence
+        Link link = head.get();
+        long current = start.get();
+        if (current >= tail.get()) {
+            return Long.MAX_VALUE;
+        }
+        Segment segment = findLink(link, current >>> SEGMENT_SHIFT).segment;
+        int index = (int) (current & SEGMENT_MASK);
+        awaitSlot(segment, index);
+        return segment.tags.get(index);
+    }
+
+    // Method to evict the oldest retained event and count it as discarded, returning false if the buffer
+    // was empty
+    boolean evictOldest() {
+        while (true) {
+            long current = start.get();
+            if (current >= tail.get()) {
+                return false;
+            }
+            if (advanceStart(current + 1, true) != NOT_ADVANCED) {
+                return true;
+            }
+        }
+    }
+
+    // Method to merge the events of tagged buffers whose tags lie in [from, to) in tag order (each buffer is
+    // almost sorted by tag already, so the sort runs in close to linear time)
+    static List<LogEvent> mergeTagged(Iterable<LogEventBuffer> buffers, long from, long to) {
+        List<TaggedEvent> merged = new ArrayList<>();
+        for (LogEventBuffer buffer : buffers) {
+            for (TaggedEvent event : buffer.copyTagged()) {
+                if (event.tag() >= from && event.tag() < to && event.event() != TOMBSTONE) {
+                    merged.add(event);
+                }
+            }
+        }
+        merged.sort(Comparator.comparingLong(TaggedEvent::tag));
+        List<LogEvent> events = new ArrayList<>(merged.size());
+        for (TaggedEvent event : merged) {
+            events.add(event.event());
+        }
+        return events;
+    }
+
+    // === Section 3. Internal helpers
+
+    // Method to walk forward from a link to the one of the segment with the given id, creating missing
+    // segments
+    private Link findLink(Link from, long id) {
+        Link link = from;
+        while (link.segment.id < id) {
+            Link next = link.next.get();
+            if (next == null) {
+                Link created = new Link(newSegment(link.segment.id + 1));
+                next = link.next.compareAndSet(null, created) ? created : link.next.get();
+            }
+            link = next;
+        }
+        return link;
+    }
+
+    // Method to collect the segments from the one of the given link up to the one with the given id,
+    // creating missing segments
+    private Segment[] segmentsUpTo(Link first, long lastId) {
+        long firstId = first.segment.id;
+        Segment[] segments = new Segment[(int) (lastId - firstId + 1)];
+        Link link = first;
+        for (int i = 0; i < segments.length; i++) {
+            link = findLink(link, firstId + i);
+            segments[i] = link.segment;
+        }
+        return segments;
+    }
+
+    // Method to create an immutable view of a range of sequences starting in the segment of the given link,
+    // copying the range if it may hold a tombstone
+    private List<LogEvent> view(Link link, long from, long to) {
+        if (lastTombstone.get() < from) {
+            return new SegmentView(link, from, (int) Math.min(to - from, Integer.MAX_VALUE));
+        }
+        List<LogEvent> events = new ArrayList<>();
+        for (long seq = from; seq < to; seq++) {
+            link = findLink(link, seq >>> SEGMENT_SHIFT);
+            LogEvent event = awaitPublished(link.segment, (int) (seq & SEGMENT_MASK));
+            if (event != TOMBSTONE) {
+                events.add(event);
+            }
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    // Method to pick the segment of a sequence from an array of consecutive segments
+    private static Segment segmentOf(Segment[] segments, long seq) {
+        return segments[(int) ((seq >>> SEGMENT_SHIFT) - segments[0].id)];
+    }
+
+    // Method to wait for a claimed slot to be written by its producer
+    private static LogEvent awaitPublished(Segment segment, int index) {
+        LogEvent event;
+        int spins = 0;
+        while ((event = segment.get(index)) == null) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return event;
+    }
+
+    // Method to wait for a claimed slot to be written (used by readers only)
+    private static void awaitSlot(Segment segment, int index) {
+        int spins = 0;
+        while (!segment.isPublished(index)) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    // Method to take the size of a slot when it is released, without waiting for its producer: the size is
+    // replaced by RELEASED, so a producer that has not recorded its size yet finds the slot released and does
+    // not count it, and a compressed segment does not lower the size of a slot that was already released
+    private static int takeSize(Segment segment, int index) {
+        return Math.max(0, segment.sizes.getAndSet(index, RELEASED));
+    }
+
+    // Method to move the start sequence forward, counting the skipped events as discarded if requested, and
+    // return the sequence this call moved it from (NOT_ADVANCED if it was already at or past the target)
+    private long advanceStart(long target, boolean countAsDiscarded) {
+        while (true) {
+            // Read the head before the start so that the head segment always covers the start sequence
+            Link link = head.get();
+            long current = start.get();
+            if (current >= target) {
+                return NOT_ADVANCED;
+            }
+            if (start.compareAndSet(current, target)) {
+                if (countAsDiscarded) {
+                    discarded.addAndGet(target - current);
+                }
+                EvictionListener listener = evictionListener;
+                if (listener != null) {
+                    // The segments are never overwritten, so a view of the range stays readable
+                    listener.evicted(current, target, countAsDiscarded ? view(link, current, target) : null);
+                }
+                releaseBytes(link, current, target);
+                advance(head, target >>> SEGMENT_SHIFT);
+                return current;
+            }
+        }
+    }
+
+    // Method to subtract the sizes of the events in a range that has just been dropped (slots whose producers
+    // are still writing them are skipped, and those producers leave their size uncounted)
+    private void releaseBytes(Link link, long from, long to) {
+        long released = 0;
+        for (long seq = from; seq < to; seq++) {
+            link = findLink(link, seq >>> SEGMENT_SHIFT);
+            released += takeSize(link.segment, (int) (seq & SEGMENT_MASK));
+        }
+        retainedBytes.addAndGet(-released);
+    }
+
+    // Method to evict the oldest events until the retained events fit in the byte budget
+    private void enforceByteBudget() {
+        while (retainedBytes.get() > maxRetainedBytes) {
+            long current = start.get();
+            if (current >= tail.get()) {
+                return;
+            }
+            advanceStart(current + 1, true);
+        }
+    }
+
+    // Method to expire the events older than the maximum age, if there is one
+    private void expire() {
+        long maxAge = maxAgeMillis;
+        if (maxAge != Long.MAX_VALUE) {
+            expireBefore(System.currentTimeMillis() - maxAge);
+        }
+    }
+
+    // Method to move a segment pointer forward to the segment with the given id (never backwards)
+    private static void advance(AtomicReference<Link> pointer, long id) {
+        Link current;
+        while ((current = pointer.get()).segment.id < id) {
+            Link next = current.next.get();
+            if (next == null) {
+                return; // the producer of the next segment will link it shortly
+            }
+            pointer.compareAndSet(current, next);
+        }
+    }
+
+    // Method to create a segment using the current storage mode
+    private Segment newSegment(long id) {
+        switch (storageMode) {
+            case OFF_HEAP:
+                return new OffHeapSegment(id, tagged, dictionaries);
+            case COMPRESSED:
+                return new CompressedSegment(id, tagged, dictionaries, retainedBytes);
+            default:
+                return new HeapSegment(id, tagged);
+        }
+    }
+
+    // Class to represent an immutable view of a range of sequences. The view keeps its own array of the
+    // segments it covers rather than the first one, whose next links would keep every later segment alive.
+    private final class SegmentView extends AbstractList<LogEvent> implements LevelView {
+        private final Segment[] segments;
+        private final long from;
+        private final int size;
+
+        SegmentView(Link first, long from, int size) {
+            this.segments = size == 0 ? new Segment[0] : segmentsUpTo(first, (from + size - 1) >>> SEGMENT_SHIFT);
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public LogEvent get(int index) {
+            Objects.checkIndex(index, size);
+            long seq = from + index;
+            return awaitPublished(segmentOf(segments, seq), (int) (seq & SEGMENT_MASK));
+        }
+
+        // Method to read the level of an event without materialising it (off-heap records are not decoded)
+        @Override
+        public Level levelAt(int index) {
+            Objects.checkIndex(index, size);
+            long seq = from + index;
+            Segment segment = segmentOf(segments, seq);
+            awaitSlot(segment, (int) (seq & SEGMENT_MASK));
+            return segment.level((int) (seq & SEGMENT_MASK));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<LogEvent> iterator() {
+            return new Iterator<>() {
+                private long seq = from;
+
+                @Override
+                public boolean hasNext() {
+                    return seq < from + size;
+                }
+
+                @Override
+                public LogEvent next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Segment segment = segmentOf(segments, seq);
+                    return awaitPublished(segment, (int) (seq++ & SEGMENT_MASK));
+                }
+            };
+        }
+
+        // Method to create a spliterator that splits the view by sequence range (for parallel streams and
+        // bulk formatting)
+        @Override
+        public Spliterator<LogEvent> spliterator() {
+            return new RangeSpliterator(segments, from, from + size);
+        }
+    }
+
+    // Class to represent a splittable traversal of a sequence range over an array of segments
+    private static final class RangeSpliterator implements Spliterator<LogEvent> {
+        private final Segment[] segments;
+        private long next;
+        private final long end;
+
+        RangeSpliterator(Segment[] segments, long next, long end) {
+            this.segments = segments;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LogEvent> action) {
+            if (next >= end) {
+                return false;
+            }
+            Segment segment = segmentOf(segments, next);
+            action.accept(awaitPublished(segment, (int) (next++ & SEGMENT_MASK)));
+            return true;
+        }
+
+        @Override
+        public Spliterator<LogEvent> trySplit() {
+            long mid = (next + end) >>> 1;
+            if (mid <= next) {
+                return null;
+            }
+            RangeSpliterator prefix = new RangeSpliterator(segments, next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    // Record to hold a retained event and the tag it was appended with
+    record TaggedEvent(long tag, LogEvent event) {
+    }
+
+    // Class to represent the link from a segment to the next one in sequence order
+    private static final class Link {
+        final Segment segment;
+        final AtomicReference<Link> next = new AtomicReference<>();
+
+        Link(Segment segment) {
+            this.segment = segment;
+        }
+    }
+
+    // Class to represent a fixed-size block of slots in the buffer
+    abstract static class Segment {
+        final long id;
+
+        // Size in bytes of each slot's event (recorded before the slot is published, or RELEASED)
+        final AtomicIntegerArray sizes = new AtomicIntegerArray(SEGMENT_SIZE);
+
+        // Tag of each slot's event, or null if the buffer is not tagged
+        final AtomicLongArray tags;
+
+        // Newest timestamp of the segment's events (raised before each slot is published)
+        private final AtomicLong maxTime = new AtomicLong(Long.MIN_VALUE);
+
+        Segment(long id, boolean tagged) {
+            this.id = id;
+            this.tags = tagged ? new AtomicLongArray(SEGMENT_SIZE) : null;
+        }
+
+        // Method to store a copy of the event for a slot, publish it and return the size in bytes to count as
+        // retained (see recordSize)
+        abstract int put(int index, LogEvent event);
+
+        // Method to publish TOMBSTONE for a slot whose event could not be stored (its size stays uncounted)
+        abstract void putTombstone(int index);
+
+        // Method to record the size of a slot before it is published and return the size to count as retained
+        // (0 if an eviction already released the slot: evictions do not wait for the slots they pass over)
+        int recordSize(int index, int size) {
+            return sizes.compareAndSet(index, 0, size) ? size : 0;
+        }
+
+        // Method to read the event of a slot, or null if it has not been published yet
+        abstract LogEvent get(int index);
+
+        // Method to check whether the event of a slot has been published
+        abstract boolean isPublished(int index);
+
+        // Method to read the level of a published slot's event
+        Level level(int index) {
+            return get(index).getLevel();
+        }
+
+        // Method to read the timestamp of a published slot's event
+        long timeMillis(int index) {
+            return get(index).getTimeMillis();
+        }
+
+        // Method to raise the newest timestamp of the segment
+        void recordTime(long timeMillis) {
+            long current;
+            while (timeMillis > (current = maxTime.get()) && !maxTime.compareAndSet(current, timeMillis)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        // Method to check whether every slot is published and every event is older than the cutoff (the
+        // slots are awaited first, because a producer raises the newest timestamp just before publishing)
+        boolean isExpired(long cutoffMillis) {
+            if (maxTime.get() >= cutoffMillis) {
+                return false;
+            }
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                if (!isPublished(i)) {
+                    return false;
+                }
+            }
+            return maxTime.get() < cutoffMillis;
+        }
+    }
+
+    // Class to represent a segment that keeps the immutable event objects on the heap
+    private static final class HeapSegment extends Segment {
+        private final AtomicReferenceArray<LogEvent> slots = new AtomicReferenceArray<>(SEGMENT_SIZE);
+
+        HeapSegment(long id, boolean tagged) {
+            super(id, tagged);
+        }
+
+        @Override
+        int put(int index, LogEvent event) {
+            LogEvent copy = event.toImmutable();
+            int size = recordSize(index, LogEventSizeEstimator.estimate(copy));
+            slots.set(index, copy);
+            return size;
+        }
+
+        @Override
+        void putTombstone(int index) {
+            slots.set(index, TOMBSTONE);
+        }
+
+        @Override
+        LogEvent get(int index) {
+            return slots.get(index);
+        }
+
+        @Override
+        boolean isPublished(int index) {
+            return slots.get(index) != null;
+        }
+    }
+}
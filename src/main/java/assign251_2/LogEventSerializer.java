@@ -0,0 +1,510 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ContextDataFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.impl.ThrowableProxy;
+import org.apache.logging.log4j.core.time.MutableInstant;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.StringMap;
+
+// Import other necessary classes
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Class to convert log events to and from a compact binary record.
+//
+// The message is stored in its formatted form and read back as a SimpleMessage, markers are stored by
+// name, and a thrown exception is kept as a serialized ThrowableProxy (the same form log4j uses when it
+// serializes events). The proxy only holds names, messages and stack frames, never the exception object
+// itself, so it is read back through a filter that admits those classes alone: records come from dump and
+// spill files, and a file that names any other class is rejected instead of instantiating it. Everything
+// else an appender or layout reads from an event survives the round trip.
+//
+// Records that stay in memory can be coded against Dictionaries: the level, logger name, caller class and
+// thread name, which repeat across almost every event, are then stored as variable-length dictionary ids
+// (one or two bytes for the first 16384 values) and only turned back into strings when a record is decoded.
+// Self-contained records (for example in spill files) keep the plain format.
+final class LogEventSerializer {
+
+    // Version of the record format, written as the first byte of every record
+    private static final byte FORMAT_VERSION = 1;
+
+    // Version of the records whose repeated fields are dictionary ids
+    private static final byte CODED_FORMAT_VERSION = 2;
+
+    // Codes written before a coded field: no value, a value stored inline, or a dictionary id plus FIRST_ID
+    private static final int NULL_CODE = 0;
+    private static final int INLINE_CODE = 1;
+    private static final int FIRST_ID = 2;
+
+    // Position of the level name within a record (after the version, the milliseconds and the nanoseconds)
+    private static final int LEVEL_OFFSET = Byte.BYTES + Long.BYTES + Integer.BYTES;
+
+    // Levels that readLevel recognises without decoding the name
+    private static final Level[] STANDARD_LEVELS = {
+        Level.INFO, Level.DEBUG, Level.WARN, Level.ERROR, Level.TRACE, Level.FATAL, Level.OFF, Level.ALL
+    };
+
+    // Filter for the serialized ThrowableProxy: the proxy, its stack frames and their class information,
+    // the strings they hold, and arrays of those (array types are matched by their element class)
+    private static final ObjectInputFilter THROWN_PROXY_FILTER = ObjectInputFilter.Config.createFilter(
+        "maxdepth=64;maxrefs=100000;maxarray=100000;"
+            + "org.apache.logging.log4j.core.impl.ThrowableProxy;"
+            + "org.apache.logging.log4j.core.impl.ExtendedStackTraceElement;"
+            + "org.apache.logging.log4j.core.impl.ExtendedClassInfo;"
+            + "java.lang.StackTraceElement;java.lang.String;!*");
+
+    // Private constructor to prevent instantiation
+    private LogEventSerializer() {
+    }
+
+    // === Section 1. Encoding
+
+    // Method to encode a log event into a new self-contained byte array
+    static byte[] serialize(LogEvent event) {
+        return serialize(event, null);
+    }
+
+    // Method to encode a log event into a new byte array, coding the repeated fields against the
+    // dictionaries (or storing them inline if dictionaries is null)
+    static byte[] serialize(LogEvent event, Dictionaries dictionaries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(dictionaries == null ? FORMAT_VERSION : CODED_FORMAT_VERSION);
+            out.writeLong(event.getTimeMillis());
+            out.writeInt(event.getInstant().getNanoOfMillisecond());
+            Level level = event.getLevel();
+            if (dictionaries == null) {
+                writeLevel(out, level);
+                writeString(out, event.getLoggerName());
+                writeString(out, event.getLoggerFqcn());
+                writeString(out, event.getThreadName());
+            } else {
+                writeCodedLevel(out, dictionaries.levels, level);
+                writeCodedString(out, dictionaries.strings, event.getLoggerName());
+                writeCodedString(out, dictionaries.strings, event.getLoggerFqcn());
+                writeCodedString(out, dictionaries.strings, event.getThreadName());
+            }
+            out.writeLong(event.getThreadId());
+            out.writeInt(event.getThreadPriority());
+            writeBody(out, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize log event", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Method to write the fields that follow the thread in every record format: the marker, the formatted
+    // message, the context, the location, the flags, the nano time and the thrown exception
+    static void writeBody(DataOutputStream out, LogEvent event) throws IOException {
+        writeString(out, event.getMarker() == null ? null : event.getMarker().getName());
+        writeString(out, event.getMessage() == null ? null : event.getMessage().getFormattedMessage());
+        writeContextData(out, event.getContextData());
+        writeContextStack(out, event.getContextStack());
+        writeSource(out, event.getSource());
+        out.writeBoolean(event.isEndOfBatch());
+        out.writeBoolean(event.isIncludeLocation());
+        out.writeLong(event.getNanoTime());
+        writeThrownProxy(out, event.getThrownProxy());
+    }
+
+    // Method to write a nullable string as a length-prefixed UTF-8 sequence
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    // Method to write a nullable level as its name and int level
+    private static void writeLevel(DataOutputStream out, Level level) throws IOException {
+        writeString(out, level == null ? null : level.name());
+        out.writeInt(level == null ? 0 : level.intLevel());
+    }
+
+    // Method to write a level as a dictionary code, falling back to the inline form if the dictionary is full
+    private static void writeCodedLevel(DataOutputStream out, ValueDictionary<Level> levels, Level level)
+            throws IOException {
+        if (level == null) {
+            writeVarInt(out, NULL_CODE);
+            return;
+        }
+        int id = levels.idOf(level);
+        if (id < 0) {
+            writeVarInt(out, INLINE_CODE);
+            writeLevel(out, level);
+        } else {
+            writeVarInt(out, id + FIRST_ID);
+        }
+    }
+
+    // Method to write a string as a dictionary code, falling back to the inline form if the dictionary is full
+    private static void writeCodedString(DataOutputStream out, ValueDictionary<String> strings, String value)
+            throws IOException {
+        if (value == null) {
+            writeVarInt(out, NULL_CODE);
+            return;
+        }
+        int id = strings.idOf(value);
+        if (id < 0) {
+            writeVarInt(out, INLINE_CODE);
+            writeString(out, value);
+        } else {
+            writeVarInt(out, id + FIRST_ID);
+        }
+    }
+
+    // Method to write a non-negative int in groups of 7 bits, lowest group first
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // Method to write a non-negative long in groups of 7 bits, lowest group first
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Method to write a long of either sign as a zigzag-coded variable-length long (small magnitudes take
+    // few bytes whatever their sign)
+    static void writeSignedVarLong(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    // Method to write the context map as key/value pairs
+    private static void writeContextData(DataOutputStream out, ReadOnlyStringMap contextData) throws IOException {
+        if (contextData == null || contextData.isEmpty()) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(contextData.size());
+        IOException[] failure = new IOException[1];
+        contextData.forEach((key, value) -> {
+            try {
+                writeString(out, key);
+                writeString(out, value == null ? null : String.valueOf(value));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    // Method to write the context stack entries
+    private static void writeContextStack(DataOutputStream out, ThreadContext.ContextStack stack) throws IOException {
+        if (stack == null || stack.isEmpty()) {
+            out.writeInt(0);
+            return;
+        }
+        List<String> entries = stack.asList();
+        out.writeInt(entries.size());
+        for (String entry : entries) {
+            writeString(out, entry);
+        }
+    }
+
+    // Method to write the location information, if any
+    private static void writeSource(DataOutputStream out, StackTraceElement source) throws IOException {
+        out.writeBoolean(source != null);
+        if (source != null) {
+            writeString(out, source.getClassName());
+            writeString(out, source.getMethodName());
+            writeString(out, source.getFileName());
+            out.writeInt(source.getLineNumber());
+        }
+    }
+
+    // Method to write the thrown exception as a serialized ThrowableProxy
+    private static void writeThrownProxy(DataOutputStream out, ThrowableProxy proxy) throws IOException {
+        if (proxy == null) {
+            out.writeInt(-1);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(proxy);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    // === Section 2. Decoding
+
+    // Method to decode a log event from a self-contained record produced by serialize
+    static LogEvent deserialize(byte[] record) {
+        return deserialize(record, null);
+    }
+
+    // Method to decode a log event from a record produced by serialize with the same dictionaries
+    static LogEvent deserialize(byte[] record, Dictionaries dictionaries) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION && (version != CODED_FORMAT_VERSION || dictionaries == null)) {
+                throw new IllegalStateException("Unsupported log event record version: " + version);
+            }
+            MutableInstant instant = new MutableInstant();
+            long timeMillis = in.readLong();
+            instant.initFromEpochMilli(timeMillis, in.readInt());
+            Log4jLogEvent.Builder builder = Log4jLogEvent.newBuilder().setInstant(instant);
+            if (version == FORMAT_VERSION) {
+                builder.setLevel(readLevel(in))
+                    .setLoggerName(readString(in))
+                    .setLoggerFqcn(readString(in))
+                    .setThreadName(readString(in));
+            } else {
+                builder.setLevel(readCodedLevel(in, dictionaries.levels))
+                    .setLoggerName(readCodedString(in, dictionaries.strings))
+                    .setLoggerFqcn(readCodedString(in, dictionaries.strings))
+                    .setThreadName(readCodedString(in, dictionaries.strings));
+            }
+            builder.setThreadId(in.readLong())
+                .setThreadPriority(in.readInt());
+            readBody(in, builder);
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to deserialize log event", e);
+        }
+    }
+
+    // Method to read the fields written by writeBody into an event builder
+    static void readBody(DataInputStream in, Log4jLogEvent.Builder builder) throws IOException {
+        String markerName = readString(in);
+        if (markerName != null) {
+            builder.setMarker(MarkerManager.getMarker(markerName));
+        }
+        String message = readString(in);
+        builder.setMessage(new SimpleMessage(message));
+        builder.setContextData(readContextData(in));
+        builder.setContextStack(readContextStack(in));
+        builder.setSource(readSource(in));
+        builder.setEndOfBatch(in.readBoolean());
+        builder.setIncludeLocation(in.readBoolean());
+        builder.setNanoTime(in.readLong());
+        builder.setThrownProxy(readThrownProxy(in));
+    }
+
+    // Method to read only the timestamp of a record stored at the given position of a buffer (every record
+    // version starts with the version byte followed by the milliseconds)
+    static long readTimeMillis(ByteBuffer buffer, int position) {
+        return buffer.getLong(position + Byte.BYTES);
+    }
+
+    // Method to read only the level of a record stored at the given position of a buffer (without decoding
+    // the rest of the event; coded levels are looked up and standard levels are matched in place, so that no
+    // string is created)
+    static Level readLevel(ByteBuffer buffer, int position, Dictionaries dictionaries) {
+        int namePosition = position + LEVEL_OFFSET;
+        if (buffer.get(position) == CODED_FORMAT_VERSION) {
+            // Codes below 128 take one byte; the dictionary holds fewer levels than that
+            int code = buffer.get(namePosition);
+            if (code == NULL_CODE) {
+                return null;
+            }
+            if (code != INLINE_CODE) {
+                return dictionaries.levels.valueOf(code - FIRST_ID);
+            }
+            namePosition++;
+        }
+        int length = buffer.getInt(namePosition);
+        if (length < 0) {
+            return null;
+        }
+        int intLevel = buffer.getInt(namePosition + Integer.BYTES + length);
+        for (Level level : STANDARD_LEVELS) {
+            if (level.intLevel() == intLevel && nameEquals(buffer, namePosition + Integer.BYTES, length, level.name())) {
+                return level;
+            }
+        }
+        byte[] encoded = new byte[length];
+        buffer.get(namePosition + Integer.BYTES, encoded);
+        return Level.forName(new String(encoded, StandardCharsets.UTF_8), intLevel);
+    }
+
+    // Method to compare an encoded ASCII name with a string
+    private static boolean nameEquals(ByteBuffer buffer, int position, int length, String name) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method to read a nullable level written by writeLevel
+    private static Level readLevel(DataInputStream in) throws IOException {
+        String levelName = readString(in);
+        int intLevel = in.readInt();
+        return levelName == null ? null : Level.forName(levelName, intLevel);
+    }
+
+    // Method to read a level written by writeCodedLevel
+    private static Level readCodedLevel(DataInputStream in, ValueDictionary<Level> levels) throws IOException {
+        int code = readVarInt(in);
+        if (code == NULL_CODE) {
+            return null;
+        }
+        return code == INLINE_CODE ? readLevel(in) : levels.valueOf(code - FIRST_ID);
+    }
+
+    // Method to read a string written by writeCodedString
+    private static String readCodedString(DataInputStream in, ValueDictionary<String> strings) throws IOException {
+        int code = readVarInt(in);
+        if (code == NULL_CODE) {
+            return null;
+        }
+        return code == INLINE_CODE ? readString(in) : strings.valueOf(code - FIRST_ID);
+    }
+
+    // Method to read an int written by writeVarInt
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            int group = in.readUnsignedByte();
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+
+    // Method to read a long written by writeVarLong
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int group = in.readUnsignedByte();
+            value |= (long) (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length long");
+    }
+
+    // Method to read a long written by writeSignedVarLong
+    static long readSignedVarLong(DataInputStream in) throws IOException {
+        long coded = readVarLong(in);
+        return (coded >>> 1) ^ -(coded & 1);
+    }
+
+    // Method to read a nullable length-prefixed UTF-8 string (records are always read from memory, so a length
+    // past the bytes that remain means the record is corrupt)
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("String length " + length + " exceeds the record");
+        }
+        byte[] encoded = new byte[length];
+        in.readFully(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    // Method to read the context map
+    private static StringMap readContextData(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        StringMap contextData = ContextDataFactory.createContextData(size);
+        for (int i = 0; i < size; i++) {
+            contextData.putValue(readString(in), readString(in));
+        }
+        contextData.freeze();
+        return contextData;
+    }
+
+    // Method to read the context stack
+    private static ThreadContext.ContextStack readContextStack(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return ThreadContext.EMPTY_STACK;
+        }
+        List<String> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(readString(in));
+        }
+        MutableThreadContextStack stack = new MutableThreadContextStack(entries);
+        stack.freeze();
+        return stack;
+    }
+
+    // Method to read the location information, if any
+    private static StackTraceElement readSource(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String className = readString(in);
+        String methodName = readString(in);
+        String fileName = readString(in);
+        return new StackTraceElement(className, methodName, fileName, in.readInt());
+    }
+
+    // Method to read the thrown exception, if any (only the classes a ThrowableProxy is made of are accepted)
+    private static ThrowableProxy readThrownProxy(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Thrown exception length " + length + " exceeds the record");
+        }
+        byte[] serialized = new byte[length];
+        in.readFully(serialized);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            objects.setObjectInputFilter(THROWN_PROXY_FILTER);
+            Object proxy = objects.readObject();
+            if (!(proxy instanceof ThrowableProxy)) {
+                throw new InvalidClassException("Thrown exception is not a ThrowableProxy");
+            }
+            return (ThrowableProxy) proxy;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to read thrown exception", e);
+        }
+    }
+
+    // Class to hold the dictionaries that coded records refer to (shared by every record of a buffer, and
+    // kept for as long as the buffer lives so that any retained record can be decoded)
+    static final class Dictionaries {
+
+        // Maximum number of distinct strings and levels (further values are stored inline)
+        static final int MAX_STRINGS = 64 * 1024;
+        static final int MAX_LEVELS = 100;
+
+        final ValueDictionary<String> strings = new ValueDictionary<>(MAX_STRINGS);
+        final ValueDictionary<Level> levels = new ValueDictionary<>(MAX_LEVELS);
+    }
+}
@@ -0,0 +1,60 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ThrowableProxy;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+
+// Class to estimate how many heap bytes a retained immutable log event occupies.
+//
+// The estimate is deliberately cheap (no reflection or object graph walk): it charges a fixed overhead
+// for the event, its instant and its message, plus the characters of the strings that belong to this
+// event alone. Logger and thread names are shared with the logger and thread objects, so they only
+// cost a reference.
+final class LogEventSizeEstimator {
+
+    // Approximate size of the event object, its instant and its message object
+    static final int EVENT_OVERHEAD = 160;
+
+    // Approximate size of a String object and its array header, excluding the characters
+    static final int STRING_OVERHEAD = 40;
+
+    // Approximate size of one entry of the context map, excluding the characters
+    static final int CONTEXT_ENTRY_OVERHEAD = 32;
+
+    // Approximate size of one stack frame of a thrown exception
+    static final int STACK_FRAME_SIZE = 64;
+
+    // Private constructor to prevent instantiation
+    private LogEventSizeEstimator() {
+    }
+
+    // Method to estimate the size in bytes of the event
+    static int estimate(LogEvent event) {
+        long size = EVENT_OVERHEAD;
+        Message message = event.getMessage();
+        if (message instanceof DeferredMessage) {
+            size += ((DeferredMessage) message).estimateSize(); // without formatting it
+        } else if (message != null) {
+            size += sizeOf(message.getFormattedMessage());
+        }
+        ReadOnlyStringMap contextData = event.getContextData();
+        if (contextData != null && !contextData.isEmpty()) {
+            long[] contextSize = new long[1];
+            contextData.forEach((key, value) ->
+                contextSize[0] += CONTEXT_ENTRY_OVERHEAD + sizeOf(key) + sizeOf(value == null ? null : value.toString()));
+            size += contextSize[0];
+        }
+        ThrowableProxy thrown = event.getThrownProxy();
+        if (thrown != null) {
+            size += sizeOf(thrown.getMessage()) + (long) thrown.getExtendedStackTrace().length * STACK_FRAME_SIZE;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    // Method to estimate the size of a string (compact strings use one byte per Latin-1 character)
+    static long sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+}
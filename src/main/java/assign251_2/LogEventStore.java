@@ -0,0 +1,123 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.List;
+
+// Interface for the storage engines behind MemAppender.
+//
+// Every store assigns appended events increasing sequence numbers, keeps at most getCapacity() events
+// (and at most getMaxRetainedBytes() estimated bytes, and no events older than getMaxAge() milliseconds),
+// drops the oldest events first and counts them as discarded. All methods are safe to call from many threads at once.
+interface LogEventStore {
+
+    // Method to append an event and return its sequence number (the store copies or encodes it before returning).
+    // If the event cannot be stored, its sequence number is still used up: readers skip it, and the failure is
+    // thrown as an AppendFailedException that carries it.
+    long append(LogEvent event);
+
+    // Method to copy the retained events, oldest first
+    List<LogEvent> toList();
+
+    // Method to return an immutable, consistent view of the retained events that later appends and
+    // evictions do not change
+    default List<LogEvent> snapshot() {
+        return snapshot(null);
+    }
+
+    // Method to return a snapshot and report its sequence range as {first, end} (if range is not null)
+    List<LogEvent> snapshot(long[] range);
+
+    // Method to copy the retained events and report the sequence just after the last copied event
+    List<LogEvent> copyRange(long[] endSequence);
+
+    // Method to look up the events with the given ascending sequence numbers, skipping any that were evicted
+    List<LogEvent> get(long[] sequences, int count);
+
+    // Method to drop every retained event and reset the discarded count
+    void clear();
+
+    // Method to drop the retained events before the given sequence without counting them as discarded, and
+    // return the sequence from which this call dropped them (the events before it had already left the
+    // store, for example because they were evicted and counted as discarded meanwhile)
+    long clearUpTo(long sequence);
+
+    // Method to retrieve the number of retained events
+    int size();
+
+    // Method to retrieve the sequence number of the oldest retained event
+    long getStartSequence();
+
+    // Method to retrieve the sequence number that the next appended event will receive
+    long getTailSequence();
+
+    // Method to change the maximum number of retained events
+    void setCapacity(int capacity);
+
+    // Method to retrieve the maximum number of retained events
+    int getCapacity();
+
+    // Method to retrieve the number of events evicted to respect the capacity or the byte budget
+    long getDiscardedCount();
+
+    // Method to count events that were rejected before reaching the store as discarded
+    void addDiscarded(long count);
+
+    // Method to change the maximum estimated size in bytes of the retained events
+    void setMaxRetainedBytes(long maxRetainedBytes);
+
+    // Method to retrieve the maximum estimated size in bytes of the retained events
+    long getMaxRetainedBytes();
+
+    // Method to retrieve the estimated size in bytes of the retained events
+    long getRetainedBytes();
+
+    // Method to change the maximum age in milliseconds of the retained events, measured from their timestamps
+    // (Long.MAX_VALUE keeps events regardless of their age)
+    void setMaxAge(long maxAgeMillis);
+
+    // Method to retrieve the maximum age in milliseconds of the retained events
+    long getMaxAge();
+
+    // Method to change how newly appended events are stored
+    void setStorageMode(StorageMode storageMode);
+
+    // Method to retrieve how newly appended events are stored
+    StorageMode getStorageMode();
+
+    // Method to register the listener told about every range of events that leaves the store (or null)
+    void setEvictionListener(EvictionListener listener);
+
+    // Interface for a listener told about every range of sequences that leaves the store. Ranges are
+    // reported right after they leave, possibly by several threads at once and so slightly out of order.
+    interface EvictionListener {
+
+        // Method called with the range and a view of its events, or null events if the range was cleared
+        void evicted(long from, long to, List<LogEvent> events);
+    }
+
+    // Interface implemented by reported views that can read the level of an event without materialising it
+    interface LevelView {
+
+        // Method to read the level of the event at the given position of the view
+        Level levelAt(int index);
+    }
+
+    // Exception thrown when an event could not be stored, carrying the sequence number it used up
+    final class AppendFailedException extends RuntimeException {
+        private final long sequence;
+
+        AppendFailedException(long sequence, Throwable cause) {
+            super("Failed to store the event with sequence " + sequence, cause);
+            this.sequence = sequence;
+        }
+
+        // Method to retrieve the sequence number that the failed event used up
+        long getSequence() {
+            return sequence;
+        }
+    }
+}
@@ -1,65 +1,418 @@
 package assign251_2; 
 
 // Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Core;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
-import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
-import org.apache.logging.log4j.core.config.plugins.PluginElement;
-import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
 import org.apache.logging.log4j.core.Layout;
 import java.nio.charset.StandardCharsets;
 
 // Import other necessary classes
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.management.JMException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 // Class to represent a memory appender
 @Plugin(name = "MemAppender", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
 public class MemAppender extends AbstractAppender {
 
-    // variable to store the singleton instance of MemAppender
-    private static MemAppender instance; 
+    // variable to store the singleton instance of MemAppender (published only once it is configured and started)
+    private static volatile MemAppender instance;
 
-    // REQUIRED list to store the log events
-    private List<LogEvent> logEvents = new ArrayList<>(); 
+    // Lock that makes the factory create the singleton only once (a lock rather than a monitor, so that a
+    // virtual thread waiting for it does not pin its carrier thread)
+    private static final ReentrantLock INSTANCE_LOCK = new ReentrantLock();
 
-    // REQUIRED variable to store the maximum size of the log events
-    private int maxSize = Integer.MAX_VALUE; 
+    // Default size cap of the spill files
+    private static final long DEFAULT_SPILL_MAX_BYTES = 256L * 1024 * 1024;
 
-    // REQUIRED variable to store the number of discarded log events
-    private long discardedLogCount = 0; 
+    // Default context size and suppression interval of the flight recorder
+    private static final int DEFAULT_TRIGGER_CONTEXT_EVENTS = 100;
+    private static final long DEFAULT_TRIGGER_SUPPRESSION_MILLIS = 1000;
+
+    // Name of the partition for events that match no partition prefix or have no partition key
+    public static final String DEFAULT_PARTITION = PartitionedEventStore.DEFAULT_PARTITION;
+
+    // Largest number of partitions created for partition keys
+    public static final int MAX_PARTITIONS = PartitionedEventStore.MAX_PARTITIONS;
+
+    // REQUIRED buffer to store the log events (bounded by maxSize, oldest events are discarded first)
+    private volatile LogEventStore logEvents = new LogEventBuffer(Integer.MAX_VALUE);
+
+    // Asynchronous ingest settings (a queue size of zero stores events on the caller's thread)
+    private int asyncQueueSize;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    // Queue feeding the background consumer while the appender runs asynchronously
+    private volatile AsyncIngestQueue asyncQueue;
+
+    // Secondary indexes over the retained events, or null if queries scan the events
+    private volatile EventIndex index;
+
+    // Pool used by getEventStrings and printLogs to format in parallel, or null to format on the caller's thread
+    private volatile BulkFormatter bulkFormatter;
+
+    // Tier that keeps the events evicted from memory in memory-mapped files, or null to discard them
+    private volatile SpillTier spill;
+
+    // Counters and latency histograms exposed over JMX, or null if metrics are disabled
+    private volatile MemAppenderMetrics metrics;
+
+    // Number of events dropped by the DROP overflow policy
+    private final LongAdder droppedLogs = new LongAdder();
+
+    // Whether parameterized messages are stored unformatted and only formatted when they are read
+    private volatile boolean deferredFormatting;
+
+    // Recorder that forwards the context of severe events to a downstream appender, or null
+    private volatile FlightRecorder flightRecorder;
 
     // A variable to store the layout of the MemAppender
-    private Layout<? extends Serializable> layout;
+    private volatile Layout<? extends Serializable> layout;
 
     // Constructor to initialize the MemAppender
     protected MemAppender(String name, Filter filter, Layout<? extends Serializable> layout, List<LogEvent> logEventsList) {
-        super(name, filter, layout);
+        super(name, filter, layout, true, Property.EMPTY_ARRAY);
         this.layout = layout;
-        this.logEvents = logEventsList != null ? logEventsList : new ArrayList<>();
+        // Seed the buffer with any events supplied by the caller
+        if (logEventsList != null) {
+            logEventsList.forEach(this::storeEvent);
+        }
     }
     
     // Factory method to create and return the MemAppender instance
-    @PluginFactory
-    public static MemAppender createAppender(
-            @PluginAttribute("name") String name,
-            @PluginElement("Layout") Layout<? extends Serializable> layout,
-            @PluginElement("Filter") final Filter filter) {
-        if (instance == null) {
-            if (layout == null) {
-                layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "[$p] $c $d: $m$n");
+    public static MemAppender createAppender(String name, Layout<? extends Serializable> layout, final Filter filter) {
+        return MemAppender.newBuilder().setName(name).setLayout(layout).setFilter(filter).build();
+    }
+
+    // Factory method to create the builder that the configuration fills in
+    @PluginBuilderFactory
+    public static <B extends Builder<B>> B newBuilder() {
+        return new Builder<B>().asBuilder();
+    }
+
+    // Class to build the MemAppender instance from the configuration. build() rejects settings that cannot be
+    // combined before anything is created, so a bad configuration never leaves a half-configured singleton.
+    public static class Builder<B extends Builder<B>> extends AbstractAppender.Builder<B>
+            implements org.apache.logging.log4j.core.util.Builder<MemAppender> {
+
+        // Storage of the retained events
+        @PluginBuilderAttribute
+        private StorageMode storageMode = StorageMode.HEAP;
+
+        @PluginBuilderAttribute
+        private long maxRetainedBytes = Long.MAX_VALUE;
+
+        @PluginBuilderAttribute
+        private long maxAgeMillis = Long.MAX_VALUE;
+
+        @PluginBuilderAttribute
+        private int stripes = 1;
+
+        @PluginBuilderAttribute
+        private String partitions;
+
+        @PluginBuilderAttribute
+        private boolean levelPriorityEviction;
+
+        @PluginBuilderAttribute
+        private String levelReservations;
+
+        // Ingest, indexing, formatting, spilling and metrics
+        @PluginBuilderAttribute
+        private int asyncQueueSize;
+
+        @PluginBuilderAttribute
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+        @PluginBuilderAttribute
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        @PluginBuilderAttribute
+        private boolean indexed;
+
+        @PluginBuilderAttribute
+        private int formattingParallelism = 1;
+
+        @PluginBuilderAttribute
+        private String spillDirectory;
+
+        @PluginBuilderAttribute
+        private long spillMaxBytes = DEFAULT_SPILL_MAX_BYTES;
+
+        @PluginBuilderAttribute
+        private boolean spillBackpressure;
+
+        @PluginBuilderAttribute
+        private boolean metrics;
+
+        @PluginBuilderAttribute
+        private boolean deferredFormatting;
+
+        // Flight recorder
+        @PluginBuilderAttribute
+        private String flightRecorderAppender;
+
+        @PluginBuilderAttribute
+        private String triggerLevel = "ERROR";
+
+        @PluginBuilderAttribute
+        private TriggerScope triggerScope = TriggerScope.THREAD;
+
+        @PluginBuilderAttribute
+        private int triggerContextEvents = DEFAULT_TRIGGER_CONTEXT_EVENTS;
+
+        @PluginBuilderAttribute
+        private long triggerContextMillis = Long.MAX_VALUE;
+
+        @PluginBuilderAttribute
+        private long triggerSuppressionMillis = DEFAULT_TRIGGER_SUPPRESSION_MILLIS;
+
+        // Methods to set each attribute (named after the configuration attributes)
+        public B setStorageMode(StorageMode storageMode) {
+            this.storageMode = storageMode;
+            return asBuilder();
+        }
+
+        public B setMaxRetainedBytes(long maxRetainedBytes) {
+            this.maxRetainedBytes = maxRetainedBytes;
+            return asBuilder();
+        }
+
+        public B setMaxAgeMillis(long maxAgeMillis) {
+            this.maxAgeMillis = maxAgeMillis;
+            return asBuilder();
+        }
+
+        public B setStripes(int stripes) {
+            this.stripes = stripes;
+            return asBuilder();
+        }
+
+        public B setPartitions(String partitions) {
+            this.partitions = partitions;
+            return asBuilder();
+        }
+
+        public B setLevelPriorityEviction(boolean levelPriorityEviction) {
+            this.levelPriorityEviction = levelPriorityEviction;
+            return asBuilder();
+        }
+
+        public B setLevelReservations(String levelReservations) {
+            this.levelReservations = levelReservations;
+            return asBuilder();
+        }
+
+        public B setAsyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+            return asBuilder();
+        }
+
+        public B setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return asBuilder();
+        }
+
+        public B setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return asBuilder();
+        }
+
+        public B setIndexed(boolean indexed) {
+            this.indexed = indexed;
+            return asBuilder();
+        }
+
+        public B setFormattingParallelism(int formattingParallelism) {
+            this.formattingParallelism = formattingParallelism;
+            return asBuilder();
+        }
+
+        public B setSpillDirectory(String spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return asBuilder();
+        }
+
+        public B setSpillMaxBytes(long spillMaxBytes) {
+            this.spillMaxBytes = spillMaxBytes;
+            return asBuilder();
+        }
+
+        public B setSpillBackpressure(boolean spillBackpressure) {
+            this.spillBackpressure = spillBackpressure;
+            return asBuilder();
+        }
+
+        public B setMetrics(boolean metrics) {
+            this.metrics = metrics;
+            return asBuilder();
+        }
+
+        public B setDeferredFormatting(boolean deferredFormatting) {
+            this.deferredFormatting = deferredFormatting;
+            return asBuilder();
+        }
+
+        public B setFlightRecorderAppender(String flightRecorderAppender) {
+            this.flightRecorderAppender = flightRecorderAppender;
+            return asBuilder();
+        }
+
+        public B setTriggerLevel(String triggerLevel) {
+            this.triggerLevel = triggerLevel;
+            return asBuilder();
+        }
+
+        public B setTriggerScope(TriggerScope triggerScope) {
+            this.triggerScope = triggerScope;
+            return asBuilder();
+        }
+
+        public B setTriggerContextEvents(int triggerContextEvents) {
+            this.triggerContextEvents = triggerContextEvents;
+            return asBuilder();
+        }
+
+        public B setTriggerContextMillis(long triggerContextMillis) {
+            this.triggerContextMillis = triggerContextMillis;
+            return asBuilder();
+        }
+
+        public B setTriggerSuppressionMillis(long triggerSuppressionMillis) {
+            this.triggerSuppressionMillis = triggerSuppressionMillis;
+            return asBuilder();
+        }
+
+        // Method to create the singleton from the settings, or return it if it already exists
+        @Override
+        public MemAppender build() {
+            validate();
+            MemAppender current = instance;
+            if (current != null) {
+                return current;
+            }
+            INSTANCE_LOCK.lock();
+            try {
+                if (instance != null) {
+                    return instance;
+                }
+                Layout<? extends Serializable> layout = getLayout();
+                if (layout == null) {
+                    layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "[$p] $c $d: $m$n");
+                }
+                MemAppender appender = new MemAppender(getName(), getFilter(), layout, null);
+                appender.setStorageMode(storageMode);
+                appender.setMaxRetainedBytes(maxRetainedBytes);
+                appender.setMaxAge(maxAgeMillis);
+                appender.setStripeCount(stripes);
+                if (partitions != null) {
+                    appender.setPartitionsByLoggerPrefix(parsePartitions(partitions));
+                }
+                if (levelPriorityEviction || levelReservations != null) {
+                    appender.setLevelPriorityEviction(levelReservations == null
+                        ? Map.of() : parseLevelReservations(levelReservations));
+                }
+                appender.setAsync(asyncQueueSize, waitStrategy, overflowPolicy);
+                appender.setIndexed(indexed);
+                appender.setFormattingParallelism(formattingParallelism);
+                if (spillDirectory != null) {
+                    appender.setSpill(Paths.get(spillDirectory), spillMaxBytes, spillBackpressure);
+                }
+                appender.setMetricsEnabled(metrics);
+                appender.setDeferredFormatting(deferredFormatting);
+                if (flightRecorderAppender != null) {
+                    Configuration configuration = getConfiguration();
+                    Appender downstream = configuration == null ? null
+                        : configuration.getAppender(flightRecorderAppender);
+                    if (downstream == null) {
+                        throw new IllegalArgumentException("Unknown flight recorder appender: "
+                            + flightRecorderAppender);
+                    }
+                    appender.setFlightRecorder(downstream, parseTriggerLevel(), null, triggerScope,
+                        triggerContextEvents, triggerContextMillis, triggerSuppressionMillis);
+                }
+                appender.start(); // Ensure the appender is started (NEW)
+                instance = appender;
+                return appender;
+            } finally {
+                INSTANCE_LOCK.unlock();
+            }
+        }
+
+        // Method to reject settings that are out of range or cannot be combined
+        private void validate() {
+            if (stripes < 1) {
+                throw new IllegalArgumentException("stripes must be positive: " + stripes);
+            }
+            if (asyncQueueSize < 0) {
+                throw new IllegalArgumentException("asyncQueueSize must not be negative: " + asyncQueueSize);
+            }
+            if (formattingParallelism < 1) {
+                throw new IllegalArgumentException("formattingParallelism must be positive: " + formattingParallelism);
+            }
+            if (maxRetainedBytes < 0 || maxAgeMillis < 0 || spillMaxBytes < 0) {
+                throw new IllegalArgumentException(
+                    "maxRetainedBytes, maxAgeMillis and spillMaxBytes must not be negative");
+            }
+            boolean levelPriority = levelPriorityEviction || levelReservations != null;
+            String storeFeature = partitions != null ? "partitions" : levelPriority ? "levelPriorityEviction" : null;
+            if (partitions != null && levelPriority) {
+                throw new IllegalArgumentException("partitions cannot be combined with levelPriorityEviction");
             }
-            instance = new MemAppender(name, filter, layout, null);
-            instance.start(); // Ensure the appender is started (NEW)
+            if (stripes > 1) {
+                String conflict = storeFeature != null ? storeFeature : spillDirectory != null ? "spillDirectory"
+                    : indexed ? "indexed" : maxAgeMillis != Long.MAX_VALUE ? "maxAgeMillis" : null;
+                if (conflict != null) {
+                    throw new IllegalArgumentException("stripes cannot be combined with " + conflict);
+                }
+            }
+            if (spillDirectory != null) {
+                String conflict = storeFeature != null ? storeFeature : maxAgeMillis != Long.MAX_VALUE
+                    ? "maxAgeMillis" : null;
+                if (conflict != null) {
+                    throw new IllegalArgumentException("spillDirectory cannot be combined with " + conflict);
+                }
+            }
+            if (indexed && storeFeature != null) {
+                throw new IllegalArgumentException("indexed cannot be combined with " + storeFeature);
+            }
+            if (flightRecorderAppender != null && parseTriggerLevel() == null) {
+                throw new IllegalArgumentException("Unknown trigger level: " + triggerLevel);
+            }
+        }
+
+        // Method to look up the trigger level by name, ignoring case like the level reservations
+        private Level parseTriggerLevel() {
+            return triggerLevel == null ? null : Level.getLevel(triggerLevel.trim().toUpperCase());
         }
-        return instance;
     }
 
 
@@ -75,47 +428,838 @@ public class MemAppender extends AbstractAppender {
     }
     
   
-    // Method to set the maximum size of the log events
+    // Method to set the maximum size of the log events (with partitions, the capacity of every partition
+    // without a capacity of its own)
     public void setMaxSize(int maxSize) {
-        this.maxSize = maxSize; 
+        logEvents.setCapacity(maxSize);
+    }
+
+    // Method to retrieve the maximum size of the log events
+    public int getMaxSize() {
+        return logEvents.getCapacity();
+    }
+
+    // Method to set the maximum estimated size in bytes of the retained events (oldest events are discarded first;
+    // with partitions, the budget is shared and the partition holding the most bytes is evicted from)
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        logEvents.setMaxRetainedBytes(maxRetainedBytes);
+    }
+
+    // Method to set the maximum age in milliseconds of the retained events, measured from their timestamps
+    // (Long.MAX_VALUE keeps events regardless of age). Expired events are counted as discarded, together with
+    // the events evicted by maxSize and the byte budget. Cannot be combined with striped storage or a spill tier.
+    public void setMaxAge(long maxAgeMillis) {
+        if (maxAgeMillis != Long.MAX_VALUE && logEvents instanceof StripedEventStore) {
+            throw new IllegalStateException("Retention by age cannot be combined with striped storage");
+        }
+        if (maxAgeMillis != Long.MAX_VALUE && spill != null) {
+            throw new IllegalStateException("Retention by age cannot be combined with a spill tier");
+        }
+        logEvents.setMaxAge(maxAgeMillis);
+    }
+
+    // Method to retrieve the maximum age in milliseconds of the retained events
+    public long getMaxAge() {
+        return logEvents.getMaxAge();
+    }
+
+    // Method to set how retained events are stored (applies to events appended from now on)
+    public void setStorageMode(StorageMode storageMode) {
+        logEvents.setStorageMode(storageMode);
+    }
+
+    // Method to retrieve how retained events are stored
+    public StorageMode getStorageMode() {
+        return logEvents.getStorageMode();
+    }
+
+    // Method to spread concurrent producers over the given number of buffers (1 keeps a single buffer).
+    // Must be called before the appender is started; retained events and settings are carried over.
+    public void setStripeCount(int stripeCount) {
+        if (isStarted()) {
+            throw new IllegalStateException("Stripe count cannot be changed after the appender has started");
+        }
+        String storeFeature = customStoreFeature();
+        if (stripeCount != 1 && logEvents.getMaxAge() != Long.MAX_VALUE) {
+            throw new IllegalStateException("Striped storage cannot be combined with retention by age");
+        }
+        if (spill != null || storeFeature != null) {
+            if (stripeCount == 1) {
+                return; // already a single buffer per tier or partition
+            }
+            throw new IllegalStateException("Striped storage cannot be combined with "
+                + (spill != null ? "a spill tier" : storeFeature));
+        }
+        LogEventStore current = logEvents;
+        replaceStore(stripeCount == 1
+            ? new LogEventBuffer(current.getCapacity(), current.getStorageMode())
+            : new StripedEventStore(stripeCount, current.getCapacity(), current.getStorageMode()));
+    }
+
+    // Method to move the retained events and settings of the current store into a new one
+    private void replaceStore(LogEventStore replacement) {
+        LogEventStore current = logEvents;
+        replacement.setMaxRetainedBytes(current.getMaxRetainedBytes());
+        replacement.setMaxAge(current.getMaxAge());
+        current.toList().forEach(replacement::append);
+        logEvents = replacement;
+        if (index != null) {
+            index = buildIndex(replacement);
+        }
+        updateEvictionListener();
+    }
+
+    // Method to keep a separate buffer for the loggers under each prefix (a logger belongs to the longest
+    // prefix that equals its name or one of its ancestors in the logger hierarchy), so that a chatty logger
+    // only evicts its own events. Each partition keeps up to its capacity in the map, or maxSize if the
+    // capacity is null; other loggers share DEFAULT_PARTITION. A null map keeps a single buffer again.
+    // Must be called before the appender is started and cannot be combined with striping, spilling or
+    // indexing; retained events are carried over.
+    public void setPartitionsByLoggerPrefix(Map<String, Integer> prefixCapacities) {
+        checkStoreReplaceable("Partitions");
+        LogEventStore current = logEvents;
+        replaceStore(prefixCapacities == null
+            ? new LogEventBuffer(current.getCapacity(), current.getStorageMode())
+            : new PartitionedEventStore(prefixCapacities, current.getCapacity(), current.getStorageMode()));
+    }
+
+    // Method to keep a separate buffer for every key the function returns (a null key selects
+    // DEFAULT_PARTITION). Partitions are created as keys appear and keep up to maxSize events unless
+    // setPartitionCapacity gave them a capacity of their own; the function runs on every append, so it
+    // should be cheap and return few distinct keys (once MAX_PARTITIONS partitions exist, new keys share
+    // DEFAULT_PARTITION). A null function keeps a single buffer again. Same restrictions as
+    // setPartitionsByLoggerPrefix.
+    public void setPartitionKey(Function<LogEvent, String> keyFunction) {
+        checkStoreReplaceable("Partitions");
+        LogEventStore current = logEvents;
+        replaceStore(keyFunction == null
+            ? new LogEventBuffer(current.getCapacity(), current.getStorageMode())
+            : new PartitionedEventStore(keyFunction, current.getCapacity(), current.getStorageMode()));
+    }
+
+    // Method to check that the single buffer can be replaced by the store of the given feature
+    private void checkStoreReplaceable(String feature) {
+        if (isStarted()) {
+            throw new IllegalStateException(feature + " cannot be changed after the appender has started");
+        }
+        if (logEvents instanceof StripedEventStore) {
+            throw new IllegalStateException(feature + " cannot be combined with striped storage");
+        }
+        if (spill != null) {
+            throw new IllegalStateException(feature + " cannot be combined with a spill tier");
+        }
+        if (index != null) {
+            throw new IllegalStateException(feature + " cannot be combined with indexing");
+        }
+    }
+
+    // Method to describe the feature that replaced the single buffer (partitions or level priority eviction),
+    // or return null if there is none
+    private String customStoreFeature() {
+        LogEventStore store = logEvents;
+        if (store instanceof PartitionedEventStore) {
+            return "partitions";
+        }
+        if (store instanceof LevelPriorityEventStore) {
+            return "level priority eviction";
+        }
+        return null;
+    }
+
+    // Method to check whether events are kept in separate partitions
+    public boolean isPartitioned() {
+        return logEvents instanceof PartitionedEventStore;
     }
 
-    // Method to append a log event to the list of log events
+    // Method to give one partition a capacity of its own (evicting its oldest events if it is now over it)
+    public void setPartitionCapacity(String partition, int capacity) {
+        partitionedStore().setPartitionCapacity(partition, capacity);
+    }
+
+    // Method to retrieve the capacity of a partition
+    public int getPartitionCapacity(String partition) {
+        return partitionedStore().getPartitionCapacity(partition);
+    }
+
+    // Method to retrieve the names of the partitions that exist so far
+    public Set<String> getPartitionNames() {
+        return partitionedStore().getPartitionNames();
+    }
+
+    // Method to retrieve a copy of the current logs of one partition, oldest first
+    public List<LogEvent> getCurrentLogs(String partition) {
+        PartitionedEventStore store = partitionedStore();
+        awaitIngested();
+        return store.toList(partition);
+    }
+
+    // Method to retrieve the log events of one partition as a list of strings
+    public List<String> getEventStrings(String partition) {
+        Layout<? extends Serializable> currentLayout = getLayout();
+        if (currentLayout == null) {
+            throw new IllegalStateException("Layout is not set. Cannot get event strings without a layout.");
+        }
+        List<LogEvent> events = getCurrentLogs(partition);
+        BulkFormatter formatter = bulkFormatter;
+        if (formatter != null) {
+            return formatter.format(events, formatterFor(currentLayout));
+        }
+        return events.stream().map(formatterFor(currentLayout)).collect(Collectors.toList());
+    }
+
+    // Method to retrieve the number of events one partition discarded
+    public long getDiscardedLogCount(String partition) {
+        PartitionedEventStore store = partitionedStore();
+        awaitIngested();
+        return store.getDiscardedCount(partition);
+    }
+
+    // Method to retrieve the partitioned store or fail if the appender is not partitioned
+    private PartitionedEventStore partitionedStore() {
+        LogEventStore store = logEvents;
+        if (!(store instanceof PartitionedEventStore)) {
+            throw new IllegalStateException("Appender is not partitioned");
+        }
+        return (PartitionedEventStore) store;
+    }
+
+    // Method to parse partitions configured as "prefix=capacity,prefix,..." (a prefix without a capacity
+    // uses maxSize)
+    static Map<String, Integer> parsePartitions(String partitions) {
+        Map<String, Integer> prefixCapacities = new LinkedHashMap<>();
+        for (String entry : partitions.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf('=');
+            if (separator < 0) {
+                prefixCapacities.put(trimmed, null);
+                continue;
+            }
+            String capacity = trimmed.substring(separator + 1).trim();
+            try {
+                prefixCapacities.put(trimmed.substring(0, separator).trim(), Integer.valueOf(capacity));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid partition capacity in: " + trimmed, e);
+            }
+        }
+        return prefixCapacities;
+    }
+
+    // Method to evict the least severe events first instead of the oldest: when the appender is full, the
+    // oldest event of the least severe level that holds more than its reservation is evicted (levels that
+    // are missing from the map reserve nothing), so a burst of DEBUG events no longer pushes out WARN and
+    // ERROR events. Custom levels share the reservation of the nearest standard level that is not more
+    // severe. maxSize and the byte budget still bound all levels together, and discards are counted per
+    // level. A null map evicts oldest-first again. Same restrictions as setPartitionsByLoggerPrefix.
+    public void setLevelPriorityEviction(Map<Level, Integer> levelReservations) {
+        checkStoreReplaceable("Level priority eviction");
+        LogEventStore current = logEvents;
+        replaceStore(levelReservations == null
+            ? new LogEventBuffer(current.getCapacity(), current.getStorageMode())
+            : new LevelPriorityEventStore(levelReservations, current.getCapacity(), current.getStorageMode()));
+    }
+
+    // Method to check whether the least severe events are evicted first
+    public boolean isLevelPriorityEviction() {
+        return logEvents instanceof LevelPriorityEventStore;
+    }
+
+    // Method to retrieve the number of events reserved for a level
+    public int getLevelReservation(Level level) {
+        return levelPriorityStore().getReservation(level);
+    }
+
+    // Method to retrieve the number of discarded events per level, most severe first (levels without
+    // discards are left out; events rejected by the async queue are only counted in getDiscardedLogCount)
+    public Map<Level, Long> getDiscardedLogCountByLevel() {
+        LevelPriorityEventStore store = levelPriorityStore();
+        awaitIngested();
+        return store.getDiscardedCountByLevel();
+    }
+
+    // Method to retrieve the discards the store counted per level (empty unless evicting by level priority)
+    Map<Level, Long> getStoreDiscardedCountByLevel() {
+        LogEventStore store = logEvents;
+        if (!(store instanceof LevelPriorityEventStore)) {
+            return Map.of();
+        }
+        awaitIngested();
+        return ((LevelPriorityEventStore) store).getDiscardedCountByLevel();
+    }
+
+    // Method to retrieve the level priority store or fail if the appender evicts oldest-first
+    private LevelPriorityEventStore levelPriorityStore() {
+        LogEventStore store = logEvents;
+        if (!(store instanceof LevelPriorityEventStore)) {
+            throw new IllegalStateException("Appender does not evict by level priority");
+        }
+        return (LevelPriorityEventStore) store;
+    }
+
+    // Method to parse level reservations configured as "LEVEL=count,..."
+    static Map<Level, Integer> parseLevelReservations(String levelReservations) {
+        Map<Level, Integer> reservations = new LinkedHashMap<>();
+        for (String entry : levelReservations.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            Level level = separator < 0 ? null : Level.getLevel(trimmed.substring(0, separator).trim().toUpperCase());
+            if (level == null) {
+                throw new IllegalArgumentException("Invalid level reservation: " + trimmed);
+            }
+            try {
+                reservations.put(level, Integer.valueOf(trimmed.substring(separator + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid level reservation: " + trimmed, e);
+            }
+        }
+        return reservations;
+    }
+
+    // Method to retrieve the number of buffers concurrent producers are spread over
+    public int getStripeCount() {
+        LogEventStore current = logEvents;
+        return current instanceof StripedEventStore ? ((StripedEventStore) current).getStripeCount() : 1;
+    }
+
+    // Method to set how many threads getEventStrings and printLogs use to format the events (1 formats on
+    // the caller's thread). The output keeps the original order; the layout must be safe for concurrent use.
+    public void setFormattingParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        BulkFormatter previous = bulkFormatter;
+        if (previous != null && previous.getParallelism() == parallelism) {
+            return;
+        }
+        bulkFormatter = parallelism == 1 ? null : new BulkFormatter(parallelism);
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    // Method to retrieve how many threads are used to format the events
+    public int getFormattingParallelism() {
+        BulkFormatter formatter = bulkFormatter;
+        return formatter == null ? 1 : formatter.getParallelism();
+    }
+
+    // Method to maintain indexes by level, logger and timestamp so that query() only visits matching events.
+    // Must be called before the appender is started; the retained events are indexed immediately.
+    public void setIndexed(boolean indexed) {
+        if (isStarted()) {
+            throw new IllegalStateException("Indexing cannot be changed after the appender has started");
+        }
+        if (indexed && customStoreFeature() != null) {
+            throw new IllegalStateException("Indexing cannot be combined with " + customStoreFeature());
+        }
+        index = indexed ? buildIndex(logEvents) : null;
+    }
+
+    // Method to check whether the retained events are indexed
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    // Method to keep the events evicted from memory (by maxSize or the byte budget) in memory-mapped files
+    // under the given directory, up to maxBytes on disk; a null directory discards them again. Must be called
+    // before the appender is started and cannot be combined with striped storage. Reads return the spilled
+    // events before the retained ones; spilled events still count as discarded from memory.
+    public void setSpill(Path directory, long maxBytes) {
+        setSpill(directory, maxBytes, false);
+    }
+
+    // Method to configure the spill tier as above. When the disk falls behind, evicted events are dropped and
+    // counted as lost, unless backpressure is enabled, in which case evicting threads wait for the writer.
+    public void setSpill(Path directory, long maxBytes, boolean backpressure) {
+        if (isStarted()) {
+            throw new IllegalStateException("Spill tier cannot be changed after the appender has started");
+        }
+        if (directory != null && logEvents instanceof StripedEventStore) {
+            throw new IllegalStateException("Striped storage cannot be combined with a spill tier");
+        }
+        if (directory != null && logEvents.getMaxAge() != Long.MAX_VALUE) {
+            throw new IllegalStateException("A spill tier cannot be combined with retention by age");
+        }
+        if (directory != null && customStoreFeature() != null) {
+            throw new IllegalStateException("A spill tier cannot be combined with " + customStoreFeature());
+        }
+        SpillTier previous = spill;
+        SpillTier replacement = directory == null ? null
+            : new SpillTier("MemAppender-" + getName() + "-spill", directory, maxBytes, logEvents.getStartSequence(),
+                backpressure);
+        spill = replacement;
+        updateEvictionListener();
+        if (previous != null) {
+            previous.delete();
+        }
+    }
+
+    // Method to retrieve the number of evicted events that are kept in the spill tier
+    public long getSpilledLogCount() {
+        awaitIngested();
+        SpillTier current = spill;
+        return current == null ? 0 : current.getSpilledCount(logEvents.getStartSequence());
+    }
+
+    // Method to retrieve the number of evicted events the spill tier could not keep (dropped because the writer
+    // fell behind or by its size cap, too large for a spill file or not written because of an I/O error)
+    public long getSpillLostCount() {
+        awaitIngested();
+        SpillTier current = spill;
+        return current == null ? 0 : current.getLostCount(logEvents.getStartSequence());
+    }
+
+    // Method to collect append and format metrics and expose them over JMX as
+    // assign251_2:type=MemAppender,name=<name> while the appender runs. Must be called before the appender is
+    // started. Per-level discard counts need a single buffer or level priority eviction; with striped or
+    // partitioned storage only overflow discards are counted by level.
+    public void setMetricsEnabled(boolean enabled) {
+        if (isStarted()) {
+            throw new IllegalStateException("Metrics cannot be changed after the appender has started");
+        }
+        metrics = enabled ? new MemAppenderMetrics(this) : null;
+        updateEvictionListener();
+    }
+
+    // Method to retrieve the metrics of the appender, or null if metrics are disabled
+    public MemAppenderMetricsMXBean getMetrics() {
+        return metrics;
+    }
+
+    // Method to tell the spill tier and the metrics about evicted ranges (striped, partitioned and level
+    // priority stores do not report them)
+    private void updateEvictionListener() {
+        LogEventStore store = logEvents;
+        if (store instanceof StripedEventStore || customStoreFeature() != null) {
+            return;
+        }
+        SpillTier currentSpill = spill;
+        MemAppenderMetrics currentMetrics = metrics;
+        if (currentSpill != null && currentMetrics != null) {
+            store.setEvictionListener((from, to, events) -> {
+                currentSpill.evicted(from, to, events);
+                currentMetrics.evicted(from, to, events);
+            });
+        } else {
+            store.setEvictionListener(currentSpill != null ? currentSpill : currentMetrics);
+        }
+    }
+
+    // Method to create an index over the events already retained by a store
+    private static EventIndex buildIndex(LogEventStore store) {
+        List<LogEvent> retained = store.toList();
+        long first = store.getTailSequence() - retained.size();
+        EventIndex created = new EventIndex(store, first);
+        for (int i = 0; i < retained.size(); i++) {
+            created.record(first + i, retained.get(i));
+        }
+        return created;
+    }
+
+    // Method to store parameterized messages as their pattern and a snapshot of their parameters, and format
+    // them only when the event is read or formatted (instead of when it is appended). Mutable parameters are
+    // rendered to text at append time, so later changes to them do not show. Only heap storage benefits:
+    // off-heap records always hold the formatted text.
+    public void setDeferredFormatting(boolean deferredFormatting) {
+        this.deferredFormatting = deferredFormatting;
+    }
+
+    // Method to check whether message formatting is deferred until the events are read
+    public boolean isDeferredFormatting() {
+        return deferredFormatting;
+    }
+
+    // Method to store events through a queue drained by a background thread instead of on the caller's
+    // thread (a queue size of zero switches back to synchronous storage). Must be called before the
+    // appender is started; the queue is drained when the appender stops.
+    public void setAsync(int queueSize, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        if (isStarted()) {
+            throw new IllegalStateException("Async mode cannot be changed after the appender has started");
+        }
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("Queue size must not be negative: " + queueSize);
+        }
+        this.asyncQueueSize = queueSize;
+        this.waitStrategy = waitStrategy == null ? WaitStrategy.PARK : waitStrategy;
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.BLOCK : overflowPolicy;
+    }
+
+    // Method to forward the context of severe events to a downstream appender, like a flight recorder. A stored
+    // event at least as severe as triggerLevel that triggerFilter does not deny (a null filter accepts every
+    // event) triggers a forward of up to contextEvents preceding events of the same scope that are at most
+    // contextMillis older than it (Long.MAX_VALUE for any age), followed by the event itself. A background
+    // thread forwards in batches; a trigger within suppressionMillis of the last forwarded trigger of its
+    // scope is suppressed, and no event is forwarded twice. A null downstream turns the recorder off. Must be
+    // called before the appender is started; the downstream appender is not started or stopped by it.
+    public void setFlightRecorder(Appender downstream, Level triggerLevel, Filter triggerFilter, TriggerScope scope,
+            int contextEvents, long contextMillis, long suppressionMillis) {
+        if (isStarted()) {
+            throw new IllegalStateException("Flight recorder cannot be changed after the appender has started");
+        }
+        flightRecorder = downstream == null ? null
+            : new FlightRecorder("MemAppender-" + getName() + "-recorder", downstream, triggerLevel, triggerFilter,
+                scope, contextEvents, contextMillis, suppressionMillis, () -> logEvents,
+                (event, e) -> error("Failed to forward log event", event, e));
+    }
+
+    // Method to retrieve the number of events that met the flight recorder's trigger level and filter
+    public long getTriggeredLogCount() {
+        FlightRecorder recorder = flightRecorder;
+        return recorder == null ? 0 : recorder.getTriggeredCount();
+    }
+
+    // Method to retrieve the number of flight recorder triggers that were suppressed
+    public long getSuppressedTriggerCount() {
+        FlightRecorder recorder = flightRecorder;
+        return recorder == null ? 0 : recorder.getSuppressedCount();
+    }
+
+    // Method to retrieve the number of events the flight recorder forwarded downstream, triggers included
+    public long getForwardedLogCount() {
+        FlightRecorder recorder = flightRecorder;
+        if (recorder == null) {
+            return 0;
+        }
+        awaitIngested();
+        recorder.awaitForwarded();
+        return recorder.getForwardedCount();
+    }
+
+    // Method to check whether events are stored by a background thread
+    public boolean isAsync() {
+        return asyncQueueSize > 0;
+    }
+
+    // Method to start the appender (and the background consumer in async mode)
+    @Override
+    public void start() {
+        if (asyncQueueSize > 0) {
+            AsyncIngestQueue queue = new AsyncIngestQueue("MemAppender-" + getName() + "-ingest", asyncQueueSize,
+                waitStrategy, overflowPolicy, this::storeEvent,
+                (event, e) -> error("Failed to store log event", event, e));
+            queue.start();
+            asyncQueue = queue;
+        }
+        SpillTier currentSpill = spill;
+        if (currentSpill != null) {
+            currentSpill.start();
+        }
+        FlightRecorder recorder = flightRecorder;
+        if (recorder != null) {
+            recorder.start();
+        }
+        MemAppenderMetrics currentMetrics = metrics;
+        if (currentMetrics != null) {
+            try {
+                currentMetrics.register();
+            } catch (JMException e) {
+                error("Failed to register metrics as " + currentMetrics.getObjectName() + ": " + e.getMessage());
+            }
+        }
+        super.start();
+    }
+
+    // Method to stop the appender, draining the async queue into the retained events first
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        boolean drained = true;
+        AsyncIngestQueue queue = asyncQueue;
+        if (queue != null) {
+            try {
+                drained = queue.close(timeout, timeUnit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                drained = false;
+            }
+            asyncQueue = null;
+        }
+        FlightRecorder recorder = flightRecorder;
+        if (recorder != null) {
+            try {
+                drained &= recorder.stop(timeout, timeUnit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                drained = false;
+            }
+        }
+        SpillTier currentSpill = spill;
+        if (currentSpill != null) {
+            try {
+                currentSpill.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                drained = false;
+            }
+        }
+        MemAppenderMetrics currentMetrics = metrics;
+        if (currentMetrics != null) {
+            try {
+                currentMetrics.unregister();
+            } catch (JMException e) {
+                error("Failed to unregister metrics " + currentMetrics.getObjectName() + ": " + e.getMessage());
+            }
+        }
+        boolean stopped = super.stop(timeout, timeUnit, false);
+        setStopped();
+        return drained && stopped;
+    }
+
+    // Method to append a log event to the buffer of log events (O(1), safe for concurrent producers)
     @Override
     public void append(LogEvent event) {
-        if (logEvents.size() >= maxSize) {
-            logEvents.remove(0);
-            discardedLogCount++;
+        MemAppenderMetrics currentMetrics = metrics;
+        if (currentMetrics == null) {
+            appendEvent(event);
+            return;
+        }
+        if (!currentMetrics.sample()) {
+            appendEvent(event);
+            return;
+        }
+        long startTime = System.nanoTime();
+        appendEvent(event);
+        currentMetrics.recordAppendLatency(System.nanoTime() - startTime);
+    }
+
+    // Method to hand an event to the async queue or store it directly
+    private void appendEvent(LogEvent event) {
+        if (deferredFormatting) {
+            event = DeferredMessage.defer(event);
+        }
+        AsyncIngestQueue queue = asyncQueue;
+        if (queue != null) {
+            switch (queue.offer(event)) {
+                case ACCEPTED:
+                    return;
+                case REJECTED:
+                    MemAppenderMetrics currentMetrics = metrics;
+                    if (currentMetrics != null) {
+                        currentMetrics.countRejected(event.getLevel(), overflowPolicy == OverflowPolicy.DISCARD);
+                    }
+                    if (overflowPolicy == OverflowPolicy.DISCARD) {
+                        logEvents.addDiscarded(1);
+                    } else {
+                        droppedLogs.increment();
+                    }
+                    return;
+                default:
+                    break; // the queue was closed meanwhile, so store the event directly
+            }
+        }
+        storeEvent(event);
+    }
+
+    // Method to store an event and add it to the indexes (an event that cannot be stored is skipped by the
+    // index, which would otherwise wait for its sequence forever)
+    private void storeEvent(LogEvent event) {
+        long seq;
+        try {
+            seq = logEvents.append(event);
+        } catch (LogEventStore.AppendFailedException e) {
+            EventIndex current = index;
+            if (current != null) {
+                current.skip(e.getSequence());
+            }
+            throw e;
+        }
+        EventIndex current = index;
+        if (current != null) {
+            current.record(seq, event);
+        }
+        FlightRecorder recorder = flightRecorder;
+        if (recorder != null) {
+            recorder.stored(seq, event);
+        }
+    }
+
+    // Method to wait until the events queued so far in async mode have been stored
+    private void awaitIngested() {
+        AsyncIngestQueue queue = asyncQueue;
+        if (queue != null) {
+            queue.awaitConsumed();
         }
-        logEvents.add(event.toImmutable());
     }
 
     // REQUIRED Method to retrieve the number of discarded log events
     public long getDiscardedLogCount() {
-        return discardedLogCount;
+        awaitIngested();
+        return logEvents.getDiscardedCount();
+    }
+
+    // Method to retrieve the number of events dropped because the async queue was full (DROP policy)
+    public long getDroppedLogCount() {
+        return droppedLogs.sum();
     }
 
-    // REQUIRED Method to retrieve a copy of the current logs
+    // Method to retrieve the number of events stored since the appender was created (the store numbers them)
+    long getStoredCount() {
+        awaitIngested();
+        return logEvents.getTailSequence();
+    }
+
+    // Method to retrieve the number of events retained in memory
+    public int getRetainedCount() {
+        awaitIngested();
+        return logEvents.size();
+    }
+
+    // Method to retrieve the estimated size in bytes of the retained events
+    // (estimated heap size for HEAP storage, encoded record size for OFF_HEAP storage)
+    public long getRetainedBytes() {
+        awaitIngested();
+        return logEvents.getRetainedBytes();
+    }
+
+    // REQUIRED Method to retrieve a copy of the current logs (including the spilled ones)
     public List<LogEvent> getCurrentLogs() {
-        return new ArrayList<>(logEvents);
+        awaitIngested();
+        return spill == null ? logEvents.toList() : new ArrayList<>(allTiers());
+    }
+
+    // Method to combine the spilled events with a snapshot of the retained events, oldest first
+    private List<LogEvent> allTiers() {
+        long[] range = new long[2];
+        List<LogEvent> retained = logEvents.snapshot(range);
+        SpillTier current = spill;
+        if (current == null) {
+            return retained;
+        }
+        List<LogEvent> events = current.read(range[0]);
+        events.addAll(retained);
+        return Collections.unmodifiableList(events);
+    }
+
+    // Method to retrieve the current logs that match the query, oldest first (with indexing enabled the cost
+    // depends on the number of matching events rather than on the number of retained events)
+    public List<LogEvent> query(EventQuery query) {
+        awaitIngested();
+        EventIndex current = index;
+        if (current == null) {
+            return allTiers().stream().filter(query::matches).collect(Collectors.toList());
+        }
+        SpillTier currentSpill = spill;
+        if (currentSpill == null) {
+            return current.query(query);
+        }
+        // Spilled events are not indexed, so they are filtered while decoding
+        List<LogEvent> events = new ArrayList<>();
+        for (LogEvent event : currentSpill.read(logEvents.getStartSequence())) {
+            if (query.matches(event)) {
+                events.add(event);
+            }
+        }
+        events.addAll(current.query(query));
+        return events;
+    }
+
+    // Method to retrieve an immutable view of the current logs without copying them (later appends and
+    // evictions do not change the view; holding on to it keeps the events it covers in memory). With a spill
+    // tier the spilled events are decoded and placed in front of the view.
+    public List<LogEvent> getSnapshot() {
+        awaitIngested();
+        return allTiers();
     }
 
     // REQUIRED Method to retrieve the log events as a list of strings
     public List<String> getEventStrings() {
-        if (getLayout() == null) {
+        BulkFormatter formatter = bulkFormatter;
+        if (formatter == null) {
+            return streamEventStrings().collect(Collectors.toList());
+        }
+        Layout<? extends Serializable> currentLayout = getLayout();
+        if (currentLayout == null) {
             throw new IllegalStateException("Layout is not set. Cannot get event strings without a layout.");
         }
-        return logEvents.stream()
-            .map(event -> getLayout().toSerializable(event).toString())
-            .collect(Collectors.toList());
+        awaitIngested();
+        return formatter.format(allTiers(), formatterFor(currentLayout));
+    }
+
+    // Method to retrieve the log events as a lazily formatted stream of strings over a snapshot of the
+    // current logs (events are only formatted as the stream is consumed, so limit or takeWhile stop early)
+    public Stream<String> streamEventStrings() {
+        Layout<? extends Serializable> currentLayout = getLayout();
+        if (currentLayout == null) {
+            throw new IllegalStateException("Layout is not set. Cannot get event strings without a layout.");
+        }
+        awaitIngested();
+        return allTiers().stream()
+            .map(formatterFor(currentLayout));
     }   
+
+    // Method to create the function that formats one event with the layout (timing a sample of the calls
+    // when metrics are enabled)
+    private Function<LogEvent, String> formatterFor(Layout<? extends Serializable> currentLayout) {
+        MemAppenderMetrics currentMetrics = metrics;
+        if (currentMetrics == null) {
+            return event -> currentLayout.toSerializable(event).toString();
+        }
+        return event -> {
+            if (!currentMetrics.sample()) {
+                return currentLayout.toSerializable(event).toString();
+            }
+            long startTime = System.nanoTime();
+            String formatted = currentLayout.toSerializable(event).toString();
+            currentMetrics.recordFormatLatency(System.nanoTime() - startTime);
+            return formatted;
+        };
+    }
+
     // REQUIRED Method to print the log events
     public void printLogs() {
         if (getLayout() == null) {
             throw new IllegalStateException("Layout is not set. Cannot print logs without a layout.");
         }
-        logEvents.forEach(event -> System.out.println(getLayout().toSerializable(event)));
-        logEvents.clear();
+        // Only clear the events that were copied, so events appended meanwhile are kept. The copied events
+        // are claimed before they are printed: those evicted by concurrent appends while they were copied
+        // have been counted as discarded (or spilled), so they are left out rather than counted twice.
+        awaitIngested();
+        long[] printedUpTo = new long[1];
+        List<LogEvent> copied = logEvents.copyRange(printedUpTo);
+        long clearedFrom = logEvents.clearUpTo(printedUpTo[0]);
+        int claimed = (int) Math.min(printedUpTo[0] - clearedFrom, copied.size());
+        List<LogEvent> printed = copied.subList(copied.size() - claimed, copied.size());
+        SpillTier currentSpill = spill;
+        if (currentSpill != null) {
+            List<LogEvent> spilled = currentSpill.read(clearedFrom);
+            spilled.addAll(printed);
+            printed = spilled;
+        }
+        BulkFormatter formatter = bulkFormatter;
+        if (formatter != null) {
+            formatter.format(printed, formatterFor(getLayout())).forEach(System.out::println);
+        } else {
+            printed.stream().map(formatterFor(getLayout())).forEach(System.out::println);
+        }
+        if (currentSpill != null) {
+            currentSpill.clearBefore(printedUpTo[0]);
+        }
+    }
+
+    // Method to write the current logs (including the spilled ones) to a compact binary dump at the current
+    // position of the channel and return the number of events written. The events are not formatted and stay
+    // in the appender; LogDumpReader reads the dump back by time range and level.
+    public long dumpLogs(FileChannel channel) {
+        awaitIngested();
+        try (LogDumpWriter writer = new LogDumpWriter(channel)) {
+            allTiers().forEach(writer::write);
+            return writer.getEventCount();
+        }
+    }
+
+    // Method to write the current logs to a compact binary dump in the given file, replacing its contents
+    public long dumpLogs(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return dumpLogs(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write log dump " + file, e);
+        }
     }
 
     // New method for stress testing
@@ -130,8 +1274,13 @@ public class MemAppender extends AbstractAppender {
 
     // Method to clear the log events
     public void clear() {
+        awaitIngested();
         logEvents.clear();
-        discardedLogCount = 0;
+        SpillTier currentSpill = spill;
+        if (currentSpill != null) {
+            currentSpill.clearBefore(logEvents.getStartSequence());
+        }
+        droppedLogs.reset();
     }
 
      
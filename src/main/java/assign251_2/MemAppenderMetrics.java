@@ -0,0 +1,274 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Class to collect the metrics of one MemAppender and expose them over JMX.
+//
+// Producers only touch striped counters: a LongAdder per level and a LatencyHistogram whose stripes are
+// selected by thread id. Appends are not counted separately (the store already numbers them), and latencies
+// are timed on one call in SAMPLE_RATE, so most appends only pay for a random number instead of two clock
+// reads. Discards are counted by level from the ranges the store reports as evicted; off-heap records are
+// not decoded for this.
+final class MemAppenderMetrics implements MemAppenderMetricsMXBean, LogEventStore.EvictionListener {
+
+    // One call in SAMPLE_RATE is timed (a power of two)
+    static final int SAMPLE_RATE = 64;
+
+    // Minimum interval between two rate samples
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final MemAppender appender;
+    private final ObjectName objectName;
+
+    // Levels with a counter of their own, so that the common case needs no map lookup
+    private static final Level[] STANDARD_LEVELS = {
+        Level.OFF, Level.FATAL, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL
+    };
+
+    // Counters updated by producers (discards of custom levels are kept in the map)
+    private final LongAdder[] standardDiscards = new LongAdder[STANDARD_LEVELS.length];
+    private final Map<Level, LongAdder> customDiscards = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram appendLatency = new LatencyHistogram();
+    private final LatencyHistogram formatLatency = new LatencyHistogram();
+
+    // Most recent rate sample (replaced when a read finds it older than RATE_INTERVAL_NANOS)
+    private final AtomicReference<RateSample> rates;
+
+    // Constructor to initialize the metrics of an appender
+    MemAppenderMetrics(MemAppender appender) {
+        this.appender = appender;
+        for (int i = 0; i < standardDiscards.length; i++) {
+            standardDiscards[i] = new LongAdder();
+        }
+        try {
+            this.objectName = new ObjectName("assign251_2:type=MemAppender,name=" + ObjectName.quote(
+                String.valueOf(appender.getName())));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid appender name for JMX: " + appender.getName(), e);
+        }
+        this.rates = new AtomicReference<>(new RateSample(System.nanoTime(), 0, Map.of(), 0, Map.of()));
+    }
+
+    // === Section 1. Registration
+
+    // Method to retrieve the name the metrics are registered under
+    ObjectName getObjectName() {
+        return objectName;
+    }
+
+    // Method to register the metrics with the platform MBean server
+    void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    }
+
+    // Method to unregister the metrics if they are registered
+    void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    // === Section 2. Recording
+
+    // Method to decide whether the current call should be timed
+    boolean sample() {
+        return (ThreadLocalRandom.current().nextInt() & (SAMPLE_RATE - 1)) == 0;
+    }
+
+    // Method to record the time spent in one append
+    void recordAppendLatency(long nanos) {
+        appendLatency.record(nanos);
+    }
+
+    // Method to record the time spent formatting one event
+    void recordFormatLatency(long nanos) {
+        formatLatency.record(nanos);
+    }
+
+    // Method to count a discarded event by its level (events without a level are counted as OFF)
+    void countDiscard(Level level) {
+        int index = standardIndex(level == null ? Level.OFF : level);
+        if (index >= 0) {
+            standardDiscards[index].increment();
+        } else {
+            customDiscards.computeIfAbsent(level, k -> new LongAdder()).increment();
+        }
+    }
+
+    // Method to count an event the async queue rejected (counted as a discard under the DISCARD policy)
+    void countRejected(Level level, boolean discarded) {
+        rejected.increment();
+        if (discarded) {
+            countDiscard(level);
+        }
+    }
+
+    // Method to find the counter of a standard level, or return -1 for a custom level
+    private static int standardIndex(Level level) {
+        int index;
+        switch (level.intLevel()) {
+            case 0: index = 0; break;
+            case 100: index = 1; break;
+            case 200: index = 2; break;
+            case 300: index = 3; break;
+            case 400: index = 4; break;
+            case 500: index = 5; break;
+            case 600: index = 6; break;
+            case Integer.MAX_VALUE: index = 7; break;
+            default: return -1;
+        }
+        return STANDARD_LEVELS[index] == level ? index : -1; // levels are canonical instances
+    }
+
+    // Method called by the store for every range that leaves it (cleared ranges are not discards)
+    @Override
+    public void evicted(long from, long to, List<LogEvent> events) {
+        if (events == null) {
+            return;
+        }
+        if (events instanceof LogEventStore.LevelView) {
+            LogEventStore.LevelView levels = (LogEventStore.LevelView) events;
+            for (int i = 0; i < events.size(); i++) {
+                countDiscard(levels.levelAt(i));
+            }
+        } else {
+            events.forEach(event -> countDiscard(event.getLevel()));
+        }
+    }
+
+    // === Section 3. JMX attributes
+
+    @Override
+    public int getRetainedCount() {
+        return appender.getRetainedCount();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return appender.getRetainedBytes();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return appender.getMaxSize();
+    }
+
+    // Method to retrieve the number of appended events (the events the store has numbered plus the events
+    // rejected by the async queue, so producers do not need a counter of their own)
+    @Override
+    public long getAppendCount() {
+        return appender.getStoredCount() + rejected.sum();
+    }
+
+    @Override
+    public double getAppendRate() {
+        return currentRates().appendRate();
+    }
+
+    @Override
+    public long getDiscardedCount() {
+        return appender.getDiscardedLogCount();
+    }
+
+    @Override
+    public long getSpillLostCount() {
+        return appender.getSpillLostCount();
+    }
+
+    @Override
+    public Map<String, Long> getDiscardedCountByLevel() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (int i = 0; i < STANDARD_LEVELS.length; i++) {
+            long count = standardDiscards[i].sum();
+            if (count > 0) {
+                counts.put(STANDARD_LEVELS[i].name(), count);
+            }
+        }
+        customDiscards.forEach((level, counter) -> counts.put(level.name(), counter.sum()));
+        // Stores that evict by level priority count their own discards instead of reporting evicted ranges
+        appender.getStoreDiscardedCountByLevel().forEach((level, count) -> counts.merge(level.name(), count, Long::sum));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getDiscardRateByLevel() {
+        return currentRates().discardRates();
+    }
+
+    @Override
+    public long getAppendLatencyP50Nanos() {
+        return appendLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getAppendLatencyP99Nanos() {
+        return appendLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getAppendLatencyP999Nanos() {
+        return appendLatency.percentile(0.999);
+    }
+
+    @Override
+    public long getFormatLatencyP50Nanos() {
+        return formatLatency.percentile(0.5);
+    }
+
+    @Override
+    public long getFormatLatencyP99Nanos() {
+        return formatLatency.percentile(0.99);
+    }
+
+    @Override
+    public long getFormatLatencyP999Nanos() {
+        return formatLatency.percentile(0.999);
+    }
+
+    @Override
+    public void resetLatencies() {
+        appendLatency.reset();
+        formatLatency.reset();
+    }
+
+    // Method to return the latest rate sample, taking a new one if it is older than RATE_INTERVAL_NANOS
+    private RateSample currentRates() {
+        RateSample previous = rates.get();
+        long now = System.nanoTime();
+        long elapsed = now - previous.nanos();
+        if (elapsed < RATE_INTERVAL_NANOS) {
+            return previous;
+        }
+        double seconds = elapsed / 1e9;
+        long appendCount = getAppendCount();
+        Map<String, Long> discardCounts = getDiscardedCountByLevel();
+        Map<String, Double> discardRates = new TreeMap<>();
+        discardCounts.forEach((level, count) ->
+            discardRates.put(level, (count - previous.discardCounts().getOrDefault(level, 0L)) / seconds));
+        RateSample sample = new RateSample(now, appendCount, discardCounts,
+            (appendCount - previous.appendCount()) / seconds, discardRates);
+        return rates.compareAndSet(previous, sample) ? sample : rates.get();
+    }
+
+    // Record to hold the counters at the time of a rate sample and the rates since the sample before it
+    private record RateSample(long nanos, long appendCount, Map<String, Long> discardCounts,
+            double appendRate, Map<String, Double> discardRates) {
+    }
+}
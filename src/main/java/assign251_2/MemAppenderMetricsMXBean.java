@@ -0,0 +1,55 @@
+package assign251_2;
+
+// Import other necessary classes
+import java.util.Map;
+
+// Interface for the JMX view of one MemAppender, registered as assign251_2:type=MemAppender,name=<name>.
+//
+// Rates are events per second over the interval between the two most recent reads that are at least a
+// second apart. Latencies are in nanoseconds and are sampled on a fraction of the calls.
+public interface MemAppenderMetricsMXBean {
+
+    // Number of events currently retained in memory
+    int getRetainedCount();
+
+    // Estimated size in bytes of the events currently retained in memory
+    long getRetainedBytes();
+
+    // Maximum number of retained events
+    int getMaxSize();
+
+    // Number of events appended since the appender was created
+    long getAppendCount();
+
+    // Events appended per second
+    double getAppendRate();
+
+    // Number of events discarded since the last clear
+    long getDiscardedCount();
+
+    // Number of evicted events the spill tier could not keep (0 without a spill tier)
+    long getSpillLostCount();
+
+    // Number of discarded events per level name since the metrics were enabled
+    Map<String, Long> getDiscardedCountByLevel();
+
+    // Events discarded per second, per level name
+    Map<String, Double> getDiscardRateByLevel();
+
+    // Percentiles of the time spent in append
+    long getAppendLatencyP50Nanos();
+
+    long getAppendLatencyP99Nanos();
+
+    long getAppendLatencyP999Nanos();
+
+    // Percentiles of the time spent formatting one event for getEventStrings, streamEventStrings or printLogs
+    long getFormatLatencyP50Nanos();
+
+    long getFormatLatencyP99Nanos();
+
+    long getFormatLatencyP999Nanos();
+
+    // Method to forget the recorded latencies
+    void resetLatencies();
+}
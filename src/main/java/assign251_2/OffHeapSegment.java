@@ -0,0 +1,148 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Class to represent a buffer segment that keeps its events as binary records in off-heap memory.
+//
+// Records are bump-allocated into direct ByteBuffer blocks shared by the whole segment, so the heap only
+// holds one small array of block references and one array of offsets per segment instead of an object
+// graph per event. The direct memory is released together with the segment once it has been evicted
+// and no reader holds it any more.
+final class OffHeapSegment extends LogEventBuffer.Segment {
+
+    // Size of the direct blocks that records are packed into
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    // Bytes used by the length prefix of every record
+    private static final int LENGTH_PREFIX = Integer.BYTES;
+
+    // Offset published for a slot that holds a tombstone
+    private static final int TOMBSTONE_OFFSET = Integer.MIN_VALUE;
+
+    // Block holding each slot's record
+    private final AtomicReferenceArray<Block> blocks = new AtomicReferenceArray<>(LogEventBuffer.SEGMENT_SIZE);
+
+    // Offset of each slot's record within its block, plus one (zero means not yet published, and
+    // TOMBSTONE_OFFSET that the slot holds a tombstone)
+    private final AtomicIntegerArray offsets = new AtomicIntegerArray(LogEventBuffer.SEGMENT_SIZE);
+
+    // Block that new records are currently packed into
+    private final AtomicReference<Block> current = new AtomicReference<>();
+
+    // Dictionaries the records are coded against (shared by every segment of the buffer)
+    private final LogEventSerializer.Dictionaries dictionaries;
+
+    // Constructor to initialize the segment with its id and the dictionaries of its buffer
+    OffHeapSegment(long id, boolean tagged, LogEventSerializer.Dictionaries dictionaries) {
+        super(id, tagged);
+        this.dictionaries = dictionaries;
+    }
+
+    // Method to encode the event, publish its record for the slot and return the record size to count as retained
+    @Override
+    int put(int index, LogEvent event) {
+        byte[] record = LogEventSerializer.serialize(event, dictionaries);
+        int size = record.length + LENGTH_PREFIX;
+
+        Block block;
+        int offset;
+        if (size > BLOCK_SIZE / 4) {
+            // Large records get a block of their own so they do not waste the shared blocks
+            block = new Block(size);
+            offset = block.reserve(size);
+        } else {
+            while (true) {
+                block = current.get();
+                offset = block == null ? -1 : block.reserve(size);
+                if (offset >= 0) {
+                    break;
+                }
+                current.compareAndSet(block, new Block(BLOCK_SIZE));
+            }
+        }
+
+        block.buffer.putInt(offset, record.length);
+        block.buffer.put(offset + LENGTH_PREFIX, record);
+        int counted = recordSize(index, size);
+        blocks.set(index, block);
+        offsets.set(index, offset + 1);
+        return counted;
+    }
+
+    // Method to publish a tombstone for the slot
+    @Override
+    void putTombstone(int index) {
+        offsets.set(index, TOMBSTONE_OFFSET);
+    }
+
+    // Method to decode the event of the slot, or return null if it has not been published yet
+    @Override
+    LogEvent get(int index) {
+        int published = offsets.get(index);
+        if (published == 0 || published == TOMBSTONE_OFFSET) {
+            return published == 0 ? null : LogEventBuffer.TOMBSTONE;
+        }
+        int offset = published - 1;
+        Block block = blocks.get(index);
+        byte[] record = new byte[block.buffer.getInt(offset)];
+        block.buffer.get(offset + LENGTH_PREFIX, record);
+        return LogEventSerializer.deserialize(record, dictionaries);
+    }
+
+    // Method to read the level of a published slot without decoding the whole record
+    @Override
+    Level level(int index) {
+        if (offsets.get(index) == TOMBSTONE_OFFSET) {
+            return LogEventBuffer.TOMBSTONE.getLevel();
+        }
+        return LogEventSerializer.readLevel(blocks.get(index).buffer, offsets.get(index) - 1 + LENGTH_PREFIX,
+            dictionaries);
+    }
+
+    // Method to read the timestamp of a published slot without decoding the whole record
+    @Override
+    long timeMillis(int index) {
+        if (offsets.get(index) == TOMBSTONE_OFFSET) {
+            return LogEventBuffer.TOMBSTONE.getTimeMillis();
+        }
+        return LogEventSerializer.readTimeMillis(blocks.get(index).buffer, offsets.get(index) - 1 + LENGTH_PREFIX);
+    }
+
+    // Method to check whether the record of the slot has been published
+    @Override
+    boolean isPublished(int index) {
+        return offsets.get(index) != 0;
+    }
+
+    // Class to represent a direct buffer that records are bump-allocated into
+    private static final class Block {
+        final ByteBuffer buffer;
+        private final AtomicInteger position = new AtomicInteger();
+
+        Block(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+
+        // Method to reserve space for a record, returning its offset or -1 if the block is full
+        int reserve(int size) {
+            while (true) {
+                int offset = position.get();
+                if (offset + size > buffer.capacity()) {
+                    return -1;
+                }
+                if (position.compareAndSet(offset, offset + size)) {
+                    return offset;
+                }
+            }
+        }
+    }
+}
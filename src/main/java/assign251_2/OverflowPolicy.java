@@ -0,0 +1,14 @@
+package assign251_2;
+
+// Enum to represent what MemAppender does when its asynchronous ingest queue is full
+public enum OverflowPolicy {
+
+    // Wait (using the configured wait strategy) until the consumer frees a slot
+    BLOCK,
+
+    // Drop the new event and count it in the dropped log count
+    DROP,
+
+    // Drop the new event and count it in the discarded log count, like an evicted event
+    DISCARD
+}
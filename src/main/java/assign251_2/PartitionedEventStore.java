@@ -0,0 +1,431 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Class to represent an event store that keeps a separate bounded buffer per partition.
+//
+// Events are routed either by logger name, to the partition of the longest configured prefix in the logger
+// hierarchy, or by the key a caller-supplied function returns; everything else goes to DEFAULT_PARTITION.
+// Routing is a lock-free map lookup: the partition of a logger name or key is resolved once and cached
+// (up to MAX_ROUTES names or keys). Key routing creates at most MAX_PARTITIONS partitions; later keys share
+// DEFAULT_PARTITION. Every partition has its own capacity and discarded count, so a chatty logger only
+// evicts its own events. The byte budget bounds all partitions together: while it is exceeded, the
+// partition holding the most bytes evicts its oldest event. Events are also tagged with a global sequence
+// number, which orders the merged reads; as in StripedEventStore the partitions are each almost sorted, so
+// the merge sort runs in close to linear time.
+final class PartitionedEventStore implements LogEventStore {
+
+    // Name of the partition for events that match no prefix or have no key
+    static final String DEFAULT_PARTITION = "";
+
+    // Largest number of partitions that key routing creates (configured partitions are always created)
+    static final int MAX_PARTITIONS = 256;
+
+    // Largest number of logger names or keys whose partition is cached
+    private static final int MAX_ROUTES = 4096;
+
+    // Prefixes routed to their own partition, longest first, or null if events are routed by key
+    private final String[] prefixes;
+
+    // Function that returns the partition key of an event, or null if events are routed by prefix
+    private final Function<LogEvent, String> keyFunction;
+
+    // Partition of every logger name (prefix routing) or key (key routing) seen so far
+    private final Map<String, LogEventBuffer> routes = new ConcurrentHashMap<>();
+
+    // Partitions by name and the capacities configured for single partitions
+    private final Map<String, LogEventBuffer> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> capacities = new ConcurrentHashMap<>();
+
+    // Number of partitions created so far (raised by a CAS before a key partition is created)
+    private final AtomicInteger partitionCount = new AtomicInteger();
+
+    // Next global sequence number (taken by each partition after it claimed its slot)
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Every event before this sequence was cleared
+    private final AtomicLong start = new AtomicLong();
+
+    // Number of events rejected before reaching the store since the last clear
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Settings for partitions without a capacity of their own and for newly created partitions
+    private volatile int defaultCapacity;
+    private volatile long maxRetainedBytes = Long.MAX_VALUE;
+    private volatile long maxAgeMillis = Long.MAX_VALUE;
+    private volatile StorageMode storageMode;
+
+    // Constructor to initialize a store that routes by logger name prefix (a null capacity in the map means
+    // the default capacity; the prefix "" configures the default partition)
+    PartitionedEventStore(Map<String, Integer> prefixCapacities, int defaultCapacity, StorageMode storageMode) {
+        this(null, prefixCapacities, defaultCapacity, storageMode);
+    }
+
+    // Constructor to initialize a store that routes by the key the function returns (a null key means the
+    // default partition); partitions are created as new keys appear
+    PartitionedEventStore(Function<LogEvent, String> keyFunction, int defaultCapacity, StorageMode storageMode) {
+        this(keyFunction, Map.of(), defaultCapacity, storageMode);
+    }
+
+    // Constructor to initialize the store with the routing and the configured partitions
+    private PartitionedEventStore(Function<LogEvent, String> keyFunction, Map<String, Integer> configured,
+            int defaultCapacity, StorageMode storageMode) {
+        if (defaultCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + defaultCapacity);
+        }
+        this.keyFunction = keyFunction;
+        this.defaultCapacity = defaultCapacity;
+        this.storageMode = storageMode;
+        configured.forEach((name, capacity) -> {
+            if (name == null) {
+                throw new IllegalArgumentException("Partition prefix must not be null");
+            }
+            if (capacity != null) {
+                setPartitionCapacity(name, capacity);
+            }
+            partitionNamed(name);
+        });
+        partitionNamed(DEFAULT_PARTITION);
+        this.prefixes = keyFunction != null ? null : configured.keySet().stream()
+            .filter(prefix -> !prefix.isEmpty())
+            .sorted(Comparator.comparingInt(String::length).reversed())
+            .toArray(String[]::new);
+    }
+
+    // === Section 1. Partitions
+
+    // Method to retrieve the names of the partitions created so far
+    Set<String> getPartitionNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(partitions.keySet()));
+    }
+
+    // Method to give one partition a capacity of its own (it is created if it does not exist yet)
+    void setPartitionCapacity(String name, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        capacities.put(name, capacity);
+        partitionNamed(name).setCapacity(capacity);
+    }
+
+    // Method to retrieve the capacity of a partition
+    int getPartitionCapacity(String name) {
+        return capacities.getOrDefault(name, defaultCapacity);
+    }
+
+    // Method to copy the retained events of one partition, oldest first (empty if the partition is unknown)
+    List<LogEvent> toList(String name) {
+        LogEventBuffer partition = partitions.get(name);
+        if (partition == null) {
+            return new ArrayList<>();
+        }
+        return merge(List.of(partition), sequence.get());
+    }
+
+    // Method to retrieve the number of events one partition evicted since the last clear
+    long getDiscardedCount(String name) {
+        LogEventBuffer partition = partitions.get(name);
+        return partition == null ? 0 : partition.getDiscardedCount();
+    }
+
+    // Method to find the partition of an event
+    private LogEventBuffer route(LogEvent event) {
+        String key = keyFunction != null ? keyFunction.apply(event) : event.getLoggerName();
+        if (key == null) {
+            key = DEFAULT_PARTITION;
+        }
+        LogEventBuffer partition = routes.get(key);
+        if (partition != null) {
+            return partition;
+        }
+        return routes.size() < MAX_ROUTES ? routes.computeIfAbsent(key, this::resolve) : resolve(key);
+    }
+
+    // Method to resolve the partition of a logger name or key that has not been routed before
+    private LogEventBuffer resolve(String key) {
+        if (keyFunction != null) {
+            return keyPartition(key);
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix) && (key.length() == prefix.length() || key.charAt(prefix.length()) == '.')) {
+                return partitionNamed(prefix);
+            }
+        }
+        return partitionNamed(DEFAULT_PARTITION);
+    }
+
+    // Method to find or create the partition of a key, or return the default partition once MAX_PARTITIONS
+    // partitions exist (a new partition first reserves its place in the count, so the limit stays exact
+    // without serializing the creation of partitions for different keys)
+    private LogEventBuffer keyPartition(String key) {
+        LogEventBuffer partition = partitions.get(key);
+        if (partition == null && partitionCount.get() < MAX_PARTITIONS) {
+            partition = partitions.computeIfAbsent(key, name -> reservePartition() ? newPartition(name) : null);
+        }
+        return partition != null ? partition : partitions.get(DEFAULT_PARTITION);
+    }
+
+    // Method to reserve the place of a new key partition in the count, returning false if all are taken
+    private boolean reservePartition() {
+        int count;
+        do {
+            count = partitionCount.get();
+            if (count >= MAX_PARTITIONS) {
+                return false;
+            }
+        } while (!partitionCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    // Method to find or create the partition with the given name (configured partitions are always created)
+    private LogEventBuffer partitionNamed(String name) {
+        return partitions.computeIfAbsent(name, key -> {
+            partitionCount.incrementAndGet();
+            return newPartition(key);
+        });
+    }
+
+    // Method to create the buffer of a partition
+    private LogEventBuffer newPartition(String name) {
+        LogEventBuffer created = new LogEventBuffer(getPartitionCapacity(name), storageMode, true);
+        created.setMaxAge(maxAgeMillis);
+        return created;
+    }
+
+    // === Section 2. Writing
+
+    // Method to append an event to its partition and return its global sequence number
+    @Override
+    public long append(LogEvent event) {
+        long seq = route(event).appendTagged(event, sequence);
+        enforceByteBudget();
+        return seq;
+    }
+
+    // Method to change the capacity of the partitions without a capacity of their own
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.defaultCapacity = capacity;
+        partitions.forEach((name, partition) -> partition.setCapacity(getPartitionCapacity(name)));
+    }
+
+    // Method to change the byte budget shared by all partitions, evicting until the retained events fit in it
+    @Override
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Byte budget must not be negative: " + maxRetainedBytes);
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        enforceByteBudget();
+    }
+
+    // Method to change the maximum age of the events in every partition (each partition expires on its own)
+    @Override
+    public void setMaxAge(long maxAgeMillis) {
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximum age must not be negative: " + maxAgeMillis);
+        }
+        this.maxAgeMillis = maxAgeMillis;
+        partitions.values().forEach(partition -> partition.setMaxAge(maxAgeMillis));
+    }
+
+    @Override
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        partitions.values().forEach(partition -> partition.setStorageMode(storageMode));
+    }
+
+    @Override
+    public void clear() {
+        clearUpTo(sequence.get());
+        rejected.set(0);
+        partitions.values().forEach(LogEventBuffer::clear);
+    }
+
+    @Override
+    public long clearUpTo(long sequence) {
+        long previous = start.getAndAccumulate(sequence, Math::max);
+        long first = Math.max(previous, sequence);
+        partitions.values().forEach(partition -> partition.trimTagsBelow(first));
+        return Math.min(previous, sequence);
+    }
+
+    @Override
+    public void addDiscarded(long count) {
+        rejected.addAndGet(count);
+    }
+
+    // === Section 3. Reading
+
+    // Method to retrieve the number of retained events (events that were cleared but sit behind a newer
+    // event in their partition are counted until that event leaves too)
+    @Override
+    public int size() {
+        long size = 0;
+        for (LogEventBuffer partition : partitions.values()) {
+            size += partition.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    // Method to retrieve the sequence before which every event was cleared (partitions evict on their own,
+    // so later sequences may be missing too)
+    @Override
+    public long getStartSequence() {
+        return start.get();
+    }
+
+    @Override
+    public long getTailSequence() {
+        return sequence.get();
+    }
+
+    // Method to retrieve the capacity of the partitions without a capacity of their own
+    @Override
+    public int getCapacity() {
+        return defaultCapacity;
+    }
+
+    // Method to retrieve the number of events evicted by all partitions or rejected since the last clear
+    @Override
+    public long getDiscardedCount() {
+        long discarded = rejected.get();
+        for (LogEventBuffer partition : partitions.values()) {
+            discarded += partition.getDiscardedCount();
+        }
+        return discarded;
+    }
+
+    @Override
+    public long getMaxAge() {
+        return maxAgeMillis;
+    }
+
+    @Override
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        long bytes = 0;
+        for (LogEventBuffer partition : partitions.values()) {
+            bytes += partition.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    @Override
+    public List<LogEvent> toList() {
+        return copyRange(null);
+    }
+
+    // Method to merge the retained events of all partitions in global sequence order
+    @Override
+    public List<LogEvent> copyRange(long[] endSequence) {
+        long to = sequence.get();
+        List<LogEvent> events = merge(partitions.values(), to);
+        if (endSequence != null) {
+            endSequence[0] = to;
+        }
+        return events;
+    }
+
+    // Method to return an immutable view of the retained events (the partitions have to be merged, so this
+    // copies the retained events; the range starts at the oldest sequence that was not cleared)
+    @Override
+    public List<LogEvent> snapshot(long[] range) {
+        long[] end = new long[1];
+        List<LogEvent> events = copyRange(end);
+        if (range != null) {
+            range[0] = Math.min(start.get(), end[0]);
+            range[1] = end[0];
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    // Method to look up events by ascending sequence numbers (the partitions are not indexed by the global
+    // sequence, so this scans every partition)
+    @Override
+    public List<LogEvent> get(long[] sequences, int count) {
+        long from = start.get();
+        List<LogEventBuffer.TaggedEvent> found = new ArrayList<>(count);
+        for (LogEventBuffer partition : partitions.values()) {
+            for (LogEventBuffer.TaggedEvent event : partition.copyTagged()) {
+                if (event.tag() >= from && event.event() != LogEventBuffer.TOMBSTONE
+                        && Arrays.binarySearch(sequences, 0, count, event.tag()) >= 0) {
+                    found.add(event);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(LogEventBuffer.TaggedEvent::tag));
+        List<LogEvent> events = new ArrayList<>(found.size());
+        for (LogEventBuffer.TaggedEvent event : found) {
+            events.add(event.event());
+        }
+        return events;
+    }
+
+    // Method to register an eviction listener (not supported: each partition evicts its own range of
+    // partition-local sequences, so there is no contiguous global range that leaves the store)
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        if (listener != null) {
+            throw new UnsupportedOperationException("Partitioned stores do not report evicted events");
+        }
+    }
+
+    // Method to evict the oldest event of the partition holding the most bytes until the retained events of
+    // all partitions fit in the byte budget
+    private void enforceByteBudget() {
+        long budget = maxRetainedBytes;
+        if (budget == Long.MAX_VALUE) {
+            return;
+        }
+        while (true) {
+            long total = 0;
+            long largestBytes = -1;
+            LogEventBuffer largest = null;
+            for (LogEventBuffer partition : partitions.values()) {
+                long bytes = partition.getRetainedBytes();
+                total += bytes;
+                if (bytes > largestBytes) {
+                    largest = partition;
+                    largestBytes = bytes;
+                }
+            }
+            if (total <= budget || largest == null || !largest.evictOldest()) {
+                return;
+            }
+        }
+    }
+
+    // Method to merge the events of the given partitions whose sequence is retained and before the given end.
+    // The end was read before the partitions, so every event before it has already claimed its slot.
+    private List<LogEvent> merge(Iterable<LogEventBuffer> sources, long to) {
+        return LogEventBuffer.mergeTagged(sources, start.get(), to);
+    }
+}
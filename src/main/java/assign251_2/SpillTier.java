@@ -0,0 +1,409 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Class to represent a second storage tier that keeps the events evicted from memory in memory-mapped files.
+//
+// The store reports every range that leaves it; a range is only a view of segments that are never
+// overwritten, so reporting it costs the evicting producer one queue insertion and never any I/O. A
+// background writer (or a reader that needs the data, whichever comes first) puts the ranges back into
+// sequence order, serializes the evicted events and appends them to fixed-size mapped segment files. When
+// the backlog of unwritten events would grow past MAX_PENDING_EVENTS, the range is dropped and its events are
+// counted as lost, so a slow disk cannot pin evicted segments in memory. With backpressure enabled, evicting
+// producers wait for the writer instead. When the files exceed the size cap, the oldest file is deleted and
+// its events are counted as lost. Records carry their sequence number so that reads can be combined exactly
+// with the memory tier.
+final class SpillTier implements LogEventStore.EvictionListener {
+
+    // Largest number of evicted events waiting to be written before further ranges are dropped (or evicting
+    // producers wait for the writer), so that a slow disk cannot make the evicted segments pile up in memory
+    static final int MAX_PENDING_EVENTS = 64 * LogEventBuffer.SEGMENT_SIZE;
+
+    // Bytes written before every record: its length and its sequence number
+    private static final int RECORD_HEADER = Integer.BYTES + Long.BYTES;
+
+    // Name of the writer thread
+    private final String name;
+
+    // Directory holding the segment files, total size cap and size of each file
+    private final Path directory;
+    private final long maxBytes;
+    private final int fileSize;
+
+    // Whether evicting producers wait for the writer rather than drop ranges when the backlog is full
+    private final boolean backpressure;
+
+    // Ranges reported by the store that have not been handled yet
+    private final ConcurrentLinkedQueue<Range> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    // Flag held by the thread that is currently writing
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    // Ranges that arrived ahead of the next expected sequence (only accessed while holding the flag)
+    private final TreeMap<Long, Range> waiting = new TreeMap<>();
+    private long nextSequence;
+    private long fileCounter;
+    private SpillFile current;
+
+    // Every range before this sequence has been written or skipped
+    private volatile long writtenUpTo;
+
+    // Records before this sequence have been cleared and are no longer returned
+    private volatile long clearedBefore;
+
+    // Segment files, oldest first (replaced as a whole by the writer)
+    private volatile List<SpillFile> files = new ArrayList<>();
+
+    // Number of evicted events that could not be kept (backlog full, size cap reached, record too large or
+    // write failure)
+    private final AtomicLong lost = new AtomicLong();
+
+    // Background writer thread, or null when stopped
+    private volatile Thread writer;
+
+    // Constructor to initialize the tier for a store whose next evicted sequence is firstSequence
+    SpillTier(String name, Path directory, long maxBytes, long firstSequence, boolean backpressure) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Spill size must be positive: " + maxBytes);
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create spill directory " + directory, e);
+        }
+        this.name = name;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.fileSize = (int) Math.max(64 * 1024, Math.min(maxBytes / 4, 64L * 1024 * 1024));
+        this.backpressure = backpressure;
+        this.nextSequence = firstSequence;
+        this.writtenUpTo = firstSequence;
+        this.clearedBefore = firstSequence;
+    }
+
+    // === Section 1. Lifecycle
+
+    // Method to start the background writer
+    void start() {
+        if (writer == null) {
+            Thread thread = new Thread(this::runWriter, name);
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
+    }
+
+    // Method to write everything reported so far and stop the background writer
+    void stop() throws InterruptedException {
+        Thread thread = writer;
+        writer = null;
+        if (thread != null) {
+            thread.join();
+        }
+        drain();
+    }
+
+    // Method to delete every segment file
+    void delete() {
+        awaitWriting();
+        try {
+            files.forEach(SpillFile::delete);
+            files = new ArrayList<>();
+            current = null;
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    // Method run by the writer thread until it is stopped
+    private void runWriter() {
+        int attempt = 0;
+        while (writer == Thread.currentThread()) {
+            if (pending.isEmpty()) {
+                WaitStrategy.PARK.idle(attempt++);
+            } else {
+                attempt = 0;
+                drain();
+            }
+        }
+    }
+
+    // === Section 2. Writing
+
+    // Method called by the store for every range that leaves it. A range that would take the backlog past
+    // MAX_PENDING_EVENTS is still queued, without its events, so that the writer can move past it; with
+    // backpressure the range is kept and the producer waits instead, after queueing it so that the ranges
+    // other producers wait for are never held up.
+    @Override
+    public void evicted(long from, long to, List<LogEvent> events) {
+        boolean over = events != null && pendingEvents.addAndGet(to - from) > MAX_PENDING_EVENTS;
+        if (over && !backpressure) {
+            pendingEvents.addAndGet(from - to);
+            lost.addAndGet(to - from);
+            events = null;
+        }
+        pending.add(new Range(from, to, events));
+        if (over && backpressure) {
+            awaitBacklog();
+        }
+    }
+
+    // Method to wait until the writer has brought the backlog within MAX_PENDING_EVENTS (writing it on this
+    // thread only if there is no writer thread)
+    private void awaitBacklog() {
+        int attempt = 0;
+        while (pendingEvents.get() > MAX_PENDING_EVENTS) {
+            if (writer == null) {
+                drain();
+            }
+            if (pendingEvents.get() > MAX_PENDING_EVENTS) {
+                WaitStrategy.PARK.idle(attempt++);
+            }
+        }
+    }
+
+    // Method to write the reported ranges that are next in sequence order, if no other thread is doing so
+    private void drain() {
+        while (writing.compareAndSet(false, true)) {
+            try {
+                Range range;
+                while ((range = pending.poll()) != null) {
+                    waiting.put(range.from, range);
+                }
+                while ((range = waiting.remove(nextSequence)) != null) {
+                    write(range);
+                    nextSequence = range.to;
+                }
+                writtenUpTo = nextSequence;
+            } finally {
+                writing.set(false);
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    // Method to append the events of a range to the segment files
+    private void write(Range range) {
+        if (range.events == null) {
+            return;
+        }
+        long seq = range.from;
+        for (LogEvent event : range.events) {
+            try {
+                append(seq, LogEventSerializer.serialize(event));
+            } catch (UncheckedIOException e) {
+                lost.incrementAndGet();
+            }
+            seq++;
+        }
+        pendingEvents.addAndGet(range.from - range.to);
+    }
+
+    // Method to append one record, rolling over to a new file and deleting the oldest as needed
+    private void append(long seq, byte[] record) {
+        int size = RECORD_HEADER + record.length;
+        if (size > fileSize) {
+            lost.incrementAndGet(); // larger than a whole file
+            return;
+        }
+        if (current == null || current.remaining() < size) {
+            current = new SpillFile(directory.resolve("spill-" + fileCounter++ + ".seg"), fileSize);
+            List<SpillFile> updated = new ArrayList<>(files);
+            updated.add(current);
+            while ((long) updated.size() * fileSize > maxBytes && updated.size() > 1) {
+                SpillFile oldest = updated.remove(0);
+                lost.addAndGet(oldest.count);
+                oldest.delete();
+            }
+            files = updated;
+        }
+        current.write(seq, record);
+    }
+
+    // Method to acquire the writing flag, helping with pending work while waiting
+    private void awaitWriting() {
+        int attempt = 0;
+        while (!writing.compareAndSet(false, true)) {
+            WaitStrategy.YIELD.idle(attempt++);
+        }
+    }
+
+    // === Section 3. Reading
+
+    // Method to read the spilled events before the given sequence, oldest first
+    List<LogEvent> read(long beforeSequence) {
+        awaitWritten(beforeSequence);
+        long after = clearedBefore;
+        List<LogEvent> events = new ArrayList<>();
+        for (SpillFile file : files) {
+            file.readInto(events, after, beforeSequence);
+        }
+        return events;
+    }
+
+    // Method to stop returning the spilled events before the given sequence and delete their files
+    void clearBefore(long sequence) {
+        awaitWritten(sequence);
+        awaitWriting();
+        try {
+            if (sequence > clearedBefore) {
+                clearedBefore = sequence;
+            }
+            List<SpillFile> updated = new ArrayList<>(files);
+            while (!updated.isEmpty() && updated.get(0).lastSequence < sequence) {
+                SpillFile oldest = updated.remove(0);
+                oldest.delete();
+                if (oldest == current) {
+                    current = null;
+                }
+            }
+            files = updated;
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    // Method to retrieve the number of spilled events before the given sequence that are still returned by reads
+    long getSpilledCount(long beforeSequence) {
+        awaitWritten(beforeSequence);
+        long after = clearedBefore;
+        long count = 0;
+        for (SpillFile file : files) {
+            count += file.countFrom(after);
+        }
+        return count;
+    }
+
+    // Method to retrieve the number of bytes written to the segment files that are still kept
+    long getSpilledBytes() {
+        long bytes = 0;
+        for (SpillFile file : files) {
+            bytes += file.committed;
+        }
+        return bytes;
+    }
+
+    // Method to retrieve the number of evicted events that could not be kept, once every range before the
+    // given sequence has been handled
+    long getLostCount(long beforeSequence) {
+        awaitWritten(beforeSequence);
+        return lost.get();
+    }
+
+    // Method to wait until every range before the given sequence has been handled
+    private void awaitWritten(long sequence) {
+        int attempt = 0;
+        while (writtenUpTo < sequence) {
+            drain();
+            if (writtenUpTo < sequence) {
+                WaitStrategy.YIELD.idle(attempt++);
+            }
+        }
+    }
+
+    // Record to hold a range reported by the store
+    private record Range(long from, long to, List<LogEvent> events) {
+    }
+
+    // Class to represent one memory-mapped segment file of records [length][sequence][event record]
+    private static final class SpillFile {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        // Bytes of complete records (published after each record is written)
+        private volatile int committed;
+
+        // Number of records and sequence of the newest one (only written by the writer)
+        private volatile int count;
+        private volatile long lastSequence = Long.MIN_VALUE;
+
+        SpillFile(Path path, int size) {
+            this.path = path;
+            try {
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map spill file " + path, e);
+            }
+        }
+
+        int remaining() {
+            return buffer.capacity() - committed;
+        }
+
+        void write(long seq, byte[] record) {
+            int position = committed;
+            buffer.putInt(position, record.length);
+            buffer.putLong(position + Integer.BYTES, seq);
+            buffer.put(position + RECORD_HEADER, record);
+            lastSequence = seq;
+            count++;
+            committed = position + RECORD_HEADER + record.length;
+        }
+
+        // Method to decode the records whose sequence lies in [after, before)
+        void readInto(List<LogEvent> events, long after, long before) {
+            int end = committed;
+            int position = 0;
+            while (position < end) {
+                int length = buffer.getInt(position);
+                long seq = buffer.getLong(position + Integer.BYTES);
+                if (seq >= before) {
+                    return;
+                }
+                if (seq >= after) {
+                    byte[] record = new byte[length];
+                    buffer.get(position + RECORD_HEADER, record);
+                    events.add(LogEventSerializer.deserialize(record));
+                }
+                position += RECORD_HEADER + length;
+            }
+        }
+
+        // Method to count the records whose sequence is at least the given one
+        long countFrom(long after) {
+            int end = committed;
+            long found = 0;
+            int position = 0;
+            while (position < end) {
+                int length = buffer.getInt(position);
+                if (buffer.getLong(position + Integer.BYTES) >= after) {
+                    found++;
+                }
+                position += RECORD_HEADER + length;
+            }
+            return found;
+        }
+
+        // Method to close and remove the file (the mapping stays readable until it is garbage collected)
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package assign251_2;
+
+// Enum to represent how MemAppender stores the events it retains
+public enum StorageMode {
+
+    // Keep an immutable copy of every event on the heap
+    HEAP,
+
+    // Encode every event into a compact binary record in off-heap direct buffers and decode it on read
+    OFF_HEAP,
+
+    // Keep the events of the newest segment on the heap and deflate every full segment in the background;
+    // reads inflate only the segments they touch
+    COMPRESSED
+}
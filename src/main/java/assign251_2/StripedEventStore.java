@@ -0,0 +1,478 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+
+// Import other necessary classes
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Class to represent an event store that spreads producers over several independent buffers.
+//
+// Each producer thread is hashed to a stripe, so threads on different stripes never touch the same
+// segments or tail counter. Every event is tagged with a global sequence number, which defines the order
+// used by reads. The sequence numbers are handed out in blocks: a stripe takes BLOCK_SIZE numbers from the
+// shared counter at a time and hands them out to its producers, so the shared counter is written once per
+// block rather than once per append. Numbers a stripe does not use before it takes a new block are never
+// handed out, so the sequence numbers of a striped store have gaps. A stripe stops using its block once the
+// other stripes have taken more than a round of blocks after it, so events appended one after the other
+// by threads on different stripes are read in their order unless they were appended within a round of
+// blocks of each other (concurrent appends may be read in either order anyway).
+//
+// The capacity and the byte budget count events rather than sequence numbers. They are enforced by one
+// thread at a time, which evicts the globally oldest events (the stripe heads with the lowest sequence
+// numbers) and counts them as discarded. A producer does so each time its stripe takes a new block, and
+// every read does so first, so reads see exactly the window that the capacity allows. Reads merge the
+// stripes by sequence number; the stripes are each almost sorted already, so the merge sort runs in close
+// to linear time.
+final class StripedEventStore implements LogEventStore {
+
+    // Number of sequence numbers a stripe takes from the shared counter at a time (a power of two)
+    static final int BLOCK_SIZE = 64;
+
+    // Stripes that producers append to (a power of two, selected by thread id)
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    // Next global sequence number to be handed out as the start of a block
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Blocks that start before this sequence number are no longer used (raised by reads that report their
+    // end, so that no event appended after such a read is tagged below its end)
+    private final AtomicLong fence = new AtomicLong();
+
+    // Number of sequence numbers the shared counter may move past a block before the block is dropped
+    private final long slack;
+
+    // First global sequence number that was not cleared (stripes may still hold events below it behind a
+    // newer event, which reads leave out)
+    private final AtomicLong start = new AtomicLong();
+
+    // Number of events below the start that the stripes still hold (only accessed while holding the flag)
+    private long leftovers;
+
+    // Number of events counted as discarded through addDiscarded since the last clear (the stripes count
+    // the events they evict themselves)
+    private final AtomicLong discarded = new AtomicLong();
+
+    // Flag held by the thread that is currently enforcing the capacity and the byte budget
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    // Maximum number of retained events
+    private volatile int capacity;
+
+    // Maximum estimated size in bytes of the retained events
+    private volatile long maxRetainedBytes = Long.MAX_VALUE;
+
+    // Constructor to initialize the store with the given number of stripes, capacity and storage mode
+    StripedEventStore(int stripeCount, int capacity, StorageMode storageMode) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(new LogEventBuffer(Integer.MAX_VALUE, storageMode, true));
+        }
+        this.stripeMask = size - 1;
+        this.slack = (long) BLOCK_SIZE * size;
+        this.capacity = capacity;
+    }
+
+    // Method to retrieve the number of stripes
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    // === Section 1. Writing
+
+    // Method to append an event to the stripe of the current thread, and enforce the capacity and the byte
+    // budget each time the stripe starts a new block (unless another thread is doing so already)
+    @Override
+    public long append(LogEvent event) {
+        Stripe stripe = stripeFor(Thread.currentThread());
+        long seq = stripe.buffer.appendTagged(event, stripe);
+        if ((seq & (BLOCK_SIZE - 1)) == 0) {
+            trim(false);
+        }
+        return seq;
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        trim(true);
+    }
+
+    @Override
+    public void setMaxRetainedBytes(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Byte budget must not be negative: " + maxRetainedBytes);
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        trim(true);
+    }
+
+    // Method to change the maximum age of the retained events (not supported: the stripes interleave in time,
+    // so the window of global sequences cannot be trimmed by age without scanning every stripe)
+    @Override
+    public void setMaxAge(long maxAgeMillis) {
+        if (maxAgeMillis != Long.MAX_VALUE) {
+            throw new UnsupportedOperationException("Striped stores do not expire events by age");
+        }
+    }
+
+    @Override
+    public void setStorageMode(StorageMode storageMode) {
+        for (Stripe stripe : stripes) {
+            stripe.buffer.setStorageMode(storageMode);
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock(true);
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.buffer.clearAll();
+            }
+            leftovers = 0;
+            discarded.set(0);
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    // Method to drop the events before the given sequence and return that sequence minus the number of events
+    // this call dropped, so that the caller can tell how many of the events it copied before were still here
+    // (the events that left the window by capacity are counted as discarded first). Producers sharing a
+    // stripe may store their events slightly out of sequence order, so the stripes are scanned for the
+    // events below the sequence rather than only trimmed from the front.
+    @Override
+    public long clearUpTo(long sequence) {
+        lock(true);
+        try {
+            trimLocked();
+            long from = start.get();
+            if (sequence <= from) {
+                return sequence;
+            }
+            start.set(sequence);
+            long cleared = 0;
+            long below = 0;
+            for (Stripe stripe : stripes) {
+                for (LogEventBuffer.TaggedEvent event : stripe.buffer.copyTagged()) {
+                    if (event.tag() < sequence) {
+                        below++;
+                        if (event.tag() >= from && event.event() != LogEventBuffer.TOMBSTONE) {
+                            cleared++;
+                        }
+                    }
+                }
+                below -= stripe.buffer.trimTagsBelow(sequence);
+            }
+            leftovers = below;
+            return sequence - cleared;
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    @Override
+    public void addDiscarded(long count) {
+        discarded.addAndGet(count);
+    }
+
+    // === Section 2. Reading
+
+    @Override
+    public int size() {
+        lock(true);
+        try {
+            trimLocked();
+            return (int) Math.min(retainedCount(), Integer.MAX_VALUE);
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    // Method to retrieve the sequence number of the oldest retained event (or the tail if there is none)
+    @Override
+    public long getStartSequence() {
+        trim(true);
+        long oldest = Long.MAX_VALUE;
+        for (Stripe stripe : stripes) {
+            oldest = Math.min(oldest, stripe.buffer.oldestTag());
+        }
+        return oldest == Long.MAX_VALUE ? sequence.get() : Math.max(oldest, start.get());
+    }
+
+    // Method to retrieve the number of events appended so far (the sequence numbers have gaps, so unlike
+    // LogEventBuffer this is not the sequence number of the next event)
+    @Override
+    public long getTailSequence() {
+        long appended = 0;
+        for (Stripe stripe : stripes) {
+            appended += stripe.buffer.getTailSequence();
+        }
+        return appended;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getDiscardedCount() {
+        trim(true);
+        long count = discarded.get();
+        for (Stripe stripe : stripes) {
+            count += stripe.buffer.getDiscardedCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getMaxAge() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        trim(true);
+        return retainedBytes();
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return stripes[0].buffer.getStorageMode();
+    }
+
+    @Override
+    public List<LogEvent> toList() {
+        return copyRange(null);
+    }
+
+    // Method to look up events by ascending sequence numbers (the stripes are not indexed by sequence,
+    // so this scans every stripe)
+    @Override
+    public List<LogEvent> get(long[] sequences, int count) {
+        trim(true);
+        long from = start.get();
+        List<LogEventBuffer.TaggedEvent> found = new ArrayList<>(count);
+        for (Stripe stripe : stripes) {
+            for (LogEventBuffer.TaggedEvent event : stripe.buffer.copyTagged()) {
+                if (event.tag() >= from && event.event() != LogEventBuffer.TOMBSTONE
+                        && Arrays.binarySearch(sequences, 0, count, event.tag()) >= 0) {
+                    found.add(event);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(LogEventBuffer.TaggedEvent::tag));
+        List<LogEvent> events = new ArrayList<>(found.size());
+        for (LogEventBuffer.TaggedEvent event : found) {
+            events.add(event.event());
+        }
+        return events;
+    }
+
+    // Method to return an immutable view of the retained events (the stripes have to be merged, so unlike
+    // LogEventBuffer this copies the retained events)
+    @Override
+    public List<LogEvent> snapshot(long[] range) {
+        long[] end = new long[1];
+        List<LogEvent> events = copyRange(end);
+        if (range != null) {
+            range[0] = Math.min(start.get(), end[0]);
+            range[1] = end[0];
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    // Method to register an eviction listener (not supported: events leave the stripes one stripe at a time,
+    // so there is no single point where a range leaves the store)
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        if (listener != null) {
+            throw new UnsupportedOperationException("Striped stores do not report evicted events");
+        }
+    }
+
+    // Method to merge the retained events of all stripes in global sequence order and report the end of the
+    // copied range. The open blocks are fenced off first, so that every event appended after the stripes
+    // were read is tagged at or after the end, and clearUpTo(end) only drops events that were copied.
+    @Override
+    public List<LogEvent> copyRange(long[] endSequence) {
+        long to = Long.MAX_VALUE;
+        if (endSequence != null) {
+            to = sequence.get();
+            fence.accumulateAndGet(to, Math::max);
+        }
+        trim(true);
+        long from = start.get();
+        List<LogEventBuffer.TaggedEvent> merged = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            for (LogEventBuffer.TaggedEvent event : stripe.buffer.copyTagged()) {
+                if (event.tag() >= from && event.tag() < to && event.event() != LogEventBuffer.TOMBSTONE) {
+                    merged.add(event);
+                }
+            }
+        }
+        merged.sort(Comparator.comparingLong(LogEventBuffer.TaggedEvent::tag));
+
+        List<LogEvent> events = new ArrayList<>(merged.size());
+        for (LogEventBuffer.TaggedEvent event : merged) {
+            events.add(event.event());
+        }
+        if (endSequence != null) {
+            endSequence[0] = to;
+        }
+        return events;
+    }
+
+    // === Section 3. Internal helpers
+
+    // Method to select the stripe of a thread
+    private Stripe stripeFor(Thread thread) {
+        long id = thread.threadId();
+        return stripes[(int) (id ^ (id >>> 16)) & stripeMask];
+    }
+
+    // Method to add up the estimated bytes of the stripes
+    private long retainedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.buffer.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    // Method to count the retained events (the events of the stripes that were not cleared)
+    private long retainedCount() {
+        long count = -leftovers;
+        for (Stripe stripe : stripes) {
+            count += stripe.buffer.size();
+        }
+        return count;
+    }
+
+    // Method to take the flag for enforcing the limits or clearing, returning false if another thread holds
+    // it and the caller does not want to wait
+    private boolean lock(boolean wait) {
+        int spins = 0;
+        while (!trimming.compareAndSet(false, true)) {
+            if (!wait) {
+                return false;
+            }
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return true;
+    }
+
+    // Method to enforce the capacity and the byte budget. Only one thread does so at a time, so concurrent
+    // calls never evict more than needed; a producer leaves it to the thread already doing it, while a reader
+    // waits for that thread and then checks again.
+    private void trim(boolean wait) {
+        if (lock(wait)) {
+            try {
+                trimLocked();
+            } finally {
+                trimming.set(false);
+            }
+        }
+    }
+
+    // Method to evict the globally oldest events until the retained events fit in the capacity and the byte
+    // budget (called while holding the flag)
+    private void trimLocked() {
+        long first = start.get();
+        for (Stripe stripe : stripes) {
+            leftovers -= stripe.buffer.trimTagsBelow(first); // cleared events that were behind a newer one
+        }
+        long budget = maxRetainedBytes;
+        long excess = retainedCount() - capacity;
+        while (excess > 0 || budget != Long.MAX_VALUE && retainedBytes() > budget) {
+            LogEventBuffer oldest = null;
+            long oldestTag = Long.MAX_VALUE;
+            for (Stripe stripe : stripes) {
+                long tag = stripe.buffer.oldestTag();
+                if (tag < oldestTag) {
+                    oldest = stripe.buffer;
+                    oldestTag = tag;
+                }
+            }
+            if (oldest == null || !oldest.evictOldest()) {
+                return;
+            }
+            leftovers -= oldest.trimTagsBelow(first); // so that the next head is not a cleared event
+            excess--;
+        }
+    }
+
+    // Class to represent a stripe: its buffer and the block of sequence numbers its producers tag events with
+    private final class Stripe implements LongSupplier {
+        final LogEventBuffer buffer;
+
+        // Block of sequence numbers currently handed out by the stripe, or null before the first append
+        private volatile Block block;
+
+        Stripe(LogEventBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Method to hand out the next sequence number of the stripe (called after the slot is claimed, which
+        // is what lets a read fence off the blocks that were open before it)
+        @Override
+        public long getAsLong() {
+            Block current = block;
+            if (current != null && current.start >= fence.get() && sequence.get() - current.start <= slack) {
+                long seq = current.next.getAndIncrement();
+                if (seq < current.end) {
+                    return seq;
+                }
+            }
+            long first = sequence.getAndAdd(BLOCK_SIZE);
+            block = new Block(first, first + BLOCK_SIZE);
+            return first;
+        }
+    }
+
+    // Class to represent a block of sequence numbers [start, end) whose first number went to the producer
+    // that took the block
+    private static final class Block {
+        final long start;
+        final long end;
+        final AtomicLong next;
+
+        Block(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.next = new AtomicLong(start + 1);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package assign251_2;
+
+// Import the necessary classes from the log4j library
+import org.apache.logging.log4j.core.LogEvent;
+
+// Enum to represent which preceding events a flight recorder trigger forwards as its context
+public enum TriggerScope {
+
+    // Events logged by the same thread (by thread name) as the triggering event
+    THREAD,
+
+    // Events logged through the same logger as the triggering event
+    LOGGER,
+
+    // Every preceding event
+    ALL;
+
+    // Method to return the key that events of the same scope share (triggers are suppressed per key)
+    String keyOf(LogEvent event) {
+        switch (this) {
+            case THREAD:
+                return String.valueOf(event.getThreadName());
+            case LOGGER:
+                return String.valueOf(event.getLoggerName());
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package assign251_2;
+
+// Import other necessary classes
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Class to represent an append-only dictionary that gives repeated values small integer ids.
+//
+// Encoders look ids up in a concurrent map, and decoders turn ids back into values with two array reads.
+// Ids are handed out in order and never reused, so a record that stores an id can be decoded as long as
+// the dictionary lives. Values are kept in chunks that are created on first use, so an empty dictionary
+// costs almost nothing. The dictionary stops growing at maxEntries; callers store other values inline.
+final class ValueDictionary<T> {
+
+    // Number of values per chunk (a power of two)
+    private static final int CHUNK_SIZE = 256;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+
+    // Id of every value added so far
+    private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+
+    // Values by id, in chunks that are installed on first use
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks;
+
+    // Next id to hand out
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    // Maximum number of values
+    private final int maxEntries;
+
+    // Constructor to initialize an empty dictionary that holds up to maxEntries values
+    ValueDictionary(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Maximum entries must not be negative: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.chunks = new AtomicReferenceArray<>((maxEntries + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    // Method to return the id of a value, adding it if it is new, or -1 if the dictionary is full
+    int idOf(T value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (nextId.get() >= maxEntries) {
+            return -1;
+        }
+        id = ids.computeIfAbsent(value, this::add);
+        return id == null ? -1 : id;
+    }
+
+    // Method to retrieve the value with the given id
+    T valueOf(int id) {
+        AtomicReferenceArray<T> chunk = chunks.get(id >>> CHUNK_SHIFT);
+        T value = chunk == null ? null : chunk.get(id & (CHUNK_SIZE - 1));
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown dictionary id: " + id);
+        }
+        return value;
+    }
+
+    // Method to retrieve the number of values in the dictionary
+    int size() {
+        return Math.min(nextId.get(), maxEntries);
+    }
+
+    // Method to store a new value under the next id, returning null if the dictionary is full (the value is
+    // written before the map publishes the id, so every thread that sees the id can read the value)
+    private Integer add(T value) {
+        int id = nextId.getAndIncrement();
+        if (id >= maxEntries) {
+            return null;
+        }
+        int index = id >>> CHUNK_SHIFT;
+        AtomicReferenceArray<T> chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = chunks.get(index);
+        }
+        chunk.set(id & (CHUNK_SIZE - 1), value);
+        return id;
+    }
+}
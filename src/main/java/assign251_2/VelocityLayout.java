@@ -6,72 +6,276 @@ import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.apache.logging.log4j.core.util.StringBuilderWriter;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 // Class to represent a Velocity layout
 @Plugin(name = "VelocityLayout", category = "Core", elementType = "layout", printObject = true)
 public class VelocityLayout extends AbstractStringLayout {
 
-    // variable to store the pattern of the layout
-    private String pattern;
-    // variable to store the VelocityEngine instance
-    private VelocityEngine velocityEngine;
+    // default pattern used when no pattern is given
+    private static final String DEFAULT_PATTERN = "[$p] $c $d: $m$n";
+
+    // variable to store the Velocity runtime used to parse the pattern
+    private RuntimeInstance velocityRuntime;
+    // variable to store the pattern together with its parsed template and date format (swapped as a single unit)
+    private volatile CompiledPattern compiledPattern;
+    // variable to store whether formatting reuses pooled contexts and output buffers
+    private volatile boolean reuseBuffers;
+    // pool of reusable formatting state (shared by platform and virtual threads)
+    private final FormatStatePool formatStatePool = new FormatStatePool();
 
     // Constructor to initialize the VelocityLayout
     protected VelocityLayout(Charset charset, String pattern) {
+        this(charset, pattern, false);
+    }
+
+    // Constructor to initialize the VelocityLayout with buffer reuse enabled or disabled
+    protected VelocityLayout(Charset charset, String pattern, boolean reuseBuffers) {
+        this(charset, pattern, reuseBuffers, null);
+    }
+
+    // Constructor to initialize the VelocityLayout with a date format for $d (null for the Date.toString() format)
+    protected VelocityLayout(Charset charset, String pattern, boolean reuseBuffers, String dateFormat) {
         super(charset);
-        this.pattern = pattern;
         initializeVelocityEngine();
+        this.compiledPattern = compile(pattern, new CachedDateFormat(dateFormat));
+        this.reuseBuffers = reuseBuffers;
     }
 
-    // Method to format the log event using the Velocity template
+    // Method to initialize the Velocity runtime
     private void initializeVelocityEngine() {
-        velocityEngine = new VelocityEngine();
-        velocityEngine.init();
+        velocityRuntime = new RuntimeInstance();
+        velocityRuntime.init();
+    }
+
+    // Method to parse the pattern once into a reusable template
+    private CompiledPattern compile(String pattern, CachedDateFormat dateFormat) {
+        Template template = new Template();
+        template.setName("VelocityLayout");
+        template.setRuntimeServices(velocityRuntime);
+        try {
+            template.setData(velocityRuntime.parse(new StringReader(pattern), template));
+        } catch (ParseException e) {
+            throw new ParseErrorException(e, null);
+        }
+        template.initDocument();
+        return new CompiledPattern(pattern, template, DirectPattern.compile(pattern, dateFormat), dateFormat);
     }
 
     // Factory method to create and return the VelocityLayout instance
+    public static VelocityLayout createLayout(Charset charset, String pattern) {
+        return createLayout(charset, pattern, false);
+    }
+
+    // Factory method to create and return the VelocityLayout instance with buffer reuse enabled or disabled
+    public static VelocityLayout createLayout(Charset charset, String pattern, boolean reuseBuffers) {
+        return createLayout(charset, pattern, reuseBuffers, null);
+    }
+
+    // Factory method to create and return the VelocityLayout instance from the configuration
     @PluginFactory
     public static VelocityLayout createLayout(
             @PluginAttribute(value = "charset", defaultString = "UTF-8") Charset charset,
-            @PluginAttribute("pattern") String pattern) {
+            @PluginAttribute("pattern") String pattern,
+            @PluginAttribute(value = "reuseBuffers", defaultBoolean = false) boolean reuseBuffers,
+            @PluginAttribute("dateFormat") String dateFormat) {
         if (pattern == null) {
-            pattern = "[$p] $c $d: $m$n"; // Set default pattern if null
+            pattern = DEFAULT_PATTERN; // Set default pattern if null
         }
-        return new VelocityLayout(charset, pattern);
+        return new VelocityLayout(charset, pattern, reuseBuffers, dateFormat);
     }
     
-    // Method to set the pattern of the layout
+    // Method to set the pattern of the layout (the new template is compiled before it is published)
     public void setPattern(String pattern) {
+        CachedDateFormat dateFormat = compiledPattern.dateFormat();
         if (pattern == null) {
-            this.pattern = "[$p] $c $d: $m$n"; // Default pattern
+            this.compiledPattern = compile(DEFAULT_PATTERN, dateFormat); // Default pattern
         } else {
-            this.pattern = pattern;
+            this.compiledPattern = compile(pattern, dateFormat);
         }
     }
 
     // Method to get the pattern of the layout
     public String getPattern() {
-        return pattern;
+        return compiledPattern.pattern();
+    }
+
+    // Method to set the DateTimeFormatter pattern used to render $d (null for the Date.toString() format)
+    public void setDateFormat(String dateFormat) {
+        CompiledPattern compiled = compiledPattern;
+        this.compiledPattern = compile(compiled.pattern(), new CachedDateFormat(dateFormat));
+    }
+
+    // Method to get the DateTimeFormatter pattern used to render $d (null for the Date.toString() format)
+    public String getDateFormat() {
+        return compiledPattern.dateFormat().getPattern();
+    }
+
+    // Method to check whether the current pattern is formatted without the Velocity engine
+    boolean isDirectPattern() {
+        return compiledPattern.direct() != null;
+    }
+
+    // Method to enable or disable reuse of pooled contexts and output buffers when formatting
+    public void setReuseBuffers(boolean reuseBuffers) {
+        this.reuseBuffers = reuseBuffers;
+    }
+
+    // Method to check whether pooled contexts and output buffers are reused when formatting
+    public boolean isReuseBuffers() {
+        return reuseBuffers;
     }
 
     // Override method to format the log event using the Velocity template
     @Override
     public String toSerializable(LogEvent event) {
+        CompiledPattern compiled = compiledPattern;
+        if (compiled.direct() != null) {
+            return formatDirect(compiled.direct(), event);
+        }
+        if (reuseBuffers) {
+            return formatWithPooledState(compiled, event);
+        }
         VelocityContext context = new VelocityContext();
         context.put("c", event.getLoggerName());
-        context.put("d", new Date(event.getTimeMillis()));
+        context.put("d", new LayoutDate(event.getTimeMillis(), compiled.dateFormat()));
         context.put("m", event.getMessage().getFormattedMessage());
         context.put("p", event.getLevel().toString());
         context.put("t", event.getThreadName());
         context.put("n", System.lineSeparator());
 
         StringWriter writer = new StringWriter();
-        velocityEngine.evaluate(context, writer, "VelocityLayout", pattern);
+        compiled.template().merge(context, writer);
         return writer.toString();
     }
+
+    // Method to format the log event with the precomputed appenders of a simple pattern (no Velocity engine)
+    private String formatDirect(DirectPattern direct, LogEvent event) {
+        if (!reuseBuffers) {
+            StringBuilder builder = new StringBuilder(DEFAULT_STRING_BUILDER_SIZE);
+            direct.format(event, builder);
+            return builder.toString();
+        }
+        FormatState state = formatStatePool.acquire();
+        try {
+            StringBuilder builder = state.writer.getBuilder();
+            builder.setLength(0);
+            direct.format(event, builder);
+            String result = builder.toString();
+            trimToMaxSize(builder); // Do not keep huge buffers alive in the pool
+            return result;
+        } finally {
+            formatStatePool.release(state);
+        }
+    }
+
+    // Method to format the log event with pooled state so that only the result String is allocated by the layout
+    private String formatWithPooledState(CompiledPattern compiled, LogEvent event) {
+        FormatState state = formatStatePool.acquire();
+        try {
+            state.date.set(event.getTimeMillis(), compiled.dateFormat());
+            VelocityContext context = state.context;
+            context.put("c", event.getLoggerName());
+            context.put("d", state.date);
+            context.put("m", event.getMessage().getFormattedMessage());
+            context.put("p", event.getLevel().toString());
+            context.put("t", event.getThreadName());
+            context.put("n", System.lineSeparator());
+
+            StringBuilder builder = state.writer.getBuilder();
+            builder.setLength(0);
+            compiled.template().merge(context, state.writer);
+            state.dropTemplateVariables();
+            String result = builder.toString();
+            trimToMaxSize(builder); // Do not keep huge buffers alive in the pool
+            return result;
+        } finally {
+            formatStatePool.release(state);
+        }
+    }
+
+    // Class to hold the reusable state for formatting one event
+    private static final class FormatState {
+        // Variables put into the context for every event
+        private static final Set<String> EVENT_VARIABLES = Set.of("c", "d", "m", "p", "t", "n");
+
+        private final Map<String, Object> variables = new HashMap<>();
+        final VelocityContext context = new VelocityContext(variables);
+        final StringBuilderWriter writer = new StringBuilderWriter(DEFAULT_STRING_BUILDER_SIZE);
+        final LayoutDate date = new LayoutDate(0, null);
+
+        // Method to drop the variables the template itself set (with #set), so that they do not leak into the
+        // next event, as they cannot with the fresh context of the default path
+        void dropTemplateVariables() {
+            if (variables.size() > EVENT_VARIABLES.size()) {
+                variables.keySet().retainAll(EVENT_VARIABLES);
+            }
+        }
+    }
+
+    // Class to represent the value of $d: still a Date for templates that use its properties, but rendered
+    // through the cached date format of the layout
+    private static final class LayoutDate extends Date {
+        private static final long serialVersionUID = 1L;
+
+        private transient CachedDateFormat dateFormat;
+
+        LayoutDate(long timeMillis, CachedDateFormat dateFormat) {
+            super(timeMillis);
+            this.dateFormat = dateFormat;
+        }
+
+        void set(long timeMillis, CachedDateFormat dateFormat) {
+            setTime(timeMillis);
+            this.dateFormat = dateFormat;
+        }
+
+        @Override
+        public String toString() {
+            return dateFormat != null ? dateFormat.format(getTime()) : super.toString();
+        }
+    }
+
+    // Class to represent a small lock-free pool of formatting state.
+    // A ThreadLocal would allocate fresh state for every short-lived virtual thread, so instead each thread
+    // is mapped to a slot by its id and takes the state out of the slot while formatting. When the slot is
+    // empty (another thread is using it) fresh state is created and may be returned to a free slot later.
+    private static final class FormatStatePool {
+        private static final int SLOTS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4) << 1;
+        private final AtomicReferenceArray<FormatState> slots = new AtomicReferenceArray<>(SLOTS);
+
+        FormatState acquire() {
+            int index = slotIndex();
+            FormatState state = slots.getAndSet(index, null);
+            return state != null ? state : new FormatState();
+        }
+
+        void release(FormatState state) {
+            slots.compareAndSet(slotIndex(), null, state);
+        }
+
+        private static int slotIndex() {
+            long id = Thread.currentThread().threadId();
+            return (int) (id ^ (id >>> 16)) & (SLOTS - 1);
+        }
+    }
+
+    // Record to hold a pattern, the template parsed from it, its engine-free form (null if it needs the engine)
+    // and the date format its $d is rendered with
+    private record CompiledPattern(String pattern, Template template, DirectPattern direct,
+            CachedDateFormat dateFormat) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package assign251_2;
+
+// Import other necessary classes
+import java.util.concurrent.locks.LockSupport;
+
+// Enum to represent how a thread waits for the asynchronous ingest queue of MemAppender
+// (the consumer waiting for events, or a blocked producer waiting for free space)
+public enum WaitStrategy {
+
+    // Busy-spin: lowest latency, but keeps a core busy while waiting
+    SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    // Spin briefly, then give up the processor to other threads between checks
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    // Spin briefly, then sleep for a short interval between checks: lowest CPU use, highest latency (the
+    // default, since an idle consumer then costs next to nothing)
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    // Number of attempts that spin before yielding or parking
+    private static final int SPIN_ATTEMPTS = 100;
+
+    // Time a parked thread sleeps before checking again
+    private static final long PARK_NANOS = 50_000;
+
+    // Method to wait once, given how many times in a row the caller has already waited
+    abstract void idle(int attempt);
+}
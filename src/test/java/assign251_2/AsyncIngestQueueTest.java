@@ -0,0 +1,155 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static assign251_2.TestEvents.createEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Class to test the AsyncIngestQueue class
+public class AsyncIngestQueueTest {
+
+    // === Section 1. Single-threaded behaviour
+
+    // Test that a full queue applies the overflow policy and a closed queue hands events back to the caller
+    @Test
+    public void testOverflowAndClose() throws InterruptedException {
+        List<LogEvent> stored = new ArrayList<>();
+        AsyncIngestQueue queue = new AsyncIngestQueue("test-ingest", 3, WaitStrategy.YIELD, OverflowPolicy.DROP,
+            stored::add, (event, e) -> { });
+        assertEquals(4, queue.getCapacity(), "Capacity should be rounded up to a power of two");
+
+        // The consumer is not running yet, so the fifth event finds the queue full
+        for (int i = 0; i < 4; i++) {
+            assertEquals(AsyncIngestQueue.Offer.ACCEPTED, queue.offer(createEvent("Message " + i)));
+        }
+        assertEquals(AsyncIngestQueue.Offer.REJECTED, queue.offer(createEvent("Message 4")));
+
+        // Closing drains the queued events in order
+        queue.start();
+        assertTrue(queue.close(10, TimeUnit.SECONDS), "Consumer should drain and exit");
+        assertEquals(4, stored.size(), "Every accepted event should be stored");
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Message " + i, stored.get(i).getMessage().getFormattedMessage());
+        }
+        assertEquals(AsyncIngestQueue.Offer.CLOSED, queue.offer(createEvent("Message 5")));
+    }
+
+    // Test that a failing sink reports the event and keeps consuming
+    @Test
+    public void testSinkFailureIsReported() throws InterruptedException {
+        List<LogEvent> failed = new ArrayList<>();
+        List<LogEvent> stored = new ArrayList<>();
+        AsyncIngestQueue queue = new AsyncIngestQueue("test-ingest", 8, WaitStrategy.PARK, OverflowPolicy.BLOCK,
+            event -> {
+                if (event.getMessage().getFormattedMessage().equals("Message 1")) {
+                    throw new IllegalStateException("Sink failure");
+                }
+                stored.add(event);
+            },
+            (event, e) -> failed.add(event));
+        queue.start();
+        for (int i = 0; i < 3; i++) {
+            queue.offer(createEvent("Message " + i));
+        }
+        queue.awaitConsumed();
+        assertEquals(1, failed.size(), "The failing event should be reported");
+        assertEquals(2, stored.size(), "The other events should still be stored");
+        assertTrue(queue.close(10, TimeUnit.SECONDS), "Consumer should exit");
+    }
+
+    // Test that a consumer killed by an error makes blocked producers give up instead of waiting forever, and
+    // that closing hands the events it left behind to the sink
+    @Test
+    @Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void testDeadConsumerReleasesBlockedProducers() throws InterruptedException {
+        List<LogEvent> stored = new ArrayList<>();
+        CountDownLatch died = new CountDownLatch(1);
+        AsyncIngestQueue queue = new AsyncIngestQueue("test-ingest", 2, WaitStrategy.PARK, OverflowPolicy.BLOCK,
+            event -> {
+                if (event.getMessage().getFormattedMessage().equals("Message 0") && died.getCount() > 0) {
+                    died.countDown();
+                    throw new StackOverflowError("Consumer failure"); // an error, so the handler does not see it
+                }
+                stored.add(event);
+            },
+            (event, e) -> { });
+        queue.start();
+        assertEquals(AsyncIngestQueue.Offer.ACCEPTED, queue.offer(createEvent("Message 0")));
+        died.await();
+
+        // The queue fills up at most once more; after that a blocking producer must not wait for the dead consumer
+        int accepted = 1;
+        int offered = 1;
+        while (queue.offer(createEvent("Message " + offered++)) == AsyncIngestQueue.Offer.ACCEPTED) {
+            accepted++;
+        }
+        assertTrue(accepted <= 1 + queue.getCapacity(), "Producers should stop handing events to a dead consumer");
+        assertEquals(AsyncIngestQueue.Offer.CLOSED, queue.offer(createEvent("Late")));
+
+        assertTrue(queue.close(10, TimeUnit.SECONDS), "Closing should not wait for the dead consumer");
+        assertEquals(accepted - 1, stored.size(), "Events left in the queue should be stored on close");
+    }
+
+    // Test that invalid queue sizes are rejected
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncIngestQueue("test-ingest", 0,
+            WaitStrategy.YIELD, OverflowPolicy.BLOCK, event -> { }, (event, e) -> { }));
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that blocking producers never lose events and each producer's events stay in order
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    @Timeout(60)
+    public void testBlockingProducersLoseNothing(WaitStrategy waitStrategy) throws InterruptedException {
+        int threads = 4;
+        int eventsPerThread = 5_000;
+        List<LogEvent> stored = new ArrayList<>();
+        AsyncIngestQueue queue = new AsyncIngestQueue("test-ingest", 64, waitStrategy, OverflowPolicy.BLOCK,
+            stored::add, (event, e) -> { });
+        queue.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    assertEquals(AsyncIngestQueue.Offer.ACCEPTED, queue.offer(createEvent(thread + ":" + i)));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+        assertTrue(queue.close(60, TimeUnit.SECONDS), "Consumer should drain and exit");
+
+        assertEquals(threads * eventsPerThread, stored.size(), "Every event should be stored");
+        int[] lastIndex = new int[threads];
+        Arrays.fill(lastIndex, -1);
+        for (LogEvent event : stored) {
+            String[] parts = event.getMessage().getFormattedMessage().split(":");
+            int thread = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertEquals(lastIndex[thread] + 1, index, "Events of one producer should stay in order");
+            lastIndex[thread] = index;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static assign251_2.TestEvents.createEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+
+// Class to test the BulkFormatter class
+public class BulkFormatterTest {
+
+    // Formatter shared by the tests
+    private final BulkFormatter formatter = new BulkFormatter(4);
+
+    // Layout used to format the events
+    private final VelocityLayout layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "$m");
+
+    // Method to release the worker threads after each test
+    @AfterEach
+    public void tearDown() {
+        formatter.shutdown();
+    }
+
+    // Test that a snapshot spanning many segments is formatted in its original order
+    @Test
+    public void testSnapshotKeepsOrder() {
+        LogEventBuffer buffer = new LogEventBuffer(20000);
+        for (int i = 0; i < 25000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> snapshot = buffer.snapshot();
+        List<String> expected = snapshot.stream().map(layout::toSerializable).collect(Collectors.toList());
+        List<String> strings = formatter.format(snapshot, layout);
+        assertEquals(expected, strings, "Strings should keep the order of the events");
+        assertEquals("Message 5000", strings.get(0));
+    }
+
+    // Test that lists without exact split sizes and empty lists are formatted correctly
+    @Test
+    public void testOtherLists() {
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            events.add(createEvent("Message " + i));
+        }
+        List<LogEvent> unsized = new AbstractList<>() {
+            @Override
+            public LogEvent get(int index) {
+                return events.get(index);
+            }
+
+            @Override
+            public int size() {
+                return events.size();
+            }
+
+            @Override
+            public Spliterator<LogEvent> spliterator() {
+                return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+            }
+        };
+        List<String> expected = events.stream().map(layout::toSerializable).collect(Collectors.toList());
+        assertEquals(expected, formatter.format(events, layout), "Array lists should keep their order");
+        assertEquals(expected, formatter.format(unsized, layout), "Lists without sizes should keep their order");
+        assertEquals(List.of(), formatter.format(List.of(), layout), "Empty lists should give no strings");
+    }
+
+    // Test that a failing layout reports its exception to the caller
+    @Test
+    public void testLayoutFailurePropagates() {
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            events.add(createEvent("Message " + i));
+        }
+        Layout<String> failing = new AbstractStringLayout(StandardCharsets.UTF_8) {
+            @Override
+            public String toSerializable(LogEvent event) {
+                if (event.getMessage().getFormattedMessage().equals("Message 2500")) {
+                    throw new IllegalStateException("Cannot format");
+                }
+                return event.getMessage().getFormattedMessage();
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> formatter.format(events, failing));
+    }
+}
@@ -0,0 +1,77 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Class to test the CachedDateFormat class
+public class CachedDateFormatTest {
+
+    // Timestamp the tests start from
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    // Test that without a format the text is the one Date.toString() produces, before and after the epoch
+    @Test
+    public void testDefaultMatchesDateToString() {
+        CachedDateFormat dateFormat = new CachedDateFormat(null);
+        for (long time : new long[] {BASE_TIME, BASE_TIME + 999, BASE_TIME + 1_000, BASE_TIME - 1, 0, -1, -1_001}) {
+            assertEquals(new Date(time).toString(), dateFormat.format(time), "Wrong text for " + time);
+        }
+    }
+
+    // Test that cached formats render like an uncached DateTimeFormatter, with or without sub-second fields
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm:ss.SSS", "HH:mm:ss,S", "HH:mm:ss.SS", "ss.SSSSSS",
+        "HH:mm:ss.SSS 'UTC'", "ss 'SSS'", "ss''SSS", "SSS", "A", "ss.n", "'at' HH:mm:ss.SSS Z"
+    })
+    public void testMatchesDateTimeFormatter(String pattern) {
+        CachedDateFormat dateFormat = new CachedDateFormat(pattern);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+        for (long time = BASE_TIME - 1_500; time < BASE_TIME + 2_500; time += 7) {
+            assertEquals(formatter.format(Instant.ofEpochMilli(time)), dateFormat.format(time),
+                "Wrong text for " + pattern + " at " + time);
+            StringBuilder builder = new StringBuilder("x");
+            dateFormat.formatTo(time, builder);
+            assertEquals("x" + formatter.format(Instant.ofEpochMilli(time)), builder.toString());
+        }
+    }
+
+    // Test that threads formatting timestamps of different seconds at the same time never see another second
+    @Test
+    public void testConcurrentSeconds() throws Exception {
+        CachedDateFormat dateFormat = new CachedDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int task = 0; task < 8; task++) {
+                long offset = task * 997L;
+                results.add(executor.submit(() -> {
+                    int mismatches = 0;
+                    for (int i = 0; i < 20_000; i++) {
+                        long time = BASE_TIME + (offset + i * 13L) % 10_000;
+                        if (!formatter.format(Instant.ofEpochMilli(time)).equals(dateFormat.format(time))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+        }
+        for (Future<Integer> result : results) {
+            assertEquals(0, result.get(), "Every timestamp should render as its own second");
+        }
+    }
+}
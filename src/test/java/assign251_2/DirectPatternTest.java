@@ -0,0 +1,108 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+// Class to test the DirectPattern class against the Velocity engine
+public class DirectPatternTest {
+
+    // Velocity engine used to produce the expected output
+    private static final VelocityEngine ENGINE = createEngine();
+
+    // === Section 1. Test that simple patterns bypass the engine with identical output
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "[$p] $c $d: $m$n", "[$p] $c ($t) $d - $m$n", "$m - [$p] $c", "", "plain text",
+        "${m}x", "$!m", "$!{c}", "$m.", "$m(x)", "$$m", "$m$", "a$", "$ m", "$1m", "$m%", "$m-",
+        "$mm", "${mm}", "$!mm", "$invalid $x $y $z $m", "$t|$!t|${t}"
+    })
+    public void testSimplePatternsMatchEngine(String pattern) {
+        assertNotNull(DirectPattern.compile(pattern, new CachedDateFormat(null)),
+            "Pattern should be compiled without the engine: " + pattern);
+        VelocityLayout layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern);
+        assertTrue(layout.isDirectPattern(), "Layout should bypass the engine for: " + pattern);
+
+        LogEvent event = createEvent("TestThread");
+        assertEquals(evaluateWithEngine(pattern, event), layout.toSerializable(event), "Output should match the engine");
+
+        LogEvent eventWithoutThread = createEvent(null);
+        assertEquals(evaluateWithEngine(pattern, eventWithoutThread), layout.toSerializable(eventWithoutThread),
+            "Null values should render like the engine");
+    }
+
+    // === Section 2. Test that patterns needing the engine fall back to it
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "#if($p == \"INFO\")info#end $m", "#foreach($i in [1..2])$i#end", "#set($x = 1)$x", "\\$m",
+        "$m.length()", "$c.toUpperCase() $m", "$m[0]", "## comment$n$m", "#macro(x)X#end#x()"
+    })
+    public void testDirectivePatternsFallBackToEngine(String pattern) {
+        assertNull(DirectPattern.compile(pattern, new CachedDateFormat(null)),
+            "Pattern should need the engine: " + pattern);
+        VelocityLayout layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern);
+        assertFalse(layout.isDirectPattern(), "Layout should use the engine for: " + pattern);
+
+        LogEvent event = createEvent("TestThread");
+        assertEquals(evaluateWithEngine(pattern, event), layout.toSerializable(event), "Output should match the engine");
+    }
+
+    // Test that changing the pattern switches between the direct and engine paths
+    @Test
+    public void testSetPatternSwitchesPath() {
+        VelocityLayout layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, null);
+        assertTrue(layout.isDirectPattern(), "Default pattern should bypass the engine");
+        layout.setPattern("#if(true)$m#end");
+        assertFalse(layout.isDirectPattern(), "Directive pattern should use the engine");
+        assertEquals("Test message", layout.toSerializable(createEvent("TestThread")));
+        layout.setPattern("$m!");
+        assertTrue(layout.isDirectPattern(), "Simple pattern should bypass the engine again");
+        assertEquals("Test message!", layout.toSerializable(createEvent("TestThread")));
+    }
+
+    // === Helper methods
+
+    // Helper method to create the engine used for the expected output
+    private static VelocityEngine createEngine() {
+        VelocityEngine engine = new VelocityEngine();
+        engine.init();
+        return engine;
+    }
+
+    // Helper method to format an event with the Velocity engine the way VelocityLayout populates the context
+    private static String evaluateWithEngine(String pattern, LogEvent event) {
+        VelocityContext context = new VelocityContext();
+        context.put("c", event.getLoggerName());
+        context.put("d", new Date(event.getTimeMillis()));
+        context.put("m", event.getMessage().getFormattedMessage());
+        context.put("p", event.getLevel().toString());
+        context.put("t", event.getThreadName());
+        context.put("n", System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        ENGINE.evaluate(context, writer, "DirectPatternTest", pattern);
+        return writer.toString();
+    }
+
+    // Helper method to create a log event with the given thread name
+    private static LogEvent createEvent(String threadName) {
+        return TestEvents.eventBuilder(Level.INFO, "Test message")
+            .setThreadName(threadName)
+            .setTimeMillis(1_700_000_000_000L)
+            .build();
+    }
+}
@@ -0,0 +1,125 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Class to test the EventIndex class against a linear scan of the retained events
+public class EventIndexTest {
+
+    // Levels and loggers used by the generated events
+    private static final Level[] LEVELS = {Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+    private static final String[] LOGGERS = {"com.example.Alpha", "com.example.Beta", "com.example.Gamma"};
+
+    // === Section 1. Single-threaded behaviour
+
+    // Test that every combination of filters returns exactly what a scan returns, with out-of-order timestamps
+    @Test
+    public void testQueriesMatchScan() {
+        LogEventBuffer buffer = new LogEventBuffer(5000);
+        EventIndex index = new EventIndex(buffer, 0);
+        Random random = new Random(42);
+        for (int i = 0; i < 12000; i++) {
+            // Timestamps mostly increase but may run up to 50 ms late
+            LogEvent event = createEvent(i, LEVELS[random.nextInt(LEVELS.length)],
+                LOGGERS[random.nextInt(LOGGERS.length)], 1_000_000L + i * 10L - random.nextInt(50));
+            index.record(buffer.append(event), event);
+        }
+
+        long from = 1_000_000L + 9000 * 10L;
+        long to = 1_000_000L + 10000 * 10L;
+        List<EventQuery> queries = List.of(
+            EventQuery.all(),
+            EventQuery.all().withLevels(Level.ERROR),
+            EventQuery.all().withLevels(Level.WARN, Level.ERROR),
+            EventQuery.all().withLogger("com.example.Beta"),
+            EventQuery.all().withLogger("com.example.Missing"),
+            EventQuery.all().withTimeRange(from, to),
+            EventQuery.all().withLevels(Level.ERROR).withLogger("com.example.Alpha"),
+            EventQuery.all().withLevels(Level.INFO, Level.DEBUG).withLogger("com.example.Gamma").withTimeRange(from, to),
+            EventQuery.all().withTimeRange(0, 1_000_000L + 7001 * 10L));
+        for (EventQuery query : queries) {
+            List<LogEvent> expected = buffer.toList().stream().filter(query::matches).collect(Collectors.toList());
+            assertEquals(messages(expected), messages(index.query(query)), "Index should match a scan");
+        }
+    }
+
+    // Test that cleared and evicted events are no longer returned
+    @Test
+    public void testQueriesIgnoreEvictedEvents() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        EventIndex index = new EventIndex(buffer, 0);
+        for (int i = 0; i < 3000; i++) {
+            LogEvent event = createEvent(i, Level.ERROR, LOGGERS[0], i);
+            index.record(buffer.append(event), event);
+        }
+        buffer.setCapacity(10);
+        List<LogEvent> errors = index.query(EventQuery.all().withLevels(Level.ERROR));
+        assertEquals(10, errors.size(), "Only retained events should match");
+        assertEquals("Message 2990", errors.get(0).getMessage().getFormattedMessage());
+
+        buffer.clear();
+        assertTrue(index.query(EventQuery.all().withLevels(Level.ERROR)).isEmpty(), "Cleared events should not match");
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that concurrent producers are all indexed
+    @Test
+    @Timeout(60)
+    public void testConcurrentRecording() throws InterruptedException {
+        int threads = 4;
+        int eventsPerThread = 20_000;
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        EventIndex index = new EventIndex(buffer, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    LogEvent event = createEvent(i, LEVELS[i % LEVELS.length], LOGGERS[thread % LOGGERS.length],
+                        System.currentTimeMillis());
+                    index.record(buffer.append(event), event);
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        assertEquals(threads * eventsPerThread, index.query(EventQuery.all()).size(), "Every event should be indexed");
+        EventQuery query = EventQuery.all().withLevels(Level.ERROR).withLogger(LOGGERS[1]);
+        List<LogEvent> expected = buffer.toList().stream().filter(query::matches).collect(Collectors.toList());
+        assertEquals(messages(expected), messages(index.query(query)), "Index should match a scan");
+    }
+
+    // === Helper methods
+
+    // Helper method to create a log event
+    private static LogEvent createEvent(int i, Level level, String loggerName, long timeMillis) {
+        return TestEvents.eventBuilder(level, "Message " + i)
+            .setLoggerName(loggerName)
+            .setTimeMillis(timeMillis)
+            .build();
+    }
+
+    // Helper method to extract the messages of events
+    private static List<String> messages(List<LogEvent> events) {
+        return events.stream().map(event -> event.getMessage().getFormattedMessage()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,191 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.filter.ThresholdFilter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Class to test the FlightRecorder class
+public class FlightRecorderTest {
+
+    // Timestamp of the first event created by the tests
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    // Test that a trigger forwards the preceding events of its thread, oldest first, followed by itself
+    @Test
+    public void testForwardsContextOfSameThread() throws InterruptedException {
+        LogEventBuffer store = new LogEventBuffer(Integer.MAX_VALUE);
+        CollectingAppender downstream = new CollectingAppender();
+        FlightRecorder recorder = createRecorder(store, downstream, null, TriggerScope.THREAD, 3, Long.MAX_VALUE, 0);
+        recorder.start();
+        for (int i = 0; i < 10; i++) {
+            store(store, recorder, createEvent(i % 2 == 0 ? "even" : "odd", Level.DEBUG, i, "Debug " + i));
+        }
+        store(store, recorder, createEvent("even", Level.ERROR, 10, "Failure"));
+        recorder.awaitForwarded();
+
+        assertEquals(List.of("Debug 4", "Debug 6", "Debug 8", "Failure"), downstream.messages(),
+            "The newest events of the same thread should be forwarded in order");
+        assertEquals(1, recorder.getTriggeredCount());
+        assertEquals(4, recorder.getForwardedCount());
+        assertTrue(recorder.stop(1, TimeUnit.SECONDS));
+    }
+
+    // Test that the context is limited by age and never repeats events forwarded by an earlier trigger
+    @Test
+    public void testContextAgeAndNoRepeats() throws InterruptedException {
+        LogEventBuffer store = new LogEventBuffer(Integer.MAX_VALUE);
+        CollectingAppender downstream = new CollectingAppender();
+        FlightRecorder recorder = createRecorder(store, downstream, null, TriggerScope.ALL, 100, 5, 0);
+        recorder.start();
+        for (int i = 0; i < 10; i++) {
+            store(store, recorder, createEvent("main", Level.INFO, i, "Info " + i));
+        }
+        store(store, recorder, createEvent("main", Level.ERROR, 10, "First"));
+        store(store, recorder, createEvent("main", Level.INFO, 11, "Info 11"));
+        store(store, recorder, createEvent("main", Level.ERROR, 12, "Second"));
+        recorder.awaitForwarded();
+
+        assertEquals(List.of("Info 5", "Info 6", "Info 7", "Info 8", "Info 9", "First", "Info 11", "Second"),
+            downstream.messages(), "Only events within the age window and not forwarded yet should be sent");
+        assertTrue(recorder.stop(1, TimeUnit.SECONDS));
+    }
+
+    // Test that a burst of triggers within the suppression interval is forwarded only once per scope, and that
+    // the trigger filter applies
+    @Test
+    public void testSuppressionAndFilter() throws InterruptedException {
+        LogEventBuffer store = new LogEventBuffer(Integer.MAX_VALUE);
+        CollectingAppender downstream = new CollectingAppender();
+        Filter onlyFatal = ThresholdFilter.createFilter(Level.FATAL, Filter.Result.NEUTRAL, Filter.Result.DENY);
+        FlightRecorder recorder = createRecorder(store, downstream, onlyFatal, TriggerScope.LOGGER, 0, Long.MAX_VALUE,
+            1_000);
+        recorder.start();
+        store(store, recorder, createEvent("main", Level.ERROR, 0, "Denied by the filter"));
+        for (int i = 0; i < 100; i++) {
+            store(store, recorder, createEvent("main", Level.FATAL, i, "Storm " + i));
+        }
+        store(store, recorder, createEvent("main", Level.FATAL, 1_500, "After the storm"));
+        recorder.awaitForwarded();
+
+        assertEquals(List.of("Storm 0", "After the storm"), downstream.messages());
+        assertEquals(101, recorder.getTriggeredCount());
+        assertEquals(99, recorder.getSuppressedCount());
+        assertTrue(recorder.stop(1, TimeUnit.SECONDS));
+    }
+
+    // Test that a trigger that could not be queued does not suppress the next trigger of its scope
+    @Test
+    public void testUnqueuedTriggerDoesNotSuppress() throws InterruptedException {
+        LogEventBuffer store = new LogEventBuffer(Integer.MAX_VALUE);
+        CollectingAppender downstream = new CollectingAppender();
+        FlightRecorder recorder = createRecorder(store, downstream, null, TriggerScope.LOGGER, 0, Long.MAX_VALUE,
+            1_000);
+        store(store, recorder, createEvent("main", Level.ERROR, 0, "Before the start"));
+        recorder.start();
+        store(store, recorder, createEvent("main", Level.ERROR, 10, "After the start"));
+        recorder.awaitForwarded();
+
+        assertEquals(List.of("After the start"), downstream.messages());
+        assertEquals(1, recorder.getSuppressedCount());
+        assertTrue(recorder.stop(1, TimeUnit.SECONDS));
+    }
+
+    // Test that the context of a trigger is read back in growing chunks: a distant context takes a logarithmic
+    // number of lookups, and a context right before its trigger only reads the first chunk
+    @Test
+    public void testContextIsReadInGrowingChunks() throws InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger candidates = new AtomicInteger();
+        LogEventStore store = (LogEventStore) Proxy.newProxyInstance(LogEventStore.class.getClassLoader(),
+            new Class<?>[] {LogEventStore.class}, (proxy, method, args) -> {
+                if (method.getName().equals("get")) {
+                    lookups.incrementAndGet();
+                    candidates.addAndGet((int) args[1]);
+                }
+                try {
+                    return method.invoke(buffer, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        CollectingAppender downstream = new CollectingAppender();
+        FlightRecorder recorder = createRecorder(store, downstream, null, TriggerScope.THREAD, 10, Long.MAX_VALUE, 0);
+        recorder.start();
+        store(store, recorder, createEvent("rare", Level.INFO, 0, "Rare"));
+        for (int i = 0; i < 5_000; i++) {
+            store(store, recorder, createEvent("busy", Level.INFO, 1, "Busy " + i));
+        }
+        store(store, recorder, createEvent("rare", Level.ERROR, 2, "Failure"));
+        recorder.awaitForwarded();
+
+        assertEquals(List.of("Rare", "Failure"), downstream.messages());
+        assertTrue(lookups.get() <= 7, "A distant context should take a logarithmic number of lookups");
+
+        lookups.set(0);
+        candidates.set(0);
+        store(store, recorder, createEvent("busy", Level.ERROR, 3, "Busy failure"));
+        recorder.awaitForwarded();
+        assertEquals(2 + 10 + 1, downstream.messages().size());
+        assertEquals("Busy 4990", downstream.messages().get(2), "The newest events of the scope form the context");
+        assertEquals(1, lookups.get(), "A nearby context should be found in the first chunk");
+        assertTrue(candidates.get() <= 64, "Only the first chunk should be read, not the whole buffer");
+        assertTrue(recorder.stop(1, TimeUnit.SECONDS));
+    }
+
+    // === Helper methods
+
+    // Helper method to create a recorder that reads from the given store
+    private static FlightRecorder createRecorder(LogEventStore store, CollectingAppender downstream, Filter filter,
+            TriggerScope scope, int contextEvents, long contextMillis, long suppressionMillis) {
+        return new FlightRecorder("FlightRecorderTest", downstream, Level.ERROR, filter, scope, contextEvents,
+            contextMillis, suppressionMillis, () -> store, (event, e) -> {
+                throw e;
+            });
+    }
+
+    // Helper method to store an event the way MemAppender does
+    private static void store(LogEventStore store, FlightRecorder recorder, LogEvent event) {
+        recorder.stored(store.append(event), event);
+    }
+
+    // Helper method to create a log event with the given thread, level, time offset and message
+    private static LogEvent createEvent(String thread, Level level, long offsetMillis, String message) {
+        return TestEvents.eventBuilder(level, message)
+            .setThreadName(thread)
+            .setTimeMillis(BASE_TIME + offsetMillis)
+            .build();
+    }
+
+    // Class to represent an appender that collects the events it receives
+    private static final class CollectingAppender extends AbstractAppender {
+        private final List<LogEvent> events = new CopyOnWriteArrayList<>();
+
+        CollectingAppender() {
+            super("Collecting", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            events.add(event);
+        }
+
+        List<String> messages() {
+            return events.stream().map(event -> event.getMessage().getFormattedMessage()).collect(Collectors.toList());
+        }
+    }
+}
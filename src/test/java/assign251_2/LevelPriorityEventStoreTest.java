@@ -0,0 +1,217 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static assign251_2.TestEvents.createEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Class to test the LevelPriorityEventStore class
+public class LevelPriorityEventStoreTest {
+
+    // === Section 1. Eviction order
+
+    // Test that a burst of DEBUG events evicts DEBUG events before the ERROR events
+    @Test
+    public void testLeastSevereEvictedFirst() {
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(), 10, StorageMode.HEAP);
+        for (int i = 0; i < 3; i++) {
+            store.append(createEvent(Level.ERROR, "Error " + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            store.append(createEvent(Level.DEBUG, "Debug " + i));
+        }
+        List<LogEvent> events = store.toList();
+        assertEquals(10, events.size(), "Should only keep capacity events");
+        assertEquals("Error 0", events.get(0).getMessage().getFormattedMessage(), "Errors should be kept");
+        assertEquals("Error 2", events.get(2).getMessage().getFormattedMessage());
+        assertEquals("Debug 93", events.get(3).getMessage().getFormattedMessage(), "Newest DEBUG events should stay");
+        assertEquals(Map.of(Level.DEBUG, 93L), store.getDiscardedCountByLevel());
+        assertEquals(93, store.getDiscardedCount());
+    }
+
+    // Test that a reservation keeps a share of the capacity for a less severe level
+    @Test
+    public void testReservationsKeepAShare() {
+        LevelPriorityEventStore reserved = new LevelPriorityEventStore(Map.of(Level.INFO, 4), 10, StorageMode.OFF_HEAP);
+        LevelPriorityEventStore unreserved = new LevelPriorityEventStore(Map.of(), 10, StorageMode.OFF_HEAP);
+        for (LevelPriorityEventStore store : List.of(reserved, unreserved)) {
+            for (int i = 0; i < 4; i++) {
+                store.append(createEvent(Level.INFO, "Info " + i));
+            }
+            for (int i = 0; i < 20; i++) {
+                store.append(createEvent(Level.ERROR, "Error " + i));
+            }
+        }
+        List<LogEvent> events = reserved.toList();
+        assertEquals(10, events.size());
+        assertEquals("Info 0", events.get(0).getMessage().getFormattedMessage(), "Reserved events should stay");
+        assertEquals("Error 14", events.get(4).getMessage().getFormattedMessage());
+        assertEquals(Map.of(Level.ERROR, 14L), reserved.getDiscardedCountByLevel());
+        assertEquals(Map.of(Level.INFO, 4L, Level.ERROR, 10L), unreserved.getDiscardedCountByLevel(),
+            "Without a reservation the less severe level should be evicted first");
+    }
+
+    // Test that custom levels share the tier of the nearest standard level that is not more severe
+    @Test
+    public void testCustomLevels() {
+        Level notice = Level.forName("NOTICE", 350);
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(notice, 2, Level.INFO, 3), 2,
+            StorageMode.HEAP);
+        assertEquals(5, store.getReservation(Level.INFO), "Reservations of one tier should add up");
+        store.append(createEvent(Level.WARN, "Warn"));
+        store.append(createEvent(notice, "Notice 0"));
+        store.append(createEvent(notice, "Notice 1"));
+        assertEquals(Map.of(Level.WARN, 1L), store.getDiscardedCountByLevel(),
+            "The WARN tier is over its reservation and the INFO tier is not");
+        assertThrows(IllegalArgumentException.class,
+            () -> new LevelPriorityEventStore(Map.of(Level.INFO, -1), 2, StorageMode.HEAP));
+    }
+
+    // Test that clearing and the byte budget keep the retained count consistent
+    @Test
+    public void testClearAndByteBudget() {
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(), Integer.MAX_VALUE, StorageMode.HEAP);
+        store.append(createEvent(Level.INFO, "Message 0"));
+        long eventBytes = store.getRetainedBytes();
+        store.setMaxRetainedBytes(eventBytes * 3);
+        store.append(createEvent(Level.ERROR, "Message 1"));
+        store.append(createEvent(Level.INFO, "Message 2"));
+        store.append(createEvent(Level.INFO, "Message 3"));
+        List<LogEvent> events = store.toList();
+        assertEquals(3, events.size(), "Should only keep the events that fit the budget");
+        assertEquals("Message 1", events.get(0).getMessage().getFormattedMessage());
+
+        long[] end = new long[1];
+        store.copyRange(end);
+        store.setMaxRetainedBytes(Long.MAX_VALUE);
+        store.append(createEvent(Level.DEBUG, "Message 4"));
+        store.clearUpTo(end[0]);
+        assertEquals(1, store.size(), "Only the event appended after the copy should remain");
+        store.setCapacity(2);
+        for (int i = 5; i < 8; i++) {
+            store.append(createEvent(Level.INFO, "Message " + i));
+        }
+        assertEquals(2, store.size(), "Cleared events should not count against the capacity");
+
+        store.clear();
+        assertEquals(0, store.size(), "Store should be empty after clear");
+        assertEquals(0, store.getDiscardedCount(), "Discarded count should be reset by clear");
+    }
+
+    // Test that expiry by age drops old events from every tier and frees their share of the capacity
+    @Test
+    public void testMaxAge() {
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(), 4, StorageMode.HEAP);
+        long now = System.currentTimeMillis();
+        store.append(createEvent(Level.ERROR, "Old error", now - 60_000));
+        store.append(createEvent(Level.DEBUG, "Old debug", now - 60_000));
+        store.append(createEvent(Level.INFO, "New info", now));
+        store.setMaxAge(30_000);
+        List<LogEvent> events = store.toList();
+        assertEquals(1, events.size(), "Old events of every level should expire");
+        assertEquals("New info", events.get(0).getMessage().getFormattedMessage());
+        assertEquals(2, store.getDiscardedCount());
+
+        for (int i = 0; i < 4; i++) {
+            store.append(createEvent(Level.DEBUG, "Debug " + i, now));
+        }
+        assertEquals(4, store.size(), "Expired events should no longer count against the capacity");
+        assertEquals(Map.of(Level.ERROR, 1L, Level.DEBUG, 2L), store.getDiscardedCountByLevel());
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that concurrent producers keep an exact window and an exact discarded count
+    @Test
+    @Timeout(60)
+    public void testConcurrentAppendIsExact() throws InterruptedException {
+        int threads = 8;
+        int eventsPerThread = 50_000;
+        int capacity = 10_000;
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(Level.DEBUG, 1_000), capacity,
+            StorageMode.HEAP);
+        Level[] levels = {Level.ERROR, Level.INFO, Level.DEBUG, Level.DEBUG};
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    store.append(createEvent(levels[(thread + i) & 3], thread + ":" + i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        List<LogEvent> events = store.toList();
+        assertEquals(capacity, events.size(), "Store should be full");
+        assertEquals((long) threads * eventsPerThread - capacity, store.getDiscardedCount(),
+            "Discarded count should be exact under concurrency");
+        long errors = events.stream().filter(event -> event.getLevel() == Level.ERROR).count();
+        long debugs = events.stream().filter(event -> event.getLevel() == Level.DEBUG).count();
+        assertEquals(capacity - 1_000, errors, "Errors should fill everything but the DEBUG reservation");
+        assertEquals(1_000, debugs, "DEBUG events should keep their reservation");
+    }
+
+    // Test that clearing while producers append keeps the retained count exact, so that the store fills up to
+    // its capacity again afterwards and evicts only beyond it
+    @Test
+    @Timeout(60)
+    public void testClearDuringAppendKeepsCount() throws Exception {
+        int threads = 4;
+        int capacity = 1_000;
+        LevelPriorityEventStore store = new LevelPriorityEventStore(Map.of(), capacity, StorageMode.HEAP);
+        Level[] levels = {Level.ERROR, Level.INFO, Level.DEBUG, Level.TRACE};
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            producers.add(executor.submit(() -> {
+                for (int i = 0; running.get(); i++) {
+                    store.append(createEvent(levels[(thread + i) & 3], thread + ":" + i));
+                }
+            }));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            store.clear();
+        }
+        running.set(false);
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        executor.shutdown();
+
+        store.clear();
+        for (int i = 0; i < capacity; i++) {
+            store.append(createEvent(levels[i & 3], "After " + i));
+        }
+        assertEquals(capacity, store.size(), "Store should fill up to its capacity");
+        assertEquals(0, store.getDiscardedCount(), "Nothing should be evicted below the capacity");
+        store.append(createEvent(Level.INFO, "One more"));
+        assertEquals(capacity, store.size(), "Store should stay at its capacity");
+        assertEquals(1, store.getDiscardedCount(), "Exactly one event should be evicted");
+    }
+
+    // === Helper methods
+}
@@ -0,0 +1,212 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static assign251_2.TestEvents.createEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+// Class to test the LogDumpWriter and LogDumpReader classes
+public class LogDumpReaderTest {
+
+    // Timestamp of the first event written by the tests
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    // Test that every field of an event survives the dump
+    @Test
+    public void testRoundTrip(@TempDir Path directory) throws IOException {
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLoggerName("com.example.Orders")
+            .setLoggerFqcn("org.apache.logging.log4j.spi.AbstractLogger")
+            .setLevel(Level.WARN)
+            .setThreadName("worker-1")
+            .setThreadId(-7)
+            .setThreadPriority(5)
+            .setMarker(MarkerManager.getMarker("AUDIT"))
+            .setTimeMillis(BASE_TIME)
+            .setMessage(new SimpleMessage("Order 42 is late"))
+            .setThrown(new IllegalStateException("late"))
+            .build();
+        LogEvent anonymous = Log4jLogEvent.newBuilder().setTimeMillis(BASE_TIME - 5).build();
+        Path file = writeDump(directory, List.of(event, anonymous));
+
+        try (LogDumpReader reader = LogDumpReader.open(file)) {
+            List<LogEvent> events = reader.readAll();
+            assertEquals(2, reader.getEventCount());
+            assertEquals(2, events.size());
+            LogEvent read = events.get(0);
+            assertEquals(event.getLoggerName(), read.getLoggerName());
+            assertEquals(event.getLoggerFqcn(), read.getLoggerFqcn());
+            assertEquals(Level.WARN, read.getLevel());
+            assertEquals("worker-1", read.getThreadName());
+            assertEquals(-7, read.getThreadId());
+            assertEquals(5, read.getThreadPriority());
+            assertEquals("AUDIT", read.getMarker().getName());
+            assertEquals(BASE_TIME, read.getTimeMillis());
+            assertEquals("Order 42 is late", read.getMessage().getFormattedMessage());
+            assertEquals("late", read.getThrownProxy().getMessage());
+            assertNull(events.get(1).getLoggerName(), "Missing names should stay missing");
+            assertEquals(BASE_TIME - 5, events.get(1).getTimeMillis(), "Timestamps may go backwards");
+        }
+    }
+
+    // Test that a time range and a level only decode the blocks that can hold matching events
+    @Test
+    public void testSeekByTimeAndLevel(@TempDir Path directory) {
+        int count = 10 * LogDumpWriter.BLOCK_EVENTS;
+        LogEvent[] events = new LogEvent[count];
+        for (int i = 0; i < count; i++) {
+            // Only the events of the eighth block contain errors
+            boolean error = i / LogDumpWriter.BLOCK_EVENTS == 7 && i % 100 == 0;
+            events[i] = createEvent(error ? Level.ERROR : Level.INFO, "Message " + i, BASE_TIME + i);
+        }
+        Path file = writeDump(directory, List.of(events));
+
+        try (LogDumpReader reader = LogDumpReader.open(file)) {
+            assertEquals(10, reader.getBlocks().size());
+            long from = BASE_TIME + 2_500;
+            long to = BASE_TIME + 3_000;
+            assertEquals(1, reader.blocksFor(from, to, null).size(), "Only one block covers the range");
+            List<LogEvent> inRange = reader.read(from, to);
+            assertEquals(500, inRange.size());
+            assertEquals("Message 2500", inRange.get(0).getMessage().getFormattedMessage());
+            assertEquals("Message 2999", inRange.get(499).getMessage().getFormattedMessage());
+
+            assertEquals(1, reader.blocksFor(Long.MIN_VALUE, Long.MAX_VALUE, Level.ERROR).size(),
+                "Only the block with errors should be selected by level");
+            List<LogEvent> errors = reader.read(Long.MIN_VALUE, Long.MAX_VALUE, Level.WARN);
+            assertEquals(10, errors.size());
+            assertTrue(errors.stream().allMatch(event -> event.getLevel() == Level.ERROR));
+            assertEquals(count, reader.readAll().size());
+        }
+    }
+
+    // Test that a dump of typical events is smaller than the same events formatted by the default VelocityLayout
+    @Test
+    public void testDumpIsSmallerThanText(@TempDir Path directory) throws IOException {
+        VelocityLayout layout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "[$p] $c $d: $m$n");
+        String[] threads = {"http-nio-8080-exec-1", "http-nio-8080-exec-2", "scheduler-1", "main"};
+        int count = 4 * LogDumpWriter.BLOCK_EVENTS;
+        LogEvent[] events = new LogEvent[count];
+        long textBytes = 0;
+        for (int i = 0; i < count; i++) {
+            events[i] = Log4jLogEvent.newBuilder()
+                .setLoggerName("com.example.service.OrderService" + (i % 8))
+                .setLevel(i % 50 == 0 ? Level.WARN : Level.INFO)
+                .setThreadName(threads[i % threads.length])
+                .setTimeMillis(BASE_TIME + i)
+                .setMessage(new SimpleMessage("Processed order " + i + " in " + (i % 97) + " ms"))
+                .build();
+            textBytes += layout.toByteArray(events[i]).length;
+        }
+        Path file = writeDump(directory, List.of(events));
+        assertTrue(Files.size(file) < textBytes,
+            "The dump (" + Files.size(file) + " bytes) should be smaller than the text (" + textBytes + " bytes)");
+    }
+
+    // Test that a file that is not a complete dump is rejected
+    @Test
+    public void testRejectsTruncatedDump(@TempDir Path directory) throws IOException {
+        Path file = writeDump(directory, List.of(createEvent(Level.INFO, "Message", BASE_TIME)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(UncheckedIOException.class, () -> LogDumpReader.open(file));
+    }
+
+    // Test that a level this process does not know is mapped onto a standard level rather than registered
+    @Test
+    public void testUnknownLevelIsNotRegistered(@TempDir Path directory) throws IOException {
+        Path file = writeDump(directory, List.of(createEvent(Level.WARN, "Message", BASE_TIME)));
+        // Rename the level in the footer dictionary to a name no process has registered, keeping its length
+        byte[] bytes = Files.readAllBytes(file);
+        int position = lastIndexOf(bytes, "WARN".getBytes(StandardCharsets.UTF_8));
+        System.arraycopy("ZQXW".getBytes(StandardCharsets.UTF_8), 0, bytes, position, 4);
+        Files.write(file, bytes);
+
+        try (LogDumpReader reader = LogDumpReader.open(file)) {
+            assertEquals(Level.WARN, reader.readAll().get(0).getLevel(), "The level should map by its int level");
+        }
+        assertNull(Level.getLevel("ZQXW"), "The dump should not register new levels");
+    }
+
+    // Test that a trailer pointing at an oversized footer is rejected before the footer is allocated
+    @Test
+    public void testRejectsOversizedFooter(@TempDir Path directory) throws IOException {
+        Path file = writeDump(directory, List.of(createEvent(Level.INFO, "Message", BASE_TIME)));
+        long size = LogDumpWriter.HEADER_SIZE + LogDumpReader.MAX_FOOTER_SIZE + 1L + LogDumpWriter.TRAILER_SIZE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer trailer = ByteBuffer.allocate(LogDumpWriter.TRAILER_SIZE)
+                .putLong(LogDumpWriter.HEADER_SIZE)
+                .putInt(LogDumpWriter.MAGIC)
+                .flip();
+            // The file becomes sparse, so the test does not write the whole footer to disk
+            channel.write(trailer, size - LogDumpWriter.TRAILER_SIZE);
+        }
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> LogDumpReader.open(file));
+        assertTrue(e.getCause().getMessage().contains("footer"), "The footer size should be rejected");
+    }
+
+    // Test that a record referring to a level the footer does not define is rejected as corrupt
+    @Test
+    public void testRejectsUnknownDictionaryId(@TempDir Path directory) throws IOException {
+        Path file = writeDump(directory, List.of(createEvent(Level.INFO, "Message", BASE_TIME)));
+        // The level id follows the timestamp and the nanoseconds of the first record of the first block
+        ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(prefix)) {
+            LogEventSerializer.writeSignedVarLong(out, BASE_TIME);
+            LogEventSerializer.writeVarInt(out, 0);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {5}), LogDumpWriter.HEADER_SIZE + prefix.size());
+        }
+
+        try (LogDumpReader reader = LogDumpReader.open(file)) {
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, reader::readAll);
+            assertTrue(e.getCause().getMessage().contains("corrupt"), "The level id should be rejected");
+        }
+    }
+
+    // === Helper methods
+
+    // Helper method to find the last occurrence of a byte sequence
+    private static int lastIndexOf(byte[] bytes, byte[] sequence) {
+        for (int i = bytes.length - sequence.length; i >= 0; i--) {
+            if (Arrays.equals(bytes, i, i + sequence.length, sequence, 0, sequence.length)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Sequence not found");
+    }
+
+    // Helper method to write the events to a dump file and return its path
+    private static Path writeDump(Path directory, List<LogEvent> events) {
+        Path file = directory.resolve("events.dump");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             LogDumpWriter writer = new LogDumpWriter(channel)) {
+            events.forEach(writer::write);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+}
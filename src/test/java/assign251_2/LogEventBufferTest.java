@@ -0,0 +1,493 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.AbstractLogEvent;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static assign251_2.TestEvents.createEvent;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Class to test the LogEventBuffer class
+public class LogEventBufferTest {
+
+    // === Section 1. Single-threaded behaviour
+
+    // Test that events are returned oldest first
+    @Test
+    public void testAppendKeepsOrder() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < 3000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = buffer.toList();
+        assertEquals(3000, events.size(), "All events should be retained");
+        for (int i = 0; i < 3000; i++) {
+            assertEquals("Message " + i, events.get(i).getMessage().getFormattedMessage());
+        }
+        assertEquals(0, buffer.getDiscardedCount(), "No events should be discarded");
+    }
+
+    // Test that the oldest events are dropped once the capacity is reached (across segment boundaries)
+    @Test
+    public void testDropOldest() {
+        LogEventBuffer buffer = new LogEventBuffer(1500);
+        for (int i = 0; i < 5000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = buffer.toList();
+        assertEquals(1500, events.size(), "Should only keep capacity events");
+        assertEquals("Message 3500", events.get(0).getMessage().getFormattedMessage());
+        assertEquals("Message 4999", events.get(1499).getMessage().getFormattedMessage());
+        assertEquals(3500, buffer.getDiscardedCount(), "Should have discarded the overflow");
+    }
+
+    // Test that shrinking the capacity evicts immediately and counts the evicted events
+    @Test
+    public void testShrinkCapacity() {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        for (int i = 0; i < 10; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        buffer.setCapacity(4);
+        assertEquals(4, buffer.size(), "Should only keep the new capacity");
+        assertEquals(6, buffer.getDiscardedCount(), "Shrinking should count the evicted events");
+        assertEquals("Message 6", buffer.toList().get(0).getMessage().getFormattedMessage());
+    }
+
+    // Test that clearing drops the events and resets the discarded count
+    @Test
+    public void testClear() {
+        LogEventBuffer buffer = new LogEventBuffer(2);
+        for (int i = 0; i < 5; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        buffer.clear();
+        assertEquals(0, buffer.size(), "Buffer should be empty after clear");
+        assertEquals(0, buffer.getDiscardedCount(), "Discarded count should be reset after clear");
+
+        buffer.append(createEvent("After clear"));
+        assertEquals(1, buffer.toList().size(), "Buffer should accept events after clear");
+        assertEquals(0, buffer.getDiscardedCount(), "Appending below capacity should not discard");
+    }
+
+    // Test that clearing up to a sequence reports where it started, leaving out events evicted after a copy
+    @Test
+    public void testClearUpToAfterEviction() {
+        LogEventBuffer buffer = new LogEventBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        long[] end = new long[1];
+        assertEquals(4, buffer.copyRange(end).size());
+        buffer.append(createEvent("Message 4")); // evicts the first copied event
+        assertEquals(1, buffer.clearUpTo(end[0]), "Only the copied events still retained should be cleared");
+        assertEquals(1, buffer.getDiscardedCount());
+        assertEquals("Message 4", buffer.toList().get(0).getMessage().getFormattedMessage());
+        assertEquals(end[0], buffer.clearUpTo(end[0]), "Clearing again should clear nothing");
+    }
+
+    // Test that a negative capacity is rejected
+    @Test
+    public void testNegativeCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LogEventBuffer(-1));
+    }
+
+    // === Section 2. Byte budget
+
+    // Test that retained bytes grow on append and return to zero when everything is cleared
+    @Test
+    public void testRetainedBytesTracking() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        assertEquals(0, buffer.getRetainedBytes(), "Empty buffer should retain no bytes");
+        for (int i = 0; i < 2000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        assertTrue(buffer.getRetainedBytes() > 2000L * LogEventSizeEstimator.EVENT_OVERHEAD,
+            "Retained bytes should include every event");
+        buffer.clear();
+        assertEquals(0, buffer.getRetainedBytes(), "Clearing should release every byte");
+    }
+
+    // Test that the oldest events are evicted until the byte budget is respected
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    public void testByteBudgetEvictsOldest(StorageMode storageMode) {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE, storageMode);
+        buffer.append(createEvent("small"));
+        long smallEventBytes = buffer.getRetainedBytes();
+        buffer.setMaxRetainedBytes(smallEventBytes * 10);
+
+        // Many small events fit, a large one pushes out the oldest until the total fits again
+        for (int i = 0; i < 9; i++) {
+            buffer.append(createEvent("small"));
+        }
+        assertEquals(10, buffer.size(), "Ten small events should fit in the budget");
+        assertEquals(0, buffer.getDiscardedCount(), "Nothing should be discarded yet");
+
+        String large = "x".repeat((int) (smallEventBytes * 4));
+        buffer.append(createEvent(large));
+        assertTrue(buffer.getRetainedBytes() <= smallEventBytes * 10, "Retained bytes should respect the budget");
+        List<LogEvent> events = buffer.toList();
+        assertEquals(large, events.get(events.size() - 1).getMessage().getFormattedMessage(),
+            "Newest event should be kept");
+        assertEquals(11 - events.size(), buffer.getDiscardedCount(), "Evicted events should be counted as discarded");
+        assertTrue(events.size() < 10, "Older events should have been evicted");
+    }
+
+    // Test that lowering the budget evicts immediately
+    @Test
+    public void testLowerByteBudget() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        buffer.setMaxRetainedBytes(0);
+        assertEquals(0, buffer.size(), "A zero budget should evict everything");
+        assertEquals(100, buffer.getDiscardedCount(), "Every evicted event should be counted");
+        assertEquals(0, buffer.getRetainedBytes(), "No bytes should remain retained");
+    }
+
+    // === Section 3. Off-heap and compressed storage
+
+    // Test that events stored off-heap are decoded in order and respect the capacity
+    @Test
+    public void testOffHeapDropOldest() {
+        LogEventBuffer buffer = new LogEventBuffer(1500, StorageMode.OFF_HEAP);
+        for (int i = 0; i < 5000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = buffer.toList();
+        assertEquals(1500, events.size(), "Should only keep capacity events");
+        assertEquals("Message 3500", events.get(0).getMessage().getFormattedMessage());
+        assertEquals("Message 4999", events.get(1499).getMessage().getFormattedMessage());
+        assertEquals("TestLogger", events.get(0).getLoggerName());
+        assertEquals(3500, buffer.getDiscardedCount(), "Should have discarded the overflow");
+    }
+
+    // Test that records larger than a block are stored in a block of their own
+    @Test
+    public void testOffHeapLargeRecords() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE, StorageMode.OFF_HEAP);
+        String large = "x".repeat(OffHeapSegment.BLOCK_SIZE * 2);
+        buffer.append(createEvent("small"));
+        buffer.append(createEvent(large));
+        buffer.append(createEvent("small again"));
+        List<LogEvent> events = buffer.toList();
+        assertEquals("small", events.get(0).getMessage().getFormattedMessage());
+        assertEquals(large, events.get(1).getMessage().getFormattedMessage());
+        assertEquals("small again", events.get(2).getMessage().getFormattedMessage());
+    }
+
+    // Test that switching the storage mode keeps the events stored before the switch
+    @Test
+    public void testSwitchStorageMode() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < 1500; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        buffer.setStorageMode(StorageMode.OFF_HEAP);
+        for (int i = 1500; i < 3000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = buffer.toList();
+        assertEquals(3000, events.size(), "No events should be lost when switching modes");
+        for (int i = 0; i < 3000; i++) {
+            assertEquals("Message " + i, events.get(i).getMessage().getFormattedMessage());
+        }
+    }
+
+    // Test that full segments are compressed in the background, shrink the retained bytes and read back intact
+    @Test
+    public void testCompressedSegments() {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE, StorageMode.COMPRESSED);
+        int count = LogEventBuffer.SEGMENT_SIZE * 3 + 10;
+        for (int i = 0; i < count; i++) {
+            buffer.append(createEvent(i % 10 == 0 ? Level.ERROR : Level.INFO, "Message " + i));
+        }
+        long heapBytes = buffer.getRetainedBytes();
+        CompressedSegment.awaitCompressed();
+        assertTrue(buffer.getRetainedBytes() < heapBytes / 4,
+            "Sealed segments should retain a fraction of their heap size: " + buffer.getRetainedBytes());
+
+        List<LogEvent> events = buffer.toList();
+        assertEquals(count, events.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("Message " + i, events.get(i).getMessage().getFormattedMessage());
+        }
+        assertEquals("TestLogger", events.get(5).getLoggerName(), "Compressed events should keep every field");
+        LogEventStore.LevelView view = (LogEventStore.LevelView) buffer.snapshot(null);
+        assertEquals(Level.ERROR, view.levelAt(LogEventBuffer.SEGMENT_SIZE + 6));
+
+        // Evicting compressed events releases their compressed share, so the budget now holds more events
+        buffer.setCapacity(LogEventBuffer.SEGMENT_SIZE);
+        assertEquals(LogEventBuffer.SEGMENT_SIZE, buffer.size());
+        buffer.clear();
+        assertEquals(0, buffer.getRetainedBytes(), "No bytes should remain retained after a clear");
+    }
+
+    // === Section 4. Retention by age
+
+    // Test that events older than the maximum age expire, including whole segments, and count as discarded
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    public void testMaxAgeExpiresOldest(StorageMode storageMode) {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE, storageMode);
+        long now = System.currentTimeMillis() - 1; // so that a zero maximum age expires it at once
+        int old = 2 * LogEventBuffer.SEGMENT_SIZE + 100;
+        for (int i = 0; i < old; i++) {
+            buffer.append(createEvent(Level.INFO, "Old " + i, now - 60_000 + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            buffer.append(createEvent(Level.INFO, "New " + i, now));
+        }
+        CompressedSegment.awaitCompressed();
+        assertEquals(old + 5, buffer.size(), "Nothing should expire without a maximum age");
+
+        buffer.setMaxAge(30_000);
+        List<LogEvent> events = buffer.toList();
+        assertEquals(5, events.size(), "Only the recent events should remain");
+        assertEquals("New 0", events.get(0).getMessage().getFormattedMessage());
+        assertEquals(old, buffer.getDiscardedCount(), "Expired events should be counted as discarded");
+        assertEquals(30_000, buffer.getMaxAge());
+
+        buffer.setMaxAge(0);
+        assertEquals(0, buffer.size(), "A zero maximum age should expire everything");
+        assertEquals(old + 5, buffer.getDiscardedCount());
+        assertEquals(0, buffer.getRetainedBytes(), "Expired events should release their bytes");
+        assertThrows(IllegalArgumentException.class, () -> buffer.setMaxAge(-1));
+    }
+
+    // Test that expiry works together with the capacity and stops at the first event that is young enough
+    @Test
+    public void testMaxAgeWithCapacity() {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        buffer.setMaxAge(30_000);
+        long now = System.currentTimeMillis() - 1; // so that a zero maximum age expires it at once
+        for (int i = 0; i < 15; i++) {
+            buffer.append(createEvent(Level.INFO, "Recent " + i, now));
+        }
+        assertEquals(10, buffer.size(), "The capacity should still apply");
+        assertEquals(5, buffer.getDiscardedCount());
+
+        buffer.setCapacity(Integer.MAX_VALUE);
+        buffer.append(createEvent(Level.INFO, "Skewed", now - 60_000));
+        assertEquals(11, buffer.size(), "An old event behind recent ones should wait for them");
+        buffer.setMaxAge(0);
+        assertEquals(0, buffer.size());
+        assertEquals(16, buffer.getDiscardedCount(), "Every event should be counted exactly once");
+    }
+
+    // === Section 5. Snapshots
+
+    // Test that a snapshot keeps its events while later appends, evictions and clears happen
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    public void testSnapshotIsStable(StorageMode storageMode) {
+        LogEventBuffer buffer = new LogEventBuffer(1500, storageMode);
+        for (int i = 0; i < 2000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> snapshot = buffer.snapshot();
+
+        // Evict everything the snapshot covers, then clear the buffer
+        for (int i = 2000; i < 5000; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        buffer.clear();
+
+        assertEquals(1500, snapshot.size(), "Snapshot size should not change");
+        int expected = 500;
+        for (LogEvent event : snapshot) {
+            assertEquals("Message " + expected++, event.getMessage().getFormattedMessage());
+        }
+        assertEquals("Message 1999", snapshot.get(1499).getMessage().getFormattedMessage());
+        assertEquals("Message 500", snapshot.get(0).getMessage().getFormattedMessage());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(createEvent("Extra")));
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(1500));
+        assertEquals(0, buffer.snapshot().size(), "A new snapshot should see the cleared buffer");
+    }
+
+    // Test that a snapshot held while appending does not keep the segments appended after it alive
+    @Test
+    public void testSnapshotDoesNotPinLaterSegments() throws InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(100);
+        for (int i = 0; i < 100; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> snapshot = buffer.snapshot();
+
+        // Append an event to a segment after the snapshot's last one, then evict that segment
+        for (int i = 0; i < LogEventBuffer.SEGMENT_SIZE; i++) {
+            buffer.append(createEvent("Filler " + i));
+        }
+        SimpleMessage later = new SimpleMessage("Later");
+        WeakReference<SimpleMessage> reference = new WeakReference<>(later);
+        buffer.append(Log4jLogEvent.newBuilder().setLoggerName("TestLogger").setLevel(Level.INFO)
+            .setMessage(later).build());
+        later = null;
+        for (int i = 0; i < 3 * LogEventBuffer.SEGMENT_SIZE; i++) {
+            buffer.append(createEvent("Filler " + i));
+        }
+
+        for (int attempt = 0; attempt < 50 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "An evicted segment should not be reachable from an older snapshot");
+        assertEquals(100, snapshot.size());
+        assertEquals("Message 99", snapshot.get(99).getMessage().getFormattedMessage());
+    }
+
+    // === Section 6. Concurrent behaviour
+
+    // Test that concurrent producers never lose events and that the discarded count is exact
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    public void testConcurrentAppendIsExact(StorageMode storageMode) throws InterruptedException {
+        int threads = 8;
+        int eventsPerThread = 50_000;
+        int capacity = 10_000;
+        LogEventBuffer buffer = new LogEventBuffer(capacity, storageMode);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    buffer.append(createEvent(thread + ":" + i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        List<LogEvent> events = buffer.toList();
+        assertEquals(capacity, events.size(), "Buffer should be full");
+        assertEquals((long) threads * eventsPerThread - capacity, buffer.getDiscardedCount(),
+            "Discarded count should be exact under concurrency");
+        if (storageMode == StorageMode.HEAP) {
+            long expectedBytes = events.stream().mapToLong(LogEventSizeEstimator::estimate).sum();
+            assertEquals(expectedBytes, buffer.getRetainedBytes(), "Retained bytes should match the retained events");
+        }
+
+        // Every retained event is distinct and each producer's events stay in its own order
+        Set<String> seen = new HashSet<>();
+        int[] lastIndex = new int[threads];
+        Arrays.fill(lastIndex, -1);
+        for (LogEvent event : events) {
+            String message = event.getMessage().getFormattedMessage();
+            assertTrue(seen.add(message), "Event should not be retained twice: " + message);
+            String[] parts = message.split(":");
+            int thread = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > lastIndex[thread], "Events of one producer should stay in order");
+            lastIndex[thread] = index;
+        }
+    }
+
+    // Test that evicting the slot of a producer that has not finished writing it does not wait for that
+    // producer, and that the slot's bytes are not counted once it is written
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void testEvictionDoesNotWaitForSlowProducer() throws Exception {
+        LogEventBuffer buffer = new LogEventBuffer(1);
+        CountDownLatch copying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LogEvent slow = new AbstractLogEvent() {
+            @Override
+            public LogEvent toImmutable() {
+                copying.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return createEvent("Slow");
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> slowAppend = executor.submit(() -> buffer.append(slow));
+        copying.await();
+
+        // The slow producer holds sequence 0 unpublished while these appends evict it
+        for (int i = 0; i < 100; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = buffer.toList();
+        assertEquals(1, events.size());
+        assertEquals("Message 99", events.get(0).getMessage().getFormattedMessage());
+
+        release.countDown();
+        assertEquals(0, slowAppend.get(), "The slow producer should keep its sequence");
+        executor.shutdown();
+        assertEquals(LogEventSizeEstimator.estimate(buffer.toList().get(0)), buffer.getRetainedBytes(),
+            "Only the retained event should be counted");
+        assertEquals(100, buffer.getDiscardedCount());
+    }
+
+    // Test that a producer whose event cannot be stored leaves a tombstone that every reader skips, rather
+    // than an unpublished slot that readers would wait for forever
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    @Timeout(value = 60, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void testFailedAppendLeavesTombstone(StorageMode storageMode) {
+        LogEventBuffer buffer = new LogEventBuffer(Integer.MAX_VALUE, storageMode);
+        buffer.append(createEvent("Before"));
+        LogEvent failing = new AbstractLogEvent() {
+            @Override
+            public LogEvent toImmutable() {
+                throw new IllegalStateException("Cannot copy");
+            }
+
+            @Override
+            public Message getMessage() {
+                throw new IllegalStateException("Cannot encode");
+            }
+        };
+        LogEventStore.AppendFailedException e =
+            assertThrows(LogEventStore.AppendFailedException.class, () -> buffer.append(failing));
+        assertEquals(1, e.getSequence());
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        // Fill the rest of the segment, so that a compressed segment is sealed with the tombstone in it
+        for (int i = 2; i < LogEventBuffer.SEGMENT_SIZE + 10; i++) {
+            buffer.append(createEvent("Message " + i));
+        }
+        CompressedSegment.awaitCompressed();
+        int stored = LogEventBuffer.SEGMENT_SIZE + 9;
+        List<LogEvent> events = buffer.toList();
+        assertEquals(stored, events.size());
+        assertEquals("Before", events.get(0).getMessage().getFormattedMessage());
+        assertEquals("Message 2", events.get(1).getMessage().getFormattedMessage());
+        assertEquals(stored, buffer.snapshot().size(), "A snapshot should skip the tombstone too");
+        assertEquals("Message 2", buffer.snapshot().get(1).getMessage().getFormattedMessage());
+        List<LogEvent> found = buffer.get(new long[] {0, 1, 2}, 3);
+        assertEquals(2, found.size(), "Looking up the failed sequence should find nothing");
+        assertEquals("Message 2", found.get(1).getMessage().getFormattedMessage());
+    }
+}
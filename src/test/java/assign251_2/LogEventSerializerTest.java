@@ -0,0 +1,178 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.MarkerManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ExtendedStackTraceElement;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Class to test the LogEventSerializer class
+public class LogEventSerializerTest {
+
+    // Test that every field read by appenders and layouts survives the round trip
+    @Test
+    public void testRoundTripAllFields() {
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLoggerName("TestLogger")
+            .setLoggerFqcn("org.example.Fqcn")
+            .setLevel(Level.WARN)
+            .setMarker(MarkerManager.getMarker("AUDIT"))
+            .setMessage(new ParameterizedMessage("Hello {} - {}", "world", 42))
+            .setThreadName("TestThread")
+            .setThreadId(7)
+            .setThreadPriority(3)
+            .setTimeMillis(1_700_000_000_123L)
+            .setContextData(new SortedArrayStringMap(Map.of("user", "alice", "request", "r-1")))
+            .setContextStack(new MutableThreadContextStack(List.of("outer", "inner")))
+            .setSource(new StackTraceElement("org.example.Source", "run", "Source.java", 12))
+            .setIncludeLocation(true)
+            .setEndOfBatch(true)
+            .setNanoTime(99)
+            .setThrown(new IllegalStateException("boom"))
+            .build();
+
+        LogEvent decoded = LogEventSerializer.deserialize(LogEventSerializer.serialize(event));
+
+        assertEquals("TestLogger", decoded.getLoggerName());
+        assertEquals("org.example.Fqcn", decoded.getLoggerFqcn());
+        assertEquals(Level.WARN, decoded.getLevel());
+        assertEquals("AUDIT", decoded.getMarker().getName());
+        assertEquals("Hello world - 42", decoded.getMessage().getFormattedMessage());
+        assertEquals("TestThread", decoded.getThreadName());
+        assertEquals(7, decoded.getThreadId());
+        assertEquals(3, decoded.getThreadPriority());
+        assertEquals(1_700_000_000_123L, decoded.getTimeMillis());
+        assertEquals("alice", decoded.getContextData().getValue("user"));
+        assertEquals("r-1", decoded.getContextData().getValue("request"));
+        assertEquals(List.of("outer", "inner"), decoded.getContextStack().asList());
+        assertEquals(event.getSource(), decoded.getSource());
+        assertEquals(true, decoded.isIncludeLocation());
+        assertEquals(true, decoded.isEndOfBatch());
+        assertEquals(99, decoded.getNanoTime());
+        assertNotNull(decoded.getThrownProxy(), "Thrown exception should be kept");
+        assertEquals("boom", decoded.getThrownProxy().getMessage());
+    }
+
+    // Test that a minimal event with missing optional fields survives the round trip
+    @Test
+    public void testRoundTripMinimalEvent() {
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLevel(Level.INFO)
+            .setMessage(new SimpleMessage("Only a message é中"))
+            .build();
+
+        LogEvent decoded = LogEventSerializer.deserialize(LogEventSerializer.serialize(event));
+
+        assertEquals(Level.INFO, decoded.getLevel());
+        assertEquals("Only a message é中", decoded.getMessage().getFormattedMessage());
+        assertNull(decoded.getMarker());
+        assertNull(decoded.getThrownProxy());
+        assertNull(decoded.getSource());
+        assertEquals(0, decoded.getContextData().size());
+    }
+
+    // Test that coded records store repeated names as dictionary ids and decode them back
+    @Test
+    public void testCodedRoundTrip() {
+        LogEventSerializer.Dictionaries dictionaries = new LogEventSerializer.Dictionaries();
+        Level notice = Level.forName("NOTICE", 350);
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLoggerName("com.example.orders.OrderService")
+            .setLoggerFqcn("org.apache.logging.log4j.spi.AbstractLogger")
+            .setLevel(notice)
+            .setMessage(new SimpleMessage("Order 42 shipped"))
+            .setThreadName("http-nio-8080-exec-3")
+            .build();
+
+        byte[] plain = LogEventSerializer.serialize(event);
+        byte[] coded = LogEventSerializer.serialize(event, dictionaries);
+        assertTrue(coded.length < plain.length - 80, "Coded record should not repeat the names");
+        assertEquals(3, dictionaries.strings.size(), "Logger, caller class and thread should be added");
+
+        LogEvent decoded = LogEventSerializer.deserialize(coded, dictionaries);
+        assertEquals("com.example.orders.OrderService", decoded.getLoggerName());
+        assertEquals("org.apache.logging.log4j.spi.AbstractLogger", decoded.getLoggerFqcn());
+        assertEquals("http-nio-8080-exec-3", decoded.getThreadName());
+        assertEquals(notice, decoded.getLevel());
+        assertEquals("Order 42 shipped", decoded.getMessage().getFormattedMessage());
+        assertEquals(notice, LogEventSerializer.readLevel(ByteBuffer.wrap(coded), 0, dictionaries),
+            "Level should be read from the record in place");
+        assertEquals(notice, LogEventSerializer.deserialize(plain, dictionaries).getLevel(),
+            "Plain records should still decode with dictionaries");
+        assertThrows(IllegalStateException.class, () -> LogEventSerializer.deserialize(coded),
+            "Coded records need their dictionaries");
+
+        LogEvent empty = Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("No names")).build();
+        byte[] emptyCoded = LogEventSerializer.serialize(empty, dictionaries);
+        LogEvent emptyDecoded = LogEventSerializer.deserialize(emptyCoded, dictionaries);
+        assertNull(emptyDecoded.getLoggerName(), "Missing names should stay missing");
+        assertEquals(empty.getLevel(), emptyDecoded.getLevel());
+        assertEquals(empty.getLevel(), LogEventSerializer.readLevel(ByteBuffer.wrap(emptyCoded), 0, dictionaries));
+    }
+
+    // Test that a thrown exception keeps its class names, messages and cause chain through the round trip
+    @Test
+    public void testRoundTripThrownCauseChain() {
+        IllegalStateException thrown = new IllegalStateException("outer", new IOException("inner"));
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLevel(Level.ERROR)
+            .setMessage(new SimpleMessage("Failed"))
+            .setThrown(thrown)
+            .build();
+
+        LogEvent decoded = LogEventSerializer.deserialize(LogEventSerializer.serialize(event));
+
+        assertEquals(IllegalStateException.class.getName(), decoded.getThrownProxy().getName());
+        assertEquals("outer", decoded.getThrownProxy().getMessage());
+        assertEquals(IOException.class.getName(), decoded.getThrownProxy().getCauseProxy().getName());
+        assertEquals("inner", decoded.getThrownProxy().getCauseProxy().getMessage());
+        assertEquals(Arrays.asList(thrown.getStackTrace()), Arrays.stream(decoded.getThrownProxy().getExtendedStackTrace())
+            .map(ExtendedStackTraceElement::getStackTraceElement).toList());
+    }
+
+    // Test that a record whose thrown exception names a class other than those of a ThrowableProxy is rejected
+    // rather than instantiated
+    @Test
+    public void testRejectsForeignThrownClass() throws IOException {
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLevel(Level.INFO)
+            .setMessage(new SimpleMessage("Tampered"))
+            .build();
+        byte[] record = LogEventSerializer.serialize(event);
+
+        // Replace the missing-exception marker at the end of the record with a serialized ArrayList
+        ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(objectBytes)) {
+            objects.writeObject(new ArrayList<>(List.of("payload")));
+        }
+        ByteBuffer tampered = ByteBuffer.allocate(record.length + objectBytes.size());
+        tampered.put(record, 0, record.length - Integer.BYTES);
+        tampered.putInt(objectBytes.size());
+        tampered.put(objectBytes.toByteArray());
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class,
+            () -> LogEventSerializer.deserialize(tampered.array()));
+        assertTrue(e.getCause() instanceof InvalidClassException, "The filter should reject the class");
+    }
+}
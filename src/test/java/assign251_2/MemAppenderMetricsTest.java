@@ -0,0 +1,141 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Class to test the MemAppenderMetrics and LatencyHistogram classes
+public class MemAppenderMetricsTest {
+
+    // === Section 1. Latency histogram
+
+    // Test that percentiles are reported within the bucket precision
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5), "An empty histogram should report zero");
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(100_000, histogram.count());
+        assertWithinPrecision(50_000, histogram.percentile(0.5));
+        assertWithinPrecision(99_000, histogram.percentile(0.99));
+        assertWithinPrecision(99_900, histogram.percentile(0.999));
+
+        histogram.reset();
+        assertEquals(0, histogram.count(), "Reset should forget the recorded latencies");
+    }
+
+    // Test that every value maps to a bucket whose upper bound covers it
+    @Test
+    public void testHistogramBuckets() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value, "Bucket should cover " + value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < value,
+                "Previous bucket should end below " + value);
+        }
+    }
+
+    // === Section 2. Appender metrics
+
+    // Test that appends, discards by level and latencies are counted for both storage modes
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    public void testCountsDiscardsByLevel(StorageMode storageMode) {
+        MemAppender appender = new MemAppender("MetricsAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setStorageMode(storageMode);
+        appender.setMaxSize(10);
+        appender.setMetricsEnabled(true);
+        for (int i = 0; i < 1000; i++) {
+            appender.append(createEvent(i, i % 4 == 0 ? Level.ERROR : Level.INFO));
+        }
+        appender.getEventStrings();
+
+        MemAppenderMetricsMXBean metrics = appender.getMetrics();
+        assertEquals(1000, metrics.getAppendCount());
+        assertEquals(10, metrics.getRetainedCount());
+        assertEquals(10, metrics.getMaxSize());
+        assertEquals(990, metrics.getDiscardedCount());
+        assertEquals(Map.of("ERROR", 248L, "INFO", 742L), metrics.getDiscardedCountByLevel(),
+            "Discards should be counted by level");
+        assertTrue(metrics.getAppendLatencyP999Nanos() >= metrics.getAppendLatencyP50Nanos());
+
+        appender.setMetricsEnabled(false);
+        assertNull(appender.getMetrics(), "Metrics should be disabled");
+    }
+
+    // Test that the metrics are registered over JMX while the appender runs
+    @Test
+    public void testRegisteredWhileStarted() throws JMException {
+        MemAppender appender = new MemAppender("JmxAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMetricsEnabled(true);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("assign251_2:type=MemAppender,name=\"JmxAppender\"");
+        assertFalse(server.isRegistered(name), "Metrics should only be registered once started");
+
+        appender.start();
+        assertThrows(IllegalStateException.class, () -> appender.setMetricsEnabled(false),
+            "Metrics should not change once started");
+        for (int i = 0; i < 100; i++) {
+            appender.append(createEvent(i, Level.WARN));
+        }
+        MemAppenderMetricsMXBean proxy = JMX.newMXBeanProxy(server, name, MemAppenderMetricsMXBean.class);
+        assertEquals(100, proxy.getAppendCount());
+        assertEquals(100, proxy.getRetainedCount());
+        assertEquals(100, server.getAttribute(name, "RetainedCount"), "Attributes should be readable by name");
+        assertTrue(proxy.getDiscardedCountByLevel().isEmpty());
+
+        appender.stop();
+        assertFalse(server.isRegistered(name), "Metrics should be unregistered on stop");
+    }
+
+    // Test that evicted events the spill tier cannot keep are reported by the appender and the metrics
+    @Test
+    public void testSpillLossIsVisible(@TempDir Path directory) {
+        MemAppender appender = new MemAppender("SpillAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(10);
+        appender.setSpill(directory, 256 * 1024);
+        appender.setMetricsEnabled(true);
+        for (int i = 0; i < 20_000; i++) {
+            appender.append(createEvent(i, Level.INFO));
+        }
+
+        MemAppenderMetricsMXBean metrics = appender.getMetrics();
+        assertTrue(appender.getSpillLostCount() > 0, "Events beyond the spill size cap should be lost");
+        assertEquals(appender.getSpillLostCount(), metrics.getSpillLostCount());
+        assertEquals(19_990, appender.getSpilledLogCount() + appender.getSpillLostCount(),
+            "Every evicted event should be spilled or counted as lost");
+        appender.clear();
+    }
+
+    // === Helper methods
+
+    // Helper method to check a percentile against its exact value with the histogram's precision
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8 + 1, "Expected about " + expected + " but was " + actual);
+    }
+
+    // Helper method to create a log event
+    private static LogEvent createEvent(int i, Level level) {
+        return TestEvents.createEvent(level, "Message " + i);
+    }
+}
@@ -4,6 +4,7 @@ package assign251_2; // Specify the package of the class
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.AbstractLogEvent;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
@@ -12,18 +13,41 @@ import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Layout;
 
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.ReusableMessageFactory;
 import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.core.layout.AbstractStringLayout;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // Class to test the MemAppender class
 public class MemAppenderTest {
@@ -82,6 +106,35 @@ public class MemAppenderTest {
         assertSame(appender1, appender2, "MemAppender should be a singleton");
     }    
 
+    // Method to verify that the builder rejects settings that cannot be combined before creating anything
+    @Test
+    public void testBuilderRejectsConflictingSettings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> MemAppender.newBuilder().setName("Striped").setStripes(4).setPartitions("http=10").build());
+        assertThrows(IllegalArgumentException.class,
+            () -> MemAppender.newBuilder().setName("Spilled").setSpillDirectory("spill").setMaxAgeMillis(1_000).build());
+        assertThrows(IllegalArgumentException.class, () -> MemAppender.newBuilder().setName("Both")
+            .setPartitions("http=10").setLevelPriorityEviction(true).build());
+        assertThrows(IllegalArgumentException.class, () -> MemAppender.newBuilder().setName("Indexed")
+            .setIndexed(true).setLevelReservations("ERROR=10").build());
+        assertThrows(IllegalArgumentException.class, () -> MemAppender.newBuilder().setName("Recorder")
+            .setFlightRecorderAppender("Console").setTriggerLevel("SEVERE").build());
+        assertThrows(IllegalArgumentException.class,
+            () -> MemAppender.newBuilder().setName("Queue").setAsyncQueueSize(-1).build());
+    }
+
+    // Method to verify that the builder looks up the trigger level ignoring case (the singleton may already
+    // exist, and otherwise the build fails later because the configuration has no such appender)
+    @Test
+    public void testBuilderAcceptsLowerCaseTriggerLevel() {
+        try {
+            MemAppender.newBuilder().setName("Recorder").setFlightRecorderAppender("Console")
+                .setTriggerLevel("error").build();
+        } catch (IllegalArgumentException e) {
+            assertFalse(e.getMessage().startsWith("Unknown trigger level"), "error should be accepted as ERROR");
+        }
+    }
+
     // Method to test the setMaxSize and getDiscardedLogCount methods of the MemAppender class
     @Test
     public void testMaxSizeAndLogRotation() {
@@ -105,6 +158,389 @@ public class MemAppenderTest {
         assertEquals(2, appender.getDiscardedLogCount(), "Should have discarded 2 logs");
     }
 
+    // Method to test the setMaxRetainedBytes and getRetainedBytes methods of the MemAppender class
+    @Test
+    public void testMaxRetainedBytes() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message 0")).build());
+        long eventBytes = appender.getRetainedBytes();
+        assertTrue(eventBytes > 0, "Retained bytes should be tracked");
+
+        // Allow three events' worth of bytes and append five in total
+        appender.setMaxRetainedBytes(eventBytes * 3);
+        for (int i = 1; i < 5; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setMessage(new SimpleMessage("Message " + i))
+                .build());
+        }
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(3, logs.size(), "Should only keep 3 logs due to maxRetainedBytes");
+        assertEquals("Message 2", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals(2, appender.getDiscardedLogCount(), "Should have discarded 2 logs");
+        assertEquals(eventBytes * 3, appender.getRetainedBytes(), "Retained bytes should match the kept logs");
+    }
+
+    // Test that events older than the maximum age are discarded and that the age limit excludes striping
+    @Test
+    public void testMaxAge() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setTimeMillis(now - 600_000)
+                .setMessage(new SimpleMessage("Old " + i))
+                .build());
+        }
+        appender.append(Log4jLogEvent.newBuilder().setTimeMillis(now).setMessage(new SimpleMessage("New")).build());
+        appender.setMaxAge(300_000);
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(1, logs.size(), "Only the events of the last five minutes should be kept");
+        assertEquals("New", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals(3, appender.getDiscardedLogCount(), "Expired logs should be counted as discarded");
+        assertEquals(300_000, appender.getMaxAge());
+        assertThrows(IllegalStateException.class, () -> appender.setStripeCount(2),
+            "Striping should not be combined with retention by age");
+
+        appender.setMaxAge(Long.MAX_VALUE);
+        appender.setStripeCount(2);
+        assertThrows(IllegalStateException.class, () -> appender.setMaxAge(300_000));
+    }
+
+    // Test that striping keeps the retained events and can only be configured before the appender starts
+    @Test
+    public void testStripeCount() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(3);
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message 0")).build());
+        appender.setStripeCount(3);
+        assertEquals(4, appender.getStripeCount(), "Stripe count should be rounded up to a power of two");
+        for (int i = 1; i < 5; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setMessage(new SimpleMessage("Message " + i))
+                .build());
+        }
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(3, logs.size(), "Should only keep 3 logs due to maxSize");
+        assertEquals("Message 2", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals(2, appender.getDiscardedLogCount(), "Should have discarded 2 logs");
+
+        appender.start();
+        assertThrows(IllegalStateException.class, () -> appender.setStripeCount(1),
+            "Stripe count should not change once started");
+        appender.stop();
+    }
+
+    // Test that partitions keep a chatty logger from evicting the events of other loggers
+    @Test
+    public void testPartitions() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(3);
+        appender.append(Log4jLogEvent.newBuilder().setLoggerName("app").setMessage(new SimpleMessage("Start")).build());
+        appender.setPartitionsByLoggerPrefix(MemAppender.parsePartitions("http.access=5, app.audit"));
+        assertTrue(appender.isPartitioned(), "Appender should be partitioned");
+        assertThrows(IllegalStateException.class, () -> appender.setStripeCount(4),
+            "Partitions should not be combined with striped storage");
+        assertThrows(IllegalStateException.class, () -> appender.setIndexed(true),
+            "Partitions should not be combined with indexing");
+        appender.start();
+        for (int i = 0; i < 100; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLoggerName("http.access")
+                .setMessage(new SimpleMessage("Request " + i))
+                .build());
+        }
+        appender.append(Log4jLogEvent.newBuilder().setLoggerName("app").setMessage(new SimpleMessage("Stop")).build());
+
+        assertEquals(Set.of(MemAppender.DEFAULT_PARTITION, "http.access", "app.audit"), appender.getPartitionNames());
+        assertEquals(5, appender.getPartitionCapacity("http.access"));
+        assertEquals(3, appender.getPartitionCapacity("app.audit"), "A prefix without a capacity should use maxSize");
+        List<String> defaultLogs = appender.getEventStrings(MemAppender.DEFAULT_PARTITION);
+        assertEquals(2, defaultLogs.size(), "The chatty logger should not evict other loggers");
+        assertTrue(defaultLogs.get(0).contains("Start"), "Retained events should be carried over");
+        assertEquals(95, appender.getDiscardedLogCount("http.access"));
+
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(7, logs.size(), "Merged reads should cover every partition");
+        assertEquals("Start", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals("Request 95", logs.get(1).getMessage().getFormattedMessage());
+        assertEquals("Stop", logs.get(6).getMessage().getFormattedMessage());
+        assertThrows(IllegalStateException.class, () -> appender.setPartitionKey(null),
+            "Partitions should not change once started");
+        appender.stop();
+
+        assertThrows(IllegalArgumentException.class, () -> MemAppender.parsePartitions("http=many"));
+        MemAppender unpartitioned = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        assertThrows(IllegalStateException.class, () -> unpartitioned.getCurrentLogs("http"),
+            "Partition reads need a partitioned appender");
+    }
+
+    // Test that level priority eviction keeps errors through a burst of DEBUG events and counts discards per level
+    @Test
+    public void testLevelPriorityEviction() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(10);
+        appender.setLevelPriorityEviction(MemAppender.parseLevelReservations("info=2"));
+        appender.setMetricsEnabled(true);
+        assertTrue(appender.isLevelPriorityEviction(), "Appender should evict by level priority");
+        assertEquals(2, appender.getLevelReservation(Level.INFO));
+        appender.start();
+        assertThrows(IllegalStateException.class, () -> appender.setPartitionKey(LogEvent::getLoggerName),
+            "The store should not change once started");
+        Level[] burst = {Level.ERROR, Level.INFO, Level.INFO, Level.INFO};
+        for (Level level : burst) {
+            appender.append(Log4jLogEvent.newBuilder().setLevel(level).setMessage(new SimpleMessage(level.name())).build());
+        }
+        for (int i = 0; i < 100; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLevel(Level.DEBUG)
+                .setMessage(new SimpleMessage("Debug " + i))
+                .build());
+        }
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(10, logs.size(), "Should only keep maxSize logs");
+        assertEquals(Level.ERROR, logs.get(0).getLevel(), "Errors should outlive the DEBUG burst");
+        assertEquals(3, logs.stream().filter(event -> event.getLevel() == Level.INFO).count(),
+            "INFO events should outlive the DEBUG burst");
+        assertEquals(Map.of(Level.DEBUG, 94L), appender.getDiscardedLogCountByLevel());
+        assertEquals(Map.of("DEBUG", 94L), appender.getMetrics().getDiscardedCountByLevel(),
+            "Metrics should report the discards of the store");
+        appender.stop();
+
+        assertThrows(IllegalArgumentException.class, () -> MemAppender.parseLevelReservations("LOUD=5"));
+        assertThrows(IllegalStateException.class, () -> memAppender.getDiscardedLogCountByLevel(),
+            "Per-level discards need level priority eviction");
+    }
+
+    // Test that a snapshot is an immutable view that later appends do not change
+    @Test
+    public void testGetSnapshot() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message 0")).build());
+        List<LogEvent> snapshot = appender.getSnapshot();
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message 1")).build());
+
+        assertEquals(1, snapshot.size(), "Snapshot should not see later appends");
+        assertEquals("Message 0", snapshot.get(0).getMessage().getFormattedMessage());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0), "Snapshot should be immutable");
+        assertEquals(2, appender.getSnapshot().size(), "A new snapshot should see both events");
+    }
+
+    // Test that queries return the same events with and without indexes
+    @Test
+    public void testQuery() {
+        MemAppender scanning = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        MemAppender indexed = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        indexed.setIndexed(true);
+        assertTrue(indexed.isIndexed(), "Appender should be indexed");
+        for (int i = 0; i < 100; i++) {
+            LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName(i % 2 == 0 ? "EvenLogger" : "OddLogger")
+                .setLevel(i % 10 == 0 ? Level.ERROR : Level.INFO)
+                .setTimeMillis(1000L + i)
+                .setMessage(new SimpleMessage("Message " + i))
+                .build();
+            scanning.append(event);
+            indexed.append(event);
+        }
+        EventQuery query = EventQuery.all().withLevels(Level.ERROR).withLogger("EvenLogger").withTimeRange(1020, 1080);
+        List<LogEvent> logs = indexed.query(query);
+        assertEquals(7, logs.size(), "Should find the ERROR events of EvenLogger in the time range");
+        assertEquals("Message 20", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals(scanning.query(query), logs, "Indexed and scanning queries should agree");
+    }
+
+    // Test that an event that cannot be stored does not stall the index for the events after it
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void testQueryAfterFailedAppend() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setIndexed(true);
+        appender.append(Log4jLogEvent.newBuilder().setLevel(Level.ERROR).setMessage(new SimpleMessage("Before")).build());
+        LogEvent failing = new AbstractLogEvent() {
+            @Override
+            public LogEvent toImmutable() {
+                throw new IllegalStateException("Cannot copy");
+            }
+        };
+        assertThrows(LogEventStore.AppendFailedException.class, () -> appender.append(failing));
+        appender.append(Log4jLogEvent.newBuilder().setLevel(Level.ERROR).setMessage(new SimpleMessage("After")).build());
+
+        List<LogEvent> logs = appender.query(EventQuery.all().withLevels(Level.ERROR));
+        assertEquals(2, logs.size(), "The failed event should be skipped");
+        assertEquals("After", logs.get(1).getMessage().getFormattedMessage());
+        assertEquals(2, appender.getCurrentLogs().size());
+    }
+
+    // Test that reads combine the spilled and the retained events and that clearing removes both
+    @Test
+    public void testSpill(@TempDir Path directory) {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(10);
+        appender.setSpill(directory, 64L * 1024 * 1024);
+        assertThrows(IllegalStateException.class, () -> appender.setStripeCount(4),
+            "Spilling should not be combined with striped storage");
+        appender.start();
+        for (int i = 0; i < 100; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLevel(i % 10 == 0 ? Level.ERROR : Level.INFO)
+                .setMessage(new SimpleMessage("Message " + i))
+                .build());
+        }
+        assertEquals(90, appender.getDiscardedLogCount(), "Spilled events still leave the memory tier");
+        assertEquals(90, appender.getSpilledLogCount());
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(100, logs.size(), "Reads should include the spilled events");
+        assertEquals("Message 0", logs.get(0).getMessage().getFormattedMessage());
+        assertEquals("Message 99", logs.get(99).getMessage().getFormattedMessage());
+        assertEquals(100, appender.getEventStrings().size());
+        assertEquals(10, appender.query(EventQuery.all().withLevels(Level.ERROR)).size(),
+            "Queries should cover both tiers");
+
+        appender.clear();
+        assertTrue(appender.getCurrentLogs().isEmpty(), "Clearing should remove the spilled events too");
+        assertEquals(0, appender.getSpilledLogCount());
+        appender.stop();
+    }
+
+    // Test that a dump holds the current logs without removing them and can be read back by time range
+    @Test
+    public void testDumpLogs(@TempDir Path directory) {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        for (int i = 0; i < 5; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setTimeMillis(1_000 + i)
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("Message " + i))
+                .build());
+        }
+        Path file = directory.resolve("logs.dump");
+        assertEquals(5, appender.dumpLogs(file), "Every current log should be dumped");
+        assertEquals(5, appender.getCurrentLogs().size(), "Dumping should keep the logs");
+        try (LogDumpReader reader = LogDumpReader.open(file)) {
+            List<LogEvent> logs = reader.read(1_001, 1_003);
+            assertEquals(2, logs.size());
+            assertEquals("Message 1", logs.get(0).getMessage().getFormattedMessage());
+        }
+    }
+
+    // Test that an ERROR forwards the preceding DEBUG events of its thread to the downstream appender
+    @Test
+    public void testFlightRecorder() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        MemAppender downstream = new MemAppender("Downstream", null, PatternLayout.createDefaultLayout(), null);
+        appender.setFlightRecorder(downstream, Level.ERROR, null, TriggerScope.THREAD, 2, Long.MAX_VALUE, 60_000);
+        appender.start();
+        for (int i = 0; i < 5; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLevel(Level.DEBUG)
+                .setThreadName(i == 4 ? "other" : "worker")
+                .setMessage(new SimpleMessage("Debug " + i))
+                .build());
+        }
+        for (int i = 0; i < 3; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setLevel(Level.ERROR)
+                .setThreadName("worker")
+                .setMessage(new SimpleMessage("Error " + i))
+                .build());
+        }
+        assertEquals(3, appender.getForwardedLogCount());
+        List<LogEvent> forwarded = downstream.getCurrentLogs();
+        assertEquals("Debug 2", forwarded.get(0).getMessage().getFormattedMessage());
+        assertEquals("Debug 3", forwarded.get(1).getMessage().getFormattedMessage());
+        assertEquals("Error 0", forwarded.get(2).getMessage().getFormattedMessage());
+        assertEquals(3, appender.getTriggeredLogCount());
+        assertEquals(2, appender.getSuppressedTriggerCount(), "Later errors should be suppressed");
+        assertThrows(IllegalStateException.class,
+            () -> appender.setFlightRecorder(null, Level.ERROR, null, TriggerScope.THREAD, 0, 0, 0));
+        appender.stop();
+    }
+
+    // Test that async mode stores every event, drains on stop and applies the overflow policy
+    @Test
+    public void testAsyncMode() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setAsync(16, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+        appender.start();
+        assertTrue(appender.isAsync(), "Appender should run asynchronously");
+        for (int i = 0; i < 1000; i++) {
+            appender.append(Log4jLogEvent.newBuilder()
+                .setMessage(new SimpleMessage("Message " + i))
+                .build());
+        }
+        List<LogEvent> logs = appender.getCurrentLogs();
+        assertEquals(1000, logs.size(), "Reads should include every event appended before them");
+        assertEquals("Message 999", logs.get(999).getMessage().getFormattedMessage());
+        assertThrows(IllegalStateException.class, () -> appender.setAsync(0, null, null),
+            "Async mode should not change once started");
+
+        appender.stop();
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("After stop")).build());
+        assertEquals(1001, appender.getCurrentLogs().size(), "Events appended after stop should be stored directly");
+        assertEquals(0, appender.getDroppedLogCount(), "Blocking producers should not drop events");
+    }
+
+    // Test that async mode keeps the thread and the parameter values of the appending thread
+    @Test
+    public void testAsyncModeSnapshotsOnCaller() throws InterruptedException {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setAsync(16, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+        appender.start();
+        StringBuilder mutable = new StringBuilder("before");
+        Thread producer = new Thread(() -> appender.append(Log4jLogEvent.newBuilder()
+            .setLevel(Level.INFO)
+            .setMessage(new ParameterizedMessage("Value is {}", mutable))
+            .build()), "async-producer");
+        producer.start();
+        producer.join();
+        mutable.setLength(0);
+        mutable.append("after");
+
+        LogEvent stored = appender.getCurrentLogs().get(0);
+        assertEquals("async-producer", stored.getThreadName(), "The thread should be the appending thread");
+        assertEquals(producer.threadId(), stored.getThreadId());
+        assertEquals("Value is before", stored.getMessage().getFormattedMessage(),
+            "Later changes to mutable parameters should not show");
+        appender.stop();
+    }
+
+    // Test that deferred formatting only formats on read and keeps the values the parameters had when logged
+    @Test
+    public void testDeferredFormatting() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setDeferredFormatting(true);
+        appender.start();
+        assertTrue(appender.isDeferredFormatting(), "Formatting should be deferred");
+
+        StringBuilder mutable = new StringBuilder("before");
+        int[] counts = {1, 2};
+        IllegalStateException failure = new IllegalStateException("boom");
+        appender.append(Log4jLogEvent.newBuilder()
+            .setLevel(Level.INFO)
+            .setMessage(new ParameterizedMessage("Order {} is {} with {}", 42, mutable, counts, failure))
+            .build());
+        ReusableMessageFactory factory = new ReusableMessageFactory();
+        Message reusable = factory.newMessage("Reused {}", "first");
+        appender.append(Log4jLogEvent.newBuilder().setLevel(Level.INFO).setMessage(reusable).build());
+        factory.newMessage("Reused {}", "second"); // overwrites the reusable message of this thread
+        mutable.setLength(0);
+        mutable.append("after");
+        counts[0] = 9;
+
+        List<LogEvent> logs = appender.getCurrentLogs();
+        Message stored = logs.get(0).getMessage();
+        assertInstanceOf(DeferredMessage.class, stored, "The message should be stored unformatted");
+        assertFalse(((DeferredMessage) stored).isFormatted(), "Appending should not format the message");
+        assertEquals("Order 42 is before with [1, 2]", stored.getFormattedMessage(),
+            "Later changes to mutable parameters should not show");
+        assertEquals("Order {} is {} with {}", stored.getFormat());
+        assertSame(failure, stored.getThrowable(), "A trailing exception should be kept");
+        assertEquals("Reused first", logs.get(1).getMessage().getFormattedMessage(),
+            "Reusing a message should not change the stored one");
+        assertTrue(appender.getEventStrings().get(1).contains("Reused first"));
+        appender.stop();
+    }
+
     // Method to test the getEventStrings method of the MemAppender class
     @Test
     public void testGetEventStrings() {
@@ -123,6 +559,50 @@ public class MemAppenderTest {
         assertTrue(eventStrings.get(0).contains("Test message"), "Event string should contain the test message");
     }
 
+    // Test that streamed event strings come from a snapshot and are only formatted as they are consumed
+    @Test
+    public void testStreamEventStringsIsLazy() {
+        AtomicInteger formatted = new AtomicInteger();
+        Layout<String> countingLayout = new AbstractStringLayout(StandardCharsets.UTF_8) {
+            @Override
+            public String toSerializable(LogEvent event) {
+                formatted.incrementAndGet();
+                return event.getMessage().getFormattedMessage();
+            }
+        };
+        MemAppender appender = new MemAppender("TestAppender", null, countingLayout, null);
+        for (int i = 0; i < 1000; i++) {
+            appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message " + i)).build());
+        }
+
+        Stream<String> strings = appender.streamEventStrings();
+        appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Later message")).build());
+        assertEquals(0, formatted.get(), "Nothing should be formatted before the stream is consumed");
+        assertEquals(List.of("Message 0", "Message 1", "Message 2"), strings.limit(3).collect(Collectors.toList()));
+        assertEquals(3, formatted.get(), "Only the consumed events should be formatted");
+
+        List<String> untilFive = appender.streamEventStrings()
+            .takeWhile(string -> !string.equals("Message 5"))
+            .collect(Collectors.toList());
+        assertEquals(5, untilFive.size(), "takeWhile should stop at the first non-matching string");
+        assertEquals(1001, appender.streamEventStrings().count(), "A new stream should see the later append");
+    }
+
+    // Test that parallel formatting gives the same strings in the same order
+    @Test
+    public void testFormattingParallelism() {
+        MemAppender appender = new MemAppender("TestAppender", null, PatternLayout.createDefaultLayout(), null);
+        for (int i = 0; i < 5000; i++) {
+            appender.append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("Message " + i)).build());
+        }
+        List<String> sequential = appender.getEventStrings();
+        appender.setFormattingParallelism(4);
+        assertEquals(4, appender.getFormattingParallelism());
+        assertEquals(sequential, appender.getEventStrings(), "Parallel formatting should keep the order");
+        appender.setFormattingParallelism(1);
+        assertThrows(IllegalArgumentException.class, () -> appender.setFormattingParallelism(0));
+    }
+
     // Method to test the printLogs method of the MemAppender class
     @Test
     public void testPrintLogs() {
@@ -148,6 +628,109 @@ public class MemAppenderTest {
         assertTrue(appender.getCurrentLogs().isEmpty(), "Logs should be cleared after printing");
     }
     
+    // Method to test that 100k virtual threads appending while others read and print lose no event and count
+    // none twice, and that the appender never pins a carrier thread
+    @Test
+    public void testVirtualThreadAppendsAreExact() throws Exception {
+        int taskCount = 100_000;
+        MemAppender appender = new MemAppender("VirtualThreadAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.setMaxSize(5_000);
+        appender.start();
+        new MemAppender("WarmUp", null, PatternLayout.createDefaultLayout(), null)
+            .append(createTaskEvent(-1)); // load the classes before the virtual threads start
+
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        AtomicBoolean appending = new AtomicBoolean(true);
+        AtomicInteger duplicateReads = new AtomicInteger();
+        List<String> pinnedFrames = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = startPinningRecording(pinnedFrames)) {
+            System.setOut(new PrintStream(outContent, true, StandardCharsets.UTF_8));
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> readers = new ArrayList<>();
+                for (int reader = 0; reader < 4; reader++) {
+                    boolean printing = reader == 0;
+                    readers.add(executor.submit(() -> {
+                        while (appending.get()) {
+                            if (printing) {
+                                appender.printLogs();
+                            } else if (hasDuplicates(appender.getCurrentLogs())) {
+                                duplicateReads.incrementAndGet();
+                            }
+                            LockSupport.parkNanos(100_000); // unmount, since a yield can starve the writers
+                        }
+                    }));
+                }
+                List<Future<?>> writers = new ArrayList<>(taskCount);
+                for (int i = 0; i < taskCount; i++) {
+                    LogEvent event = createTaskEvent(i);
+                    writers.add(executor.submit(() -> appender.append(event)));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                appending.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            } finally {
+                System.setOut(originalOut);
+            }
+            recording.stop();
+        }
+
+        // Every event was either printed, is still retained, or was discarded by the size limit
+        List<String> printed = outContent.toString(StandardCharsets.UTF_8).lines()
+            .filter(line -> !line.isEmpty()) // the layout ends with a line separator of its own
+            .collect(Collectors.toList());
+        List<String> retained = appender.getCurrentLogs().stream()
+            .map(event -> event.getMessage().getFormattedMessage())
+            .collect(Collectors.toList());
+        Set<String> seen = new HashSet<>(printed);
+        seen.addAll(retained);
+        assertEquals(printed.size() + retained.size(), seen.size(), "No event should be printed or retained twice");
+        assertEquals(taskCount, seen.size() + appender.getDiscardedLogCount(), "No event should be lost");
+        assertEquals(taskCount, appender.getStoredCount());
+        assertEquals(0, duplicateReads.get(), "No read should see an event twice");
+        assertEquals(List.of(), pinnedFrames, "The appender should never pin a carrier thread");
+        appender.stop();
+    }
+
+    // Method to test that clearing while 100k virtual threads append leaves a consistent buffer
+    @Test
+    public void testVirtualThreadClearRace() throws Exception {
+        int taskCount = 100_000;
+        MemAppender appender = new MemAppender("VirtualThreadAppender", null, PatternLayout.createDefaultLayout(), null);
+        appender.start();
+        AtomicBoolean appending = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> clearer = executor.submit(() -> {
+                while (appending.get()) {
+                    appender.clear();
+                    LockSupport.parkNanos(100_000);
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                LogEvent event = createTaskEvent(i);
+                writers.add(executor.submit(() -> appender.append(event)));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            appending.set(false);
+            clearer.get();
+        }
+
+        List<LogEvent> retained = appender.getCurrentLogs();
+        assertFalse(hasDuplicates(retained), "No event should be retained twice");
+        assertEquals(retained.size(), appender.getRetainedCount());
+        assertEquals(taskCount, appender.getStoredCount(), "Every append should be numbered exactly once");
+        appender.clear();
+        assertTrue(appender.getCurrentLogs().isEmpty(), "Clearing after the appends should leave no events");
+        appender.stop();
+    }
+
     // Method to test the MemAppender with the VelocityLayout class
     @Test
     public void testWithDefaultVelocityLayout() {
@@ -331,6 +914,43 @@ public class MemAppenderTest {
         String expectedPattern = "\\[INFO\\]( [\\w.]+)?: Test message\\R"; // Use the //R Java construct to match any line ending for greater flexibility and compatibility
         assertTrue(actualLogMessage.matches(expectedPattern), "Log message should match expected format");
     }
-    
 
-}
\ No newline at end of file
+    // Helper method to create the event appended by one task
+    private static LogEvent createTaskEvent(int task) {
+        return Log4jLogEvent.newBuilder()
+            .setLoggerName("VirtualThreadTest")
+            .setLevel(Level.INFO)
+            .setMessage(new SimpleMessage("Task " + task))
+            .build();
+    }
+
+    // Helper method to check whether a list holds the same message more than once
+    private static boolean hasDuplicates(List<LogEvent> events) {
+        Set<String> messages = new HashSet<>();
+        for (LogEvent event : events) {
+            if (!messages.add(event.getMessage().getFormattedMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Helper method to record the frames of this package in which a virtual thread blocked while pinned
+    private static RecordingStream startPinningRecording(List<String> pinnedFrames) {
+        RecordingStream recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", event -> {
+            if (event.getStackTrace() == null) {
+                return;
+            }
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                if (frame.getMethod().getType().getName().startsWith("assign251_2.")) {
+                    pinnedFrames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName());
+                    return;
+                }
+            }
+        });
+        recording.startAsync();
+        return recording;
+    }
+}
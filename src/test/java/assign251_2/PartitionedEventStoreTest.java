@@ -0,0 +1,223 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Class to test the PartitionedEventStore class
+public class PartitionedEventStoreTest {
+
+    // === Section 1. Routing
+
+    // Test that a chatty logger only evicts the events of its own partition
+    @Test
+    public void testPrefixPartitionsAreIsolated() {
+        Map<String, Integer> prefixes = new LinkedHashMap<>();
+        prefixes.put("http", 5);
+        prefixes.put("http.access.slow", null);
+        PartitionedEventStore store = new PartitionedEventStore(prefixes, 3, StorageMode.HEAP);
+        for (int i = 0; i < 100; i++) {
+            store.append(createEvent("http.access", "Access " + i));
+        }
+        store.append(createEvent("http.access.slow", "Slow"));
+        store.append(createEvent("httpclient", "Client"));
+        store.append(createEvent("app", "App"));
+
+        assertEquals(Set.of("", "http", "http.access.slow"), store.getPartitionNames());
+        assertEquals(5, store.toList("http").size(), "The chatty partition should keep its own capacity");
+        assertEquals("Access 95", store.toList("http").get(0).getMessage().getFormattedMessage());
+        assertEquals(95, store.getDiscardedCount("http"));
+        assertEquals(1, store.toList("http.access.slow").size(), "The longest prefix should win");
+        assertEquals(2, store.toList("").size(), "Loggers outside the prefixes should use the default partition");
+        assertEquals(0, store.getDiscardedCount(""), "The default partition should not lose events");
+        assertEquals(95, store.getDiscardedCount());
+        assertEquals(8, store.size());
+    }
+
+    // Test that partitions are created per key and that merged reads keep the append order
+    @Test
+    public void testKeyPartitionsMergeInOrder() {
+        PartitionedEventStore store = new PartitionedEventStore(
+            event -> event.getLevel() == Level.ERROR ? "errors" : null, 4, StorageMode.OFF_HEAP);
+        store.setPartitionCapacity("errors", 2);
+        for (int i = 0; i < 10; i++) {
+            LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName("TestLogger")
+                .setLevel(i % 3 == 0 ? Level.ERROR : Level.INFO)
+                .setMessage(new SimpleMessage("Message " + i))
+                .build();
+            assertEquals(i, store.append(event), "Events should receive global sequence numbers");
+        }
+        List<LogEvent> events = store.toList();
+        assertEquals(6, events.size(), "Each partition should keep up to its capacity");
+        String[] expected = {"Message 4", "Message 5", "Message 6", "Message 7", "Message 8", "Message 9"};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], events.get(i).getMessage().getFormattedMessage());
+        }
+        assertEquals(4, store.getDiscardedCount());
+    }
+
+    // Test that clearing up to a sequence drops the earlier events of every partition
+    @Test
+    public void testClearUpTo() {
+        PartitionedEventStore store = new PartitionedEventStore(Map.of("a", 10), 10, StorageMode.HEAP);
+        for (int i = 0; i < 4; i++) {
+            store.append(createEvent(i % 2 == 0 ? "a" : "b", "Message " + i));
+        }
+        long[] end = new long[1];
+        assertEquals(4, store.copyRange(end).size(), "All events should be copied");
+        store.append(createEvent("b", "Message 4"));
+        store.clearUpTo(end[0]);
+        List<LogEvent> events = store.toList();
+        assertEquals(1, events.size(), "Only the event appended after the copy should remain");
+        assertEquals("Message 4", events.get(0).getMessage().getFormattedMessage());
+
+        store.clear();
+        assertEquals(0, store.size(), "Store should be empty after clear");
+        assertEquals(0, store.getRetainedBytes(), "Retained bytes should be zero after clear");
+    }
+
+    // Test that the byte budget bounds all partitions together and is taken from the partition holding the most
+    @Test
+    public void testByteBudgetIsShared() {
+        PartitionedEventStore store = new PartitionedEventStore(LogEvent::getLoggerName, 1_000, StorageMode.HEAP);
+        store.append(createEvent("quiet", "Quiet"));
+        long eventBytes = store.getRetainedBytes();
+        store.setMaxRetainedBytes(eventBytes * 10);
+        for (int i = 0; i < 100; i++) {
+            store.append(createEvent("chatty" + i % 4, "Chatty " + i));
+        }
+
+        assertTrue(store.getRetainedBytes() <= eventBytes * 10, "The budget should bound all partitions together");
+        assertEquals(1, store.toList("quiet").size(), "The smallest partition should keep its event");
+        assertEquals(100 + 1 - store.size(), store.getDiscardedCount(), "Evicted events should count as discarded");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(store.toList("chatty" + i).size() >= 2, "The chatty partitions should share the budget");
+        }
+    }
+
+    // Test that key routing stops creating partitions at the limit and sends new keys to the default partition
+    @Test
+    public void testPartitionCountIsCapped() {
+        PartitionedEventStore store = new PartitionedEventStore(LogEvent::getLoggerName, 10, StorageMode.HEAP);
+        for (int i = 0; i < PartitionedEventStore.MAX_PARTITIONS + 50; i++) {
+            store.append(createEvent("key" + i, "Message " + i));
+        }
+
+        assertEquals(PartitionedEventStore.MAX_PARTITIONS, store.getPartitionNames().size(),
+            "No more partitions than the limit should be created");
+        assertEquals(10, store.toList(PartitionedEventStore.DEFAULT_PARTITION).size(),
+            "Keys beyond the limit should share the default partition");
+        store.append(createEvent("key0", "Again"));
+        assertEquals(2, store.toList("key0").size(), "Existing partitions should still be used");
+    }
+
+    // Test that invalid settings and eviction listeners are rejected
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new PartitionedEventStore(Map.of("a", -1), 10, StorageMode.HEAP));
+        PartitionedEventStore store = new PartitionedEventStore(Map.of(), 10, StorageMode.HEAP);
+        assertThrows(UnsupportedOperationException.class, () -> store.setEvictionListener((from, to, events) -> { }));
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that concurrent producers on separate partitions keep exact windows and discarded counts
+    @Test
+    @Timeout(60)
+    public void testConcurrentAppendIsExact() throws InterruptedException {
+        int threads = 4;
+        int eventsPerThread = 50_000;
+        int capacity = 1_000;
+        PartitionedEventStore store = new PartitionedEventStore(
+            LogEvent::getLoggerName, capacity, StorageMode.HEAP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads * 2; t++) {
+            // Two producers share each partition
+            String logger = "Logger" + (t % threads);
+            int producer = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    store.append(createEvent(logger, producer + ":" + i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        assertEquals((long) threads * 2 * eventsPerThread, store.getTailSequence());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(capacity, store.toList("Logger" + t).size(), "Every partition should be full");
+            assertEquals(2L * eventsPerThread - capacity, store.getDiscardedCount("Logger" + t),
+                "Discarded count should be exact per partition");
+        }
+        int[] lastIndex = new int[threads * 2];
+        Arrays.fill(lastIndex, -1);
+        for (LogEvent event : store.toList()) {
+            String[] parts = event.getMessage().getFormattedMessage().split(":");
+            int producer = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > lastIndex[producer], "Events of one producer should stay in order");
+            lastIndex[producer] = index;
+        }
+    }
+
+    // Test that keys created concurrently never take the partition count past the limit
+    @Test
+    @Timeout(60)
+    public void testConcurrentKeysRespectPartitionLimit() throws InterruptedException {
+        int threads = 8;
+        int keysPerThread = PartitionedEventStore.MAX_PARTITIONS / 2;
+        PartitionedEventStore store = new PartitionedEventStore(LogEvent::getLoggerName, 10, StorageMode.HEAP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int producer = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < keysPerThread; i++) {
+                    store.append(createEvent("key" + producer + "-" + i, "Message " + i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        assertEquals(PartitionedEventStore.MAX_PARTITIONS, store.getPartitionNames().size(),
+            "Exactly the limit of partitions should be created");
+        assertEquals((long) threads * keysPerThread, store.size() + store.getDiscardedCount(),
+            "Every event should be stored in some partition");
+    }
+
+    // === Helper methods
+
+    // Helper method to create a log event for the given logger
+    private static LogEvent createEvent(String loggerName, String message) {
+        return TestEvents.eventBuilder(Level.INFO, message).setLoggerName(loggerName).build();
+    }
+}
@@ -0,0 +1,189 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Class to test the SpillTier class behind a LogEventBuffer
+public class SpillTierTest {
+
+    // === Section 1. Single-threaded behaviour
+
+    // Test that evicted events are spilled in order and read back together with the sequence boundary
+    @Test
+    public void testEvictedEventsAreSpilledInOrder(@TempDir Path directory) throws InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(100);
+        SpillTier spill = new SpillTier("spill", directory, 64L * 1024 * 1024, 0, false);
+        buffer.setEvictionListener(spill);
+        for (int i = 0; i < 5000; i++) {
+            buffer.append(createEvent(i));
+        }
+
+        List<LogEvent> spilled = spill.read(buffer.getStartSequence());
+        assertEquals(4900, spilled.size(), "Every evicted event should be spilled");
+        assertEquals("Message 0", message(spilled.get(0)));
+        assertEquals("Message 4899", message(spilled.get(4899)));
+        assertEquals(Level.WARN, spilled.get(1).getLevel(), "Spilled events should keep their fields");
+        assertEquals(4900, buffer.getDiscardedCount(), "Spilled events still leave the memory tier");
+        assertEquals(100, spill.read(100).size(), "Reads should stop at the requested sequence");
+        assertEquals(0, spill.getLostCount(buffer.getStartSequence()));
+        spill.stop();
+    }
+
+    // Test that the oldest files are deleted once the spilled events exceed the size cap
+    @Test
+    public void testSizeCapDropsOldestFiles(@TempDir Path directory) throws IOException, InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        SpillTier spill = new SpillTier("spill", directory, 256 * 1024, 0, false);
+        buffer.setEvictionListener(spill);
+        for (int i = 0; i < 20_000; i++) {
+            buffer.append(createEvent(i));
+        }
+
+        List<LogEvent> spilled = spill.read(buffer.getStartSequence());
+        assertTrue(spill.getLostCount(buffer.getStartSequence()) > 0, "Events beyond the cap should be dropped");
+        assertEquals(19_990, spilled.size() + spill.getLostCount(buffer.getStartSequence()), "Every evicted event is spilled or dropped");
+        assertEquals("Message 19989", message(spilled.get(spilled.size() - 1)), "The newest events should be kept");
+        assertTrue(spill.getSpilledBytes() <= 256 * 1024, "Spilled bytes should respect the cap");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() <= 4, "Only the files within the cap should remain");
+        }
+        spill.stop();
+    }
+
+    // Test that cleared ranges are not spilled and cleared spilled events are no longer returned
+    @Test
+    public void testClear(@TempDir Path directory) throws IOException, InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        SpillTier spill = new SpillTier("spill", directory, 64L * 1024 * 1024, 0, false);
+        buffer.setEvictionListener(spill);
+        for (int i = 0; i < 50; i++) {
+            buffer.append(createEvent(i));
+        }
+        buffer.clear();
+        assertEquals(40, spill.read(buffer.getStartSequence()).size(), "Cleared events should not be spilled");
+
+        spill.clearBefore(buffer.getStartSequence());
+        assertEquals(0, spill.getSpilledCount(buffer.getStartSequence()),
+            "Cleared spilled events should not be returned");
+        assertTrue(spill.read(buffer.getStartSequence()).isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count(), "Files of cleared events should be deleted");
+        }
+
+        buffer.append(createEvent(50));
+        buffer.setCapacity(0);
+        assertEquals(List.of("Message 50"), messages(spill.read(buffer.getStartSequence())));
+        assertThrows(IllegalArgumentException.class, () -> new SpillTier("spill", directory, 0, 0, false));
+        spill.stop();
+    }
+
+    // Test that evictions beyond the pending limit are dropped and counted as lost rather than written by the
+    // producer when no writer keeps up
+    @Test
+    public void testFullBacklogDropsRanges(@TempDir Path directory) throws IOException, InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        SpillTier spill = new SpillTier("spill", directory, 256L * 1024 * 1024, 0, false);
+        buffer.setEvictionListener(spill);
+        int count = 2 * SpillTier.MAX_PENDING_EVENTS + 10;
+        for (int i = 0; i < count; i++) {
+            buffer.append(createEvent(i));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count(), "Producers should not write to the disk");
+        }
+
+        long lost = spill.getLostCount(buffer.getStartSequence());
+        long spilled = spill.getSpilledCount(buffer.getStartSequence());
+        assertTrue(spilled <= SpillTier.MAX_PENDING_EVENTS, "Only the backlog within the limit should be kept");
+        assertTrue(lost > 0, "Ranges beyond the limit should be counted as lost");
+        assertEquals(count - 10, spilled + lost, "Every evicted event should be spilled or counted as lost");
+        spill.stop();
+    }
+
+    // Test that evictions beyond the pending limit wait for the backlog rather than drop events when
+    // backpressure is enabled (with no writer thread running, the producer writes the backlog itself)
+    @Test
+    public void testBacklogAppliesBackpressure(@TempDir Path directory) throws InterruptedException {
+        LogEventBuffer buffer = new LogEventBuffer(10);
+        SpillTier spill = new SpillTier("spill", directory, 256L * 1024 * 1024, 0, true);
+        buffer.setEvictionListener(spill);
+        int count = 2 * SpillTier.MAX_PENDING_EVENTS + 10;
+        for (int i = 0; i < count; i++) {
+            buffer.append(createEvent(i));
+        }
+
+        assertEquals(0, spill.getLostCount(buffer.getStartSequence()), "A full backlog should not lose events");
+        assertEquals(count - 10, spill.getSpilledCount(buffer.getStartSequence()),
+            "Every evicted event should be spilled");
+        spill.stop();
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that concurrent evictions are all spilled without loss while the writer thread runs
+    @Test
+    @Timeout(60)
+    public void testConcurrentEviction(@TempDir Path directory) throws InterruptedException {
+        int threads = 4;
+        int eventsPerThread = 10_000;
+        LogEventBuffer buffer = new LogEventBuffer(1000);
+        SpillTier spill = new SpillTier("spill", directory, 256L * 1024 * 1024, 0, false);
+        buffer.setEvictionListener(spill);
+        spill.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    buffer.append(createEvent(i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+        spill.stop();
+
+        long evicted = threads * eventsPerThread - 1000;
+        assertEquals(evicted, spill.read(buffer.getStartSequence()).size() + spill.getLostCount(buffer.getStartSequence()),
+            "Every evicted event should be accounted for");
+        assertEquals(evicted, spill.getSpilledCount(buffer.getStartSequence()) + spill.getLostCount(buffer.getStartSequence()));
+    }
+
+    // === Helper methods
+
+    // Helper method to create a log event
+    private static LogEvent createEvent(int i) {
+        return TestEvents.createEvent(i % 2 == 0 ? Level.INFO : Level.WARN, "Message " + i);
+    }
+
+    // Helper method to extract the message of an event
+    private static String message(LogEvent event) {
+        return event.getMessage().getFormattedMessage();
+    }
+
+    // Helper method to extract the messages of events
+    private static List<String> messages(List<LogEvent> events) {
+        return events.stream().map(SpillTierTest::message).collect(Collectors.toList());
+    }
+}
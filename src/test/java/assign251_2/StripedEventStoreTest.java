@@ -0,0 +1,185 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static assign251_2.TestEvents.createEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Class to test the StripedEventStore class
+public class StripedEventStoreTest {
+
+    // === Section 1. Single-threaded behaviour
+
+    // Test that the oldest events are dropped across stripes and reads keep the global order
+    @Test
+    public void testDropOldestAcrossStripes() throws InterruptedException {
+        StripedEventStore store = new StripedEventStore(4, 1500, StorageMode.HEAP);
+        // Alternate between producer threads so that the events are spread over several stripes
+        for (int batch = 0; batch < 10; batch++) {
+            int first = batch * 500;
+            Thread producer = new Thread(() -> {
+                for (int i = first; i < first + 500; i++) {
+                    store.append(createEvent("Message " + i));
+                }
+            });
+            producer.start();
+            producer.join();
+        }
+        List<LogEvent> events = store.toList();
+        assertEquals(1500, events.size(), "Should only keep capacity events");
+        for (int i = 0; i < 1500; i++) {
+            assertEquals("Message " + (3500 + i), events.get(i).getMessage().getFormattedMessage());
+        }
+        assertEquals(3500, store.getDiscardedCount(), "Should have discarded the overflow");
+        long expectedBytes = events.stream().mapToLong(LogEventSizeEstimator::estimate).sum();
+        assertEquals(expectedBytes, store.getRetainedBytes(), "Retained bytes should match the retained events");
+    }
+
+    // Test that clearing up to a sequence only drops the events before it
+    @Test
+    public void testClearUpTo() {
+        StripedEventStore store = new StripedEventStore(2, Integer.MAX_VALUE, StorageMode.HEAP);
+        for (int i = 0; i < 5; i++) {
+            store.append(createEvent("Message " + i));
+        }
+        long[] end = new long[1];
+        assertEquals(5, store.copyRange(end).size(), "All events should be copied");
+        store.append(createEvent("Message 5"));
+        store.clearUpTo(end[0]);
+        List<LogEvent> events = store.toList();
+        assertEquals(1, events.size(), "Only the event appended after the copy should remain");
+        assertEquals("Message 5", events.get(0).getMessage().getFormattedMessage());
+
+        store.clear();
+        assertEquals(0, store.size(), "Store should be empty after clear");
+        assertEquals(0, store.getRetainedBytes(), "Retained bytes should be zero after clear");
+    }
+
+    // Test that the byte budget evicts the globally oldest events
+    @Test
+    public void testByteBudget() {
+        StripedEventStore store = new StripedEventStore(2, Integer.MAX_VALUE, StorageMode.HEAP);
+        store.append(createEvent("Message 0"));
+        long eventBytes = store.getRetainedBytes();
+        store.setMaxRetainedBytes(eventBytes * 3);
+        for (int i = 1; i < 5; i++) {
+            store.append(createEvent("Message " + i));
+        }
+        List<LogEvent> events = store.toList();
+        assertEquals(3, events.size(), "Should only keep the events that fit the budget");
+        assertEquals("Message 2", events.get(0).getMessage().getFormattedMessage());
+        assertEquals(2, store.getDiscardedCount(), "Budget evictions should be counted");
+    }
+
+    // Test that invalid stripe counts are rejected
+    @Test
+    public void testInvalidStripeCount() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedEventStore(0, 10, StorageMode.HEAP));
+    }
+
+    // === Section 2. Concurrent behaviour
+
+    // Test that concurrent producers keep an exact window, an exact discarded count and their own order
+    @Test
+    @Timeout(60)
+    public void testConcurrentAppendIsExact() throws InterruptedException {
+        int threads = 8;
+        int eventsPerThread = 50_000;
+        int capacity = 10_000;
+        StripedEventStore store = new StripedEventStore(threads, capacity, StorageMode.HEAP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    store.append(createEvent(thread + ":" + i));
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Producers should finish");
+
+        List<LogEvent> events = store.toList();
+        assertEquals(capacity, events.size(), "Store should be full");
+        assertEquals((long) threads * eventsPerThread - capacity, store.getDiscardedCount(),
+            "Discarded count should be exact under concurrency");
+        // Evicted events queued behind a retained event of the same stripe are still counted until it leaves
+        long expectedBytes = events.stream().mapToLong(LogEventSizeEstimator::estimate).sum();
+        assertTrue(store.getRetainedBytes() >= expectedBytes, "Retained bytes should cover the retained events");
+
+        Set<String> seen = new HashSet<>();
+        int[] lastIndex = new int[threads];
+        Arrays.fill(lastIndex, -1);
+        for (LogEvent event : events) {
+            String message = event.getMessage().getFormattedMessage();
+            assertTrue(seen.add(message), "Event should not be retained twice: " + message);
+            String[] parts = message.split(":");
+            int thread = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > lastIndex[thread], "Events of one producer should stay in order");
+            lastIndex[thread] = index;
+        }
+    }
+
+    // Test that copying and then clearing up to the end of the copy while producers append never drops an
+    // event that was not copied, although the stripes hand out their sequence numbers in blocks
+    @Test
+    @Timeout(60)
+    public void testCopyThenClearLosesNothing() throws Exception {
+        int threads = 8;
+        int eventsPerThread = 20_000;
+        StripedEventStore store = new StripedEventStore(threads, Integer.MAX_VALUE, StorageMode.HEAP);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            producers.add(executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < eventsPerThread; i++) {
+                    store.append(createEvent(thread + ":" + i));
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        Set<String> copied = new HashSet<>();
+        int duplicates = 0;
+        boolean producing = true;
+        while (producing) {
+            producing = !producers.stream().allMatch(Future::isDone);
+            long[] end = new long[1];
+            List<LogEvent> events = store.copyRange(end);
+            assertEquals(events.size(), end[0] - store.clearUpTo(end[0]), "Only the copied events should be cleared");
+            for (LogEvent event : events) {
+                duplicates += copied.add(event.getMessage().getFormattedMessage()) ? 0 : 1;
+            }
+        }
+        executor.shutdown();
+        assertEquals(0, duplicates, "No event should be copied twice");
+        assertEquals(threads * eventsPerThread, copied.size(), "Every event should be copied once");
+        assertEquals(0, store.size());
+        assertEquals(threads * eventsPerThread, store.getTailSequence(), "Every append should be counted");
+    }
+
+    // === Helper methods
+}
@@ -0,0 +1,40 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+// Class to create the log events used by the tests
+final class TestEvents {
+
+    // Name of the logger of the created events
+    static final String LOGGER_NAME = "TestLogger";
+
+    private TestEvents() {
+    }
+
+    // Helper method to start building an event of the test logger with the given level and message
+    static Log4jLogEvent.Builder eventBuilder(Level level, String message) {
+        return Log4jLogEvent.newBuilder()
+            .setLoggerName(LOGGER_NAME)
+            .setLevel(level)
+            .setMessage(new SimpleMessage(message));
+    }
+
+    // Helper method to create an INFO event with the given message
+    static LogEvent createEvent(String message) {
+        return createEvent(Level.INFO, message);
+    }
+
+    // Helper method to create an event with the given level and message
+    static LogEvent createEvent(Level level, String message) {
+        return eventBuilder(level, message).build();
+    }
+
+    // Helper method to create an event with the given level, message and timestamp
+    static LogEvent createEvent(Level level, String message, long timeMillis) {
+        return eventBuilder(level, message).setTimeMillis(timeMillis).build();
+    }
+}
@@ -0,0 +1,76 @@
+package assign251_2;
+
+// Import the necessary classes
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Class to test the ValueDictionary class
+public class ValueDictionaryTest {
+
+    // Test that values get stable ids in order and are looked up by id
+    @Test
+    public void testIdsAreStable() {
+        ValueDictionary<String> dictionary = new ValueDictionary<>(1_000);
+        for (int i = 0; i < 600; i++) {
+            assertEquals(i, dictionary.idOf("value" + i), "Ids should be handed out in order");
+        }
+        assertEquals(17, dictionary.idOf("value17"), "A known value should keep its id");
+        assertEquals("value599", dictionary.valueOf(599), "Values in later chunks should be found");
+        assertEquals(600, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> dictionary.valueOf(600));
+    }
+
+    // Test that a full dictionary keeps its values and rejects new ones
+    @Test
+    public void testFullDictionary() {
+        ValueDictionary<String> dictionary = new ValueDictionary<>(2);
+        assertEquals(0, dictionary.idOf("a"));
+        assertEquals(1, dictionary.idOf("b"));
+        assertEquals(-1, dictionary.idOf("c"), "New values should be rejected when full");
+        assertEquals(-1, dictionary.idOf("c"));
+        assertEquals(1, dictionary.idOf("b"), "Known values should still be found");
+        assertEquals(2, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> new ValueDictionary<String>(-1));
+    }
+
+    // Test that concurrent threads agree on the id of every value
+    @Test
+    @Timeout(60)
+    public void testConcurrentIdsAgree() throws InterruptedException {
+        int threads = 8;
+        int values = 5_000;
+        ValueDictionary<String> dictionary = new ValueDictionary<>(values);
+        AtomicIntegerArray ids = new AtomicIntegerArray(values);
+        AtomicInteger mismatches = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < values; i++) {
+                    int id = dictionary.idOf("value" + i);
+                    boolean agreed = ids.compareAndSet(i, 0, id + 1) || ids.get(i) == id + 1;
+                    if (!agreed || !dictionary.valueOf(id).equals("value" + i)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Threads should finish");
+        assertEquals(0, mismatches.get(), "Every thread should get the same id, resolvable at once");
+        assertEquals(values, dictionary.size(), "Every value should be added exactly once");
+    }
+}
@@ -9,11 +9,23 @@ import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.message.SimpleMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.apache.velocity.exception.ParseErrorException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 // Class to test the VelocityLayout class
@@ -281,4 +293,166 @@ public class VelocityLayoutTest {
     }
 
 
+    // === Section 6. Test compiled templates
+
+    // Test that the compiled template is reused across many events
+    @Test
+    public void testCompiledTemplateReused() {
+        layout.setPattern("$p|$m");
+        for (int i = 0; i < 100; i++) {
+            LogEvent event = Log4jLogEvent.newBuilder()
+                    .setLoggerName("TestLogger")
+                    .setLevel(Level.WARN)
+                    .setMessage(new SimpleMessage("Message " + i))
+                    .build();
+            assertEquals("WARN|Message " + i, layout.toSerializable(event), "Each event should be formatted with the pattern");
+        }
+    }
+
+    // Test that an invalid pattern is rejected when it is set rather than when an event is formatted
+    @Test
+    public void testInvalidPatternRejectedOnSet() {
+        assertThrows(ParseErrorException.class, () -> layout.setPattern("#if($p"), "Invalid pattern should fail to compile");
+        assertEquals("[$p] $c $d: $m$n", layout.getPattern(), "Failed compilation should keep the previous pattern");
+    }
+
+    // Test that formatting threads only ever see a complete old or new template while the pattern is swapped
+    @Test
+    public void testConcurrentPatternSwap() throws Exception {
+        layout.setPattern("A:$m");
+        LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName("TestLogger")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("x"))
+                .build();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> formatters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            formatters.add(executor.submit(() -> {
+                while (running.get()) {
+                    String result = layout.toSerializable(event);
+                    assertTrue(result.equals("A:x") || result.equals("B:x"), "Unexpected output: " + result);
+                }
+                return null;
+            }));
+        }
+        for (int i = 0; i < 1000; i++) {
+            layout.setPattern(i % 2 == 0 ? "B:$m" : "A:$m");
+        }
+        running.set(false);
+        for (Future<?> formatter : formatters) {
+            formatter.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    // === Section 7. Test buffer reuse
+
+    // Test that reusing buffers produces the same output as the default mode
+    @Test
+    public void testReuseBuffersProducesSameOutput() {
+        String pattern = "[$p] $c ($t) $d - $m$n";
+        VelocityLayout defaultLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern);
+        VelocityLayout reusingLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern, true);
+        assertTrue(reusingLayout.isReuseBuffers(), "Buffer reuse should be enabled");
+
+        for (int i = 0; i < 50; i++) {
+            LogEvent event = Log4jLogEvent.newBuilder()
+                    .setLoggerName("TestLogger")
+                    .setLevel(i % 2 == 0 ? Level.INFO : Level.ERROR)
+                    .setMessage(new SimpleMessage("Message " + i))
+                    .setThreadName("TestThread")
+                    .setTimeMillis(1_700_000_000_000L + i * 1000L)
+                    .build();
+            assertEquals(defaultLayout.toSerializable(event), reusingLayout.toSerializable(event),
+                    "Reused buffers should not change the output");
+        }
+    }
+
+    // Test that variables set by the template do not leak from one event into the next through the pooled
+    // context
+    @Test
+    public void testReuseBuffersDoesNotLeakTemplateVariables() {
+        String pattern = "#if($seen)AGAIN #end#set($seen = true)$m";
+        VelocityLayout defaultLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern);
+        VelocityLayout reusingLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, pattern, true);
+        for (int i = 1; i <= 3; i++) {
+            LogEvent event = Log4jLogEvent.newBuilder()
+                    .setLoggerName("TestLogger")
+                    .setLevel(Level.INFO)
+                    .setMessage(new SimpleMessage("msg" + i))
+                    .build();
+            assertEquals("msg" + i, defaultLayout.toSerializable(event));
+            assertEquals("msg" + i, reusingLayout.toSerializable(event), "#set should not outlive its event");
+        }
+    }
+
+    // Test that pooled buffers are not shared between virtual threads formatting at the same time
+    @Test
+    public void testReuseBuffersWithVirtualThreads() throws Exception {
+        layout.setPattern("$m");
+        layout.setReuseBuffers(true);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10_000; i++) {
+                LogEvent event = Log4jLogEvent.newBuilder()
+                        .setLoggerName("TestLogger")
+                        .setLevel(Level.INFO)
+                        .setMessage(new SimpleMessage("Message " + i))
+                        .build();
+                results.add(executor.submit(() -> layout.toSerializable(event)));
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Message " + i, results.get(i).get(), "Each task should see only its own output");
+        }
+    }
+
+    // === Section 8. Test date formats
+
+    // Test that the configured date format renders $d on both the direct and the engine path
+    @Test
+    public void testDateFormat() {
+        String dateFormat = "yyyy-MM-dd HH:mm:ss.SSS";
+        String expected = DateTimeFormatter.ofPattern(dateFormat).withZone(ZoneId.systemDefault())
+                .format(Instant.ofEpochMilli(1_700_000_000_123L));
+        VelocityLayout directLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "$d $m", false, dateFormat);
+        VelocityLayout engineLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "$d $m#*engine*#", false,
+                dateFormat);
+        VelocityLayout reusingLayout = VelocityLayout.createLayout(StandardCharsets.UTF_8, "$d $m#*engine*#", true,
+                dateFormat);
+        LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName("TestLogger")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("Test message"))
+                .setTimeMillis(1_700_000_000_123L)
+                .build();
+
+        assertTrue(directLayout.isDirectPattern(), "Simple pattern should bypass the engine");
+        assertEquals(dateFormat, directLayout.getDateFormat());
+        assertEquals(expected + " Test message", directLayout.toSerializable(event));
+        assertEquals(expected + " Test message", engineLayout.toSerializable(event));
+        assertEquals(expected + " Test message", reusingLayout.toSerializable(event));
+    }
+
+    // Test that changing the date format keeps the pattern, and that $d is still a Date for templates
+    @Test
+    public void testSetDateFormat() {
+        LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName("TestLogger")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("Test message"))
+                .setTimeMillis(1_700_000_000_123L)
+                .build();
+        layout.setPattern("$d.time $d");
+        assertEquals("1700000000123 " + new Date(1_700_000_000_123L), layout.toSerializable(event));
+        layout.setDateFormat("SSS");
+        assertEquals("$d.time $d", layout.getPattern(), "The pattern should not change");
+        assertEquals("1700000000123 123", layout.toSerializable(event));
+        layout.setDateFormat(null);
+        assertNull(layout.getDateFormat());
+        assertEquals("1700000000123 " + new Date(1_700_000_000_123L), layout.toSerializable(event));
+    }
 }